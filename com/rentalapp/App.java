@@ -48,6 +48,7 @@ public class App {
             }
         }
         
+        dashboardManager.shutdown();
         showGoodbyeMessage();
         scanner.close();
     }
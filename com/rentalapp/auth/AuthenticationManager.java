@@ -1,5 +1,6 @@
 package com.rentalapp.auth;
 
+import com.rentalapp.utils.IdGenerator;
 import java.io.*;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -334,11 +335,11 @@ public class AuthenticationManager {
      * ID generation methods
      */
     public String generateCustomerId() {
-        return "CUST" + System.currentTimeMillis() % 100000;
+        return IdGenerator.shared().next("CUST");
     }
     
     public String generateMembershipId() {
-        return "MEM" + System.currentTimeMillis() % 100000;
+        return IdGenerator.shared().next("MEM");
     }
 
     
@@ -1,5 +1,6 @@
 package com.rentalapp.auth;
 
+import com.rentalapp.payment.Money;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -9,14 +10,14 @@ public abstract class Customer extends User {
     protected String address;
     protected String icNumber;  
     protected List<String> rentalHistory;
-    protected double totalSpent;
+    protected volatile long totalSpentCents;
     protected LocalDateTime lastRental;
     protected boolean isMember;
     
     public Customer() {
         super();
         this.rentalHistory = new ArrayList<>();
-        this.totalSpent = 0.0;
+        this.totalSpentCents = 0;
     }
     
     public Customer(String username, String hashedPassword, String name, String email, String phone,
@@ -27,7 +28,7 @@ public abstract class Customer extends User {
         this.icNumber = icNumber;
         this.isMember = isMember;
         this.rentalHistory = new ArrayList<>();
-        this.totalSpent = 0.0;
+        this.totalSpentCents = 0;
     }
     
     // Getters
@@ -35,7 +36,8 @@ public abstract class Customer extends User {
     public String getAddress() { return address; }
     public String getIcNumber() { return icNumber; }
     public List<String> getRentalHistory() { return rentalHistory; }
-    public double getTotalSpent() { return totalSpent; }
+    public double getTotalSpent() { return Money.toAmount(totalSpentCents); }
+    public long getTotalSpentCents() { return totalSpentCents; }
     public LocalDateTime getLastRental() { return lastRental; }
     public boolean isMember() { return isMember; }
     
@@ -43,7 +45,7 @@ public abstract class Customer extends User {
     public void setCustomerId(String customerId) { this.customerId = customerId; }
     public void setAddress(String address) { this.address = address; }
      public void setIcNumber(String icNumber) { this.icNumber = icNumber; }
-    public void setTotalSpent(double totalSpent) { this.totalSpent = totalSpent; }
+    public void setTotalSpent(double totalSpent) { this.totalSpentCents = Money.toCents(totalSpent); }
     public void setLastRental(LocalDateTime lastRental) { this.lastRental = lastRental; }
     public void setMember(boolean member) { this.isMember = member; }
     
@@ -56,7 +58,12 @@ public abstract class Customer extends User {
     }
     
     public void addToTotalSpent(double amount) {
-        this.totalSpent += amount;
+        addToTotalSpentCents(Money.toCents(amount));
+    }
+
+    // Also called from the settlement thread once a batched charge is settled
+    public synchronized void addToTotalSpentCents(long amountCents) {
+        this.totalSpentCents += amountCents;
     }
     
     public int getCompletedRentals() {
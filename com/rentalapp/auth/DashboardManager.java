@@ -1,14 +1,21 @@
 package com.rentalapp.auth;
 
+import com.rentalapp.payment.ResilientPaymentGateway;
+import com.rentalapp.rental.HistoryLog;
 import com.rentalapp.rental.RentalController;
 import com.rentalapp.rental.RentalHistory;
 import com.rentalapp.rental.RentalService;
+import com.rentalapp.payment.Ledger;
 import com.rentalapp.payment.PaymentCalculator;
 import com.rentalapp.payment.PaymentManager;
 import com.rentalapp.payment.PaymentSummary;
+import com.rentalapp.payment.PricingCalendar;
+import com.rentalapp.payment.PricingRules;
 import com.rentalapp.payment.Receipt;
+import com.rentalapp.payment.SettlementBatcher;
 import com.rentalapp.vessel.Vessel;
 import com.rentalapp.vessel.VesselManager;
+import com.rentalapp.vessel.VesselReleased;
 import com.rentalapp.maintenance.MaintenanceManager;
 import com.rentalapp.maintenance.MaintenanceRecord;
 import com.rentalapp.maintenance.MaintenanceStatus;
@@ -17,16 +24,29 @@ import com.rentalapp.loyalty.LoyaltyAccount;
 import com.rentalapp.loyalty.LoyaltyPointManager;
 import java.time.format.DateTimeFormatter;
 import com.rentalapp.review.ReviewManager;
+import com.rentalapp.report.ExportFormats;
+import com.rentalapp.report.Report;
+import com.rentalapp.report.ReportRenderer;
+import com.rentalapp.report.StreamingExporter;
+import com.rentalapp.utils.AddOnDataLoader;
+import com.rentalapp.utils.EventBus;
+import com.rentalapp.utils.PricingCalendarLoader;
 import com.rentalapp.utils.VesselDataLoader;
 import com.rentalapp.review.Review;
 import com.rentalapp.rental.RentalRecord;
 import com.rentalapp.rental.RentalManager;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 import java.time.Duration;
 import java.time.LocalDate;
@@ -43,7 +63,9 @@ public class DashboardManager {
     private RentalManager rentalManager;
     private final AuthenticationManager authManager;
     private PaymentCalculator paymentCalculator;
+    private final PricingCalendar pricingCalendar;
     private RentalHistory rentalHistory;
+    private final EventBus eventBus;
     private final Scanner scanner = new Scanner(System.in); 
 
     
@@ -53,12 +75,16 @@ public class DashboardManager {
         // Initialize managers
         this.vesselManager = new VesselManager();
         this.loyaltyPointManager = new LoyaltyPointManager();
-        this.paymentManager = new PaymentManager(this.loyaltyPointManager);
+        this.paymentManager = new PaymentManager(this.loyaltyPointManager, openLedger());
         this.maintenanceManager = new MaintenanceManager();
-        this.rentalHistory = new RentalHistory();
+        this.rentalHistory = new RentalHistory(openHistoryLog());
+        this.rentalHistory.hydrateInBackground();
         this.reviewManager = new ReviewManager(loyaltyPointManager);
-        this.paymentCalculator = new PaymentCalculator();
-        this.rentalService = new RentalService(vesselManager, maintenanceManager, rentalHistory);
+        this.pricingCalendar = new PricingCalendar(PricingCalendarLoader.loadCalendarRules(), vesselManager.getAllVessels());
+        this.paymentCalculator = new PaymentCalculator(null, pricingCalendar);
+        this.eventBus = new EventBus();
+        this.rentalService = new RentalService(vesselManager, maintenanceManager, rentalHistory, eventBus, paymentCalculator);
+        this.rentalService.loadAvailableAddOns(AddOnDataLoader.loadAllAddOns());
         this.rentalManager = new RentalManager(rentalService,rentalHistory,paymentCalculator,paymentManager,loyaltyPointManager);
         
         // Initialize rental controller
@@ -73,6 +99,54 @@ public class DashboardManager {
     
     }
     
+    /**
+     * Finish background work before the application exits: queued refunds and charges
+     * are settled and reconciled, the ledger journal writes what they posted, queued
+     * side effects are delivered before the worker threads stop, then the history log
+     * is forced to disk and closed.
+     */
+    public void shutdown() {
+        SettlementBatcher settlements = paymentManager.getSettlementBatcher();
+        try {
+            settlements.flushAll().get(30, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            System.err.println(settlements.getOutstandingCount() + " payment(s) were still waiting for settlement at exit.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // flushAll never completes exceptionally; failures are reported per receipt
+        }
+        try {
+            paymentManager.getLedger().close();
+        } catch (IOException e) {
+            System.err.println("Could not close the payments ledger: " + e.getMessage());
+        }
+        eventBus.shutdown(5000);
+        try {
+            rentalHistory.close();
+        } catch (IOException e) {
+            System.err.println("Could not close the rental history log: " + e.getMessage());
+        }
+    }
+
+    private static HistoryLog openHistoryLog() {
+        try {
+            return HistoryLog.open(Paths.get("history"));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Rental history will not be persisted: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Ledger openLedger() {
+        try {
+            return Ledger.open(Paths.get("ledger"));
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Payments ledger will not be persisted: " + e.getMessage());
+            return Ledger.inMemory();
+        }
+    }
+
     /**
      * Show appropriate dashboard based on user type
      */
@@ -320,10 +394,11 @@ public class DashboardManager {
         System.out.println("│ 3. Update Vessel                               │");
         System.out.println("│ 4. Delete Vessel                               │");
         System.out.println("│ 5. View Popular Vessels                        │");
-        System.out.println("│ 6. Back to Dashboard                           │");
+        System.out.println("│ 6. Reload Pricing Rules                        │");
+        System.out.println("│ 7. Back to Dashboard                           │");
         System.out.println("└────────────────────────────────────────────────┘");
 
-        System.out.print("\nChoose option (1-6): ");
+        System.out.print("\nChoose option (1-7): ");
         
         String choice = scanner.nextLine().trim();
         switch (choice) {
@@ -345,10 +420,14 @@ public class DashboardManager {
                 pauseForUser();
                 break;
             case "6":
+                reloadPricingRules();
+                pauseForUser();
+                break;
+            case "7":
                 running = false;
                 break;
             default:
-                showError("Invalid option! Please choose 1-6.");
+                showError("Invalid option! Please choose 1-7.");
         }
     }
 }
@@ -432,34 +511,118 @@ public class DashboardManager {
         System.out.println("│ 2. Maintenance Report                        │");
         System.out.println("│ 3. Payment Report                            │");
         System.out.println("│ 4. Rental Report                             │");
-        System.out.println("│ 5. Back to Admin Dashboard                   │");
+        System.out.println("│ 5. Event Bus / Gateway / Quote Cache Metrics │");
+        System.out.println("│ 6. Rental Waitlist                           │");
+        System.out.println("│ 7. Export History / Receipts                 │");
+        System.out.println("│ 8. Rental Analytics (approximate)            │");
+        System.out.println("│ 9. Payments Ledger (balances / verify)       │");
+        System.out.println("│ 10. Verify Customer Totals                   │");
+        System.out.println("│ 11. Back to Admin Dashboard                  │");
         System.out.println("└──────────────────────────────────────────────┘");
-        System.out.print("Choose option (1-5): ");
+        System.out.print("Choose option (1-11): ");
 
         String choice = scanner.nextLine().trim();
         switch (choice) {
             case "1":
-                loyaltyPointManager.generateLoyaltyReport();
+                printReport(loyaltyPointManager.buildLoyaltyReport());
                 break;
             case "2":
-                maintenanceManager.generateMaintenanceReport();
+                printReport(maintenanceManager.buildMaintenanceReport());
                 break;
             case "3":
-                paymentManager.generateMonthlyReport();
+                printReport(paymentManager.buildMonthlyReport(YearMonth.now()));
                 break;
             case "4":
-                rentalManager.generateRentalReport();
+                printReport(rentalManager.buildRentalReport());
                 break;
             case "5":
+                eventBus.printMetrics();
+                if (paymentManager.getPaymentGateway() instanceof ResilientPaymentGateway gateway) {
+                    gateway.printMetrics();
+                }
+                paymentManager.getSettlementBatcher().printMetrics();
+                paymentCalculator.getQuoteCache().printMetrics();
+                break;
+            case "6":
+                rentalService.getWaitlist().printStatus();
+                break;
+            case "7":
+                exportData();
+                break;
+            case "8":
+                printReport(rentalManager.buildAnalyticsReport());
+                break;
+            case "9":
+                showLedger();
+                break;
+            case "10":
+                verifyCustomerTotals();
+                break;
+            case "11":
                 reporting = false;
                 break;
             default:
-                showError("Invalid option! Please choose 1-5.");
+                showError("Invalid option! Please choose 1-11.");
         }
         pauseForUser();
     }
 }
 
+    private void showLedger() {
+        Ledger ledger = paymentManager.getLedger();
+        ledger.printBalances();
+        try {
+            ledger.verify().print();
+        } catch (IOException e) {
+            System.err.println("Could not read the ledger journal: " + e.getMessage());
+        }
+    }
+
+    private void verifyCustomerTotals() {
+        int mismatched = rentalService.verifyCustomerAggregates();
+        if (mismatched == 0) {
+            System.out.println("Customer totals match the rental history.");
+        } else {
+            System.out.println("Rebuilt the totals of " + mismatched + " customer(s) from the rental history.");
+        }
+    }
+
+    private void exportData() {
+        System.out.print("Export (1. Rental History, 2. Receipts): ");
+        boolean history = !scanner.nextLine().trim().equals("2");
+        System.out.print("Format (1. CSV, 2. JSON Lines) [1]: ");
+        StreamingExporter.Format format = scanner.nextLine().trim().equals("2")
+                ? StreamingExporter.Format.JSONL : StreamingExporter.Format.CSV;
+        System.out.print("Compress with gzip? (y/n): ");
+        boolean gzip = scanner.nextLine().trim().toLowerCase().startsWith("y");
+
+        String fileName = (history ? "rental-history-" : "receipts-")
+                + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE)
+                + (format == StreamingExporter.Format.CSV ? ".csv" : ".jsonl")
+                + (gzip ? ".gz" : "");
+        Path target = Paths.get("exports", fileName);
+
+        StreamingExporter exporter = new StreamingExporter(format, gzip)
+                .onProgress(10_000, (rows, bytes, nanos) -> System.out.printf(
+                        "  %,d rows, %,d KB, %.1fs%n", rows, bytes / 1024, nanos / 1e9));
+        try {
+            StreamingExporter.Result result = history
+                    ? exporter.export(rentalHistory.iterateHistory(), ExportFormats.RENTAL_HISTORY, target)
+                    : exporter.export(paymentManager.iterateReceipts(), ExportFormats.RECEIPTS, target);
+            System.out.printf("Exported %,d rows to %s (%.0f rows/s, %.2f MB/s)%n",
+                    result.rows(), target, result.rowsPerSecond(), result.megabytesPerSecond());
+        } catch (IOException e) {
+            showError("Export failed: " + e.getMessage());
+        }
+    }
+
+    private void printReport(Report report) {
+        System.out.print("Output format (1. Console, 2. CSV, 3. JSON) [1]: ");
+        String choice = scanner.nextLine().trim();
+        String format = choice.equals("2") ? "csv" : choice.equals("3") ? "json" : "console";
+        System.out.print(ReportRenderer.forFormat(format).render(report));
+    }
+
      private void showAdminProfile(Admin admin) {
         clearScreen();
          printHeader("ADMIN PROFILE ");
@@ -896,10 +1059,10 @@ private void startMaintenance() {
     }
     
     System.out.println("SCHEDULED MAINTENANCE RECORDS:");
-    System.out.println("=".repeat(75));
-    System.out.printf("%-10s %-8s %-20s %-15s %-10s%n", 
+    System.out.println("=".repeat(81));
+    System.out.printf("%-16s %-8s %-20s %-15s %-10s%n", 
                      "Record ID", "Vessel", "Type", "Maintenance", "Due Date");
-    System.out.println("-".repeat(75));
+    System.out.println("-".repeat(81));
     
     for (MaintenanceRecord record : scheduledRecords) {
         String maintenanceType = record.getType().toString().replace("_", " ");
@@ -907,14 +1070,14 @@ private void startMaintenance() {
             maintenanceType = maintenanceType.substring(0, 11) + "...";
         }
         
-        System.out.printf("%-10s %-8s %-20s %-15s %-10s%n",
+        System.out.printf("%-16s %-8s %-20s %-15s %-10s%n",
                          record.getRecordId(),
                          record.getVesselId(),
                          record.getVesselType(),
                          maintenanceType,
                          record.getScheduledDate());
     }
-    System.out.println("=".repeat(75));
+    System.out.println("=".repeat(81));
     
     System.out.print("\nEnter Record ID to start: ");
     String recordId = scanner.nextLine().trim();
@@ -949,10 +1112,10 @@ private void completeMaintenance() {
     }
     
     System.out.println("IN-PROGRESS MAINTENANCE RECORDS:");
-    System.out.println("=".repeat(75));
-    System.out.printf("%-10s %-8s %-20s %-15s %-10s%n", 
+    System.out.println("=".repeat(81));
+    System.out.printf("%-16s %-8s %-20s %-15s %-10s%n", 
                      "Record ID", "Vessel", "Type", "Maintenance", "Started");
-    System.out.println("-".repeat(75));
+    System.out.println("-".repeat(81));
     
     for (MaintenanceRecord record : inProgressRecords) {
         String maintenanceType = record.getType().toString().replace("_", " ");
@@ -963,14 +1126,14 @@ private void completeMaintenance() {
         String startedDate = record.getActualStartDate() != null ? 
                            record.getActualStartDate().toString() : "N/A";
         
-        System.out.printf("%-10s %-8s %-20s %-15s %-10s%n",
+        System.out.printf("%-16s %-8s %-20s %-15s %-10s%n",
                          record.getRecordId(),
                          record.getVesselId(),
                          record.getVesselType(),
                          maintenanceType,
                          startedDate);
     }
-    System.out.println("=".repeat(75));
+    System.out.println("=".repeat(81));
     
     System.out.print("\nEnter Record ID to complete: ");
     String recordId = scanner.nextLine().trim();
@@ -1018,6 +1181,7 @@ private void completeMaintenance() {
                 if (makeAvailable.startsWith("y")) {
                     vessel.setAvailable(true);
                     System.out.println("Vessel marked as available");
+                    eventBus.publish(new VesselReleased(vessel.getId(), "maintenance"));
                 }
             }
         }
@@ -1040,10 +1204,10 @@ private void cancelMaintenance() {
     }
     
     System.out.println("UNFINISHED MAINTENANCE RECORDS:");
-    System.out.println("=".repeat(75));
-    System.out.printf("%-10s %-8s %-20s %-15s %-10s%n", 
+    System.out.println("=".repeat(81));
+    System.out.printf("%-16s %-8s %-20s %-15s %-10s%n", 
                      "Record ID", "Vessel", "Type", "Maintenance", "Status");
-    System.out.println("-".repeat(75));
+    System.out.println("-".repeat(81));
     
     for (MaintenanceRecord record : unfinishedRecords) {
         String maintenanceType = record.getType().toString().replace("_", " ");
@@ -1053,14 +1217,14 @@ private void cancelMaintenance() {
         
         String status = record.getStatus().toString().replace("_", " ");
         
-        System.out.printf("%-10s %-8s %-20s %-15s %-10s%n",
+        System.out.printf("%-16s %-8s %-20s %-15s %-10s%n",
                          record.getRecordId(),
                          record.getVesselId(),
                          record.getVesselType(),
                          maintenanceType,
                          status);
     }
-    System.out.println("=".repeat(75));
+    System.out.println("=".repeat(81));
     
     System.out.print("\nEnter Record ID to cancel: ");
     String recordId = scanner.nextLine().trim();
@@ -1114,10 +1278,10 @@ private void rescheduleMaintenance() {
     }
     
     System.out.println("SCHEDULED MAINTENANCE RECORDS:");
-    System.out.println("=".repeat(75));
-    System.out.printf("%-10s %-8s %-20s %-15s %-10s%n", 
+    System.out.println("=".repeat(81));
+    System.out.printf("%-16s %-8s %-20s %-15s %-10s%n", 
                      "Record ID", "Vessel", "Type", "Maintenance", "Due Date");
-    System.out.println("-".repeat(75));
+    System.out.println("-".repeat(81));
     
     for (MaintenanceRecord record : scheduledRecords) {
         String maintenanceType = record.getType().toString().replace("_", " ");
@@ -1125,14 +1289,14 @@ private void rescheduleMaintenance() {
             maintenanceType = maintenanceType.substring(0, 11) + "...";
         }
         
-        System.out.printf("%-10s %-8s %-20s %-15s %-10s%n",
+        System.out.printf("%-16s %-8s %-20s %-15s %-10s%n",
                          record.getRecordId(),
                          record.getVesselId(),
                          record.getVesselType(),
                          maintenanceType,
                          record.getScheduledDate());
     }
-    System.out.println("=".repeat(75));
+    System.out.println("=".repeat(81));
     
     System.out.print("\nEnter Record ID to reschedule: ");
     String recordId = scanner.nextLine().trim();
@@ -1373,6 +1537,7 @@ private void searchCustomer() {
                                                  purpose, capacity, duration, basePrice, available);
         
         if (success) {
+            pricingCalendar.recountFleet(vesselManager.getAllVessels());
             System.out.println("\nVessel added successfully!");
         } else {
             showError("Failed to add vessel!");
@@ -1385,6 +1550,24 @@ private void searchCustomer() {
     pauseForUser();
 }
 
+    /**
+     * Re-read PricingRules.csv and PricingCalendar.csv, all or nothing: if either file is
+     * invalid, the current rules and calendar both stay in force. Cached quotes priced
+     * under the old rules or multipliers stop matching and are recomputed on their next lookup.
+     */
+    private void reloadPricingRules() {
+        try {
+            // Parse the calendar first; reloadStandard installs the rules only if they load
+            PricingCalendar.Rules calendarRules = PricingCalendarLoader.loadCalendarRules();
+            PricingRules rules = PricingRules.reloadStandard();
+            pricingCalendar.reload(calendarRules);
+            showSuccess("Pricing rules reloaded (version " + rules.getVersion() + ").");
+            showSuccess("Pricing calendar reloaded (" + calendarRules.size() + " rules).");
+        } catch (RuntimeException e) {
+            showError("Pricing not reloaded, keeping the current rules and calendar: " + e.getMessage());
+        }
+    }
+
     private void updateVessel() {
     clearScreen();
     printHeader("UPDATE VESSEL");
@@ -1428,6 +1611,7 @@ private void searchCustomer() {
                 System.out.print("Enter new location: ");
                 String newLocation = scanner.nextLine().trim();
                 vesselManager.updateVesselField(id, "location", newLocation);
+                pricingCalendar.recountFleet(vesselManager.getAllVessels());
                 break;
             case "3":
                 System.out.print("Enter new purpose: ");
@@ -1475,6 +1659,7 @@ private void updateAllVesselFields(String id) {
     System.out.print("Enter new location: ");
     String location = scanner.nextLine().trim();
     vesselManager.updateVesselField(id, "location", location);
+    pricingCalendar.recountFleet(vesselManager.getAllVessels());
     
     System.out.print("Enter new purpose: ");
     String purpose = scanner.nextLine().trim();
@@ -1518,6 +1703,7 @@ private void deleteVessel() {
     if (confirm.startsWith("y")) {
         boolean success = vesselManager.deleteVessel(id);
         if (success) {
+            pricingCalendar.recountFleet(vesselManager.getAllVessels());
             System.out.println("\n✓ Vessel deleted successfully!");
         } else {
             showError("Failed to delete vessel!");
@@ -1545,6 +1731,7 @@ private String getCategoryFromChoice(String choice) {
     
     private void handleBrowseAndRentVessels(Customer customer) {
         boolean running = true;
+        rentalController.reviewWaitlistOffers(customer);
         
         while (running) {
             clearScreen();
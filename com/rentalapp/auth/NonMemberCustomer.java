@@ -40,7 +40,7 @@ public class NonMemberCustomer extends Customer {
     @Override
     public double getDiscountRate() {
         // Non-members might get small discounts for frequent use
-        if (totalSpent > 1000) {
+        if (totalSpentCents > 1000_00) {
             return 0.02; // 2% for high spenders
         }
         return 0.0; // No discount
@@ -58,7 +58,7 @@ public class NonMemberCustomer extends Customer {
     );
         
         // Transfer existing data
-        memberCustomer.setTotalSpent(this.totalSpent);
+        memberCustomer.setTotalSpent(getTotalSpent());
         memberCustomer.setLastRental(this.lastRental);
         for (String record : this.rentalHistory) {
             memberCustomer.addRentalRecord(record);
@@ -70,6 +70,6 @@ public class NonMemberCustomer extends Customer {
     @Override
     public String toString() {
         return String.format("NonMemberCustomer{username='%s', name='%s', totalSpent=%.2f}", 
-                           username, name, totalSpent);
+                           username, name, getTotalSpent());
     }
 }
\ No newline at end of file
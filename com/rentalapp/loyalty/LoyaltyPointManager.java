@@ -1,8 +1,14 @@
 package com.rentalapp.loyalty;
 import com.rentalapp.auth.MemberCustomer;
 
+import com.rentalapp.report.ConsoleReportRenderer;
+import com.rentalapp.report.Report;
+import com.rentalapp.report.ReportEngine;
+
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
 
 public class LoyaltyPointManager {
     private Map<String, LoyaltyAccount> loyaltyAccounts;
@@ -51,7 +57,7 @@ public class LoyaltyPointManager {
         return addPoints(customerId, points, "RENTAL_POINTS", "Points earned from rental");
     }
 
-    public boolean addPoints(String customerId, int points, String transactionType, String description) {
+    public synchronized boolean addPoints(String customerId, int points, String transactionType, String description) {
         LoyaltyAccount account = loyaltyAccounts.get(customerId);
         if (account == null) {
             System.out.println("Loyalty account not found for customer: " + customerId);
@@ -76,7 +82,7 @@ public class LoyaltyPointManager {
         return deductPoints(customerId, points, "POINTS_DEDUCTION", "Points deducted");
     }
 
-    public boolean deductPoints(String customerId, int points, String transactionType, String description) {
+    public synchronized boolean deductPoints(String customerId, int points, String transactionType, String description) {
         LoyaltyAccount account = loyaltyAccounts.get(customerId);
         if (account == null) {
             System.out.println("Loyalty account not found for customer: " + customerId);
@@ -259,35 +265,48 @@ public class LoyaltyPointManager {
     }
 
     public void generateLoyaltyReport() {
-        Map<String, Integer> stats = getLoyaltyStatistics();
-        
-        System.out.println("\n==================== LOYALTY PROGRAM REPORT ====================");
-        System.out.println("Total Members: " + stats.get("TOTAL_MEMBERS"));
-        System.out.println("VIP Members: " + stats.get("VIP_MEMBERS"));
-        System.out.println("Standard Members: " + stats.get("STANDARD_MEMBERS"));
-        
-        if (stats.get("TOTAL_MEMBERS") > 0) {
-            double vipPercentage = (stats.get("VIP_MEMBERS") * 100.0) / stats.get("TOTAL_MEMBERS");
-            System.out.println("VIP Percentage: " + String.format("%.1f%%", vipPercentage));
+        System.out.print(new ConsoleReportRenderer().render(buildLoyaltyReport()));
+    }
+
+    /**
+     * Loyalty report metrics: one pass over the accounts and one over the transactions.
+     */
+    public Report buildLoyaltyReport() {
+        List<LoyaltyAccount> accounts;
+        List<LoyaltyTransaction> transactionSnapshot;
+        synchronized (this) {
+            accounts = new ArrayList<>(loyaltyAccounts.values());
+            transactionSnapshot = new ArrayList<>(transactions);
         }
-        
-        System.out.println("Total Points in Circulation: " + stats.get("TOTAL_POINTS_CIRCULATING"));
-        System.out.println("Total Vessel Rentals: " + stats.get("TOTAL_VESSEL_RENTALS"));
-        System.out.println("Average Points per Member: " + stats.get("AVERAGE_POINTS_PER_MEMBER"));
-        System.out.println("Average Vessel Rentals per Member: " + stats.get("AVERAGE_RENTALS_PER_MEMBER"));
-        
-        // Transaction type breakdown
-        Map<String, Integer> transactionTypes = new HashMap<>();
-        for (LoyaltyTransaction transaction : transactions) {
-            transactionTypes.put(transaction.getTransactionType(),
-                               transactionTypes.getOrDefault(transaction.getTransactionType(), 0) + 1);
+
+        long[] totals = ReportEngine.collect(accounts, Collector.of(
+                () -> new long[3], // members that are VIP, points, rentals
+                (t, account) -> {
+                    if (account.isVipMember()) t[0]++;
+                    t[1] += account.getCurrentPoints();
+                    t[2] += account.getTotalRentals();
+                },
+                (a, b) -> { a[0] += b[0]; a[1] += b[1]; a[2] += b[2]; return a; }));
+        Map<String, Long> transactionTypes = ReportEngine.collect(transactionSnapshot,
+                Collectors.groupingBy(LoyaltyTransaction::getTransactionType, TreeMap::new, Collectors.counting()));
+
+        int totalMembers = accounts.size();
+        Report report = new Report("Loyalty Program Report");
+        Report.Section members = report.metrics(null)
+                .row("Total Members", totalMembers)
+                .row("VIP Members", totals[0])
+                .row("Standard Members", totalMembers - totals[0]);
+        if (totalMembers > 0) {
+            members.row("VIP Percentage", String.format("%.1f%%", totals[0] * 100.0 / totalMembers));
         }
-        
-        System.out.println("\nTransaction Type Breakdown:");
-        transactionTypes.forEach((type, count) -> 
-            System.out.println("- " + type + ": " + count + " transactions"));
-        
-        System.out.println("=================================================================\n");
+        members.row("Total Points in Circulation", totals[1])
+               .row("Total Vessel Rentals", totals[2])
+               .row("Average Points per Member", totalMembers > 0 ? totals[1] / totalMembers : 0)
+               .row("Average Vessel Rentals per Member", totalMembers > 0 ? totals[2] / totalMembers : 0);
+
+        Report.Section types = report.table("Transaction Type Breakdown", "Type", "Transactions");
+        transactionTypes.forEach(types::row);
+        return report;
     }
 
     public boolean transferPoints(String fromCustomerId, String toCustomerId, int points) {
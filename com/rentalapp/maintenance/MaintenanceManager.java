@@ -1,24 +1,28 @@
 package com.rentalapp.maintenance;
 
+import com.rentalapp.report.ConsoleReportRenderer;
+import com.rentalapp.report.Report;
+import com.rentalapp.report.ReportEngine;
+import com.rentalapp.utils.IdGenerator;
+
 import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Collector;
 import java.util.stream.Collectors;
 
 public class MaintenanceManager {
     private List<MaintenanceRecord> maintenanceRecords;
     private Map<String, List<MaintenanceRecord>> vesselMaintenanceMap;
-    private int recordIdCounter;
 
     public MaintenanceManager() {
         this.maintenanceRecords = new ArrayList<>();
         this.vesselMaintenanceMap = new HashMap<>();
-        this.recordIdCounter = 1000;
     }
 
-    public MaintenanceRecord scheduleMaintenance(String vesselId, String vesselType, 
+    public synchronized MaintenanceRecord scheduleMaintenance(String vesselId, String vesselType, 
                                                MaintenanceType type, LocalDate scheduledDate, 
                                                String description) {
-        String recordId = "MR" + (++recordIdCounter);
+        String recordId = IdGenerator.shared().next("MR");
         
         MaintenanceRecord record = new MaintenanceRecord(
             recordId, vesselId, vesselType, type, scheduledDate, 
@@ -166,12 +170,12 @@ public class MaintenanceManager {
         }
 
         System.out.println("\n================ UPCOMING MAINTENANCE ================");
-        System.out.printf("%-12s %-15s %-15s %-12s %-20s%n", 
+        System.out.printf("%-16s %-15s %-15s %-12s %-20s%n", 
                          "Record ID", "Vessel ID", "Type", "Date", "Description");
-        System.out.println("-".repeat(75));
+        System.out.println("-".repeat(79));
 
         for (MaintenanceRecord record : upcoming) {
-            System.out.printf("%-12s %-15s %-15s %-12s %-20s%n",
+            System.out.printf("%-16s %-15s %-15s %-12s %-20s%n",
                              record.getRecordId(),
                              record.getVesselId(),
                              record.getType(),
@@ -218,42 +222,92 @@ public class MaintenanceManager {
     }
 
     public void generateMaintenanceReport() {
-        System.out.println("\n================ MAINTENANCE REPORT ================");
-        System.out.println("Total Maintenance Records: " + maintenanceRecords.size());
-        System.out.println("Total Maintenance Cost: RM " + String.format("%.2f", getTotalMaintenanceCost()));
-        
-        // Status breakdown
-        Map<MaintenanceStatus, Long> statusCount = maintenanceRecords.stream()
-                .collect(Collectors.groupingBy(MaintenanceRecord::getStatus, Collectors.counting()));
-        
-        System.out.println("\nStatus Breakdown:");
-        statusCount.forEach((status, count) -> 
-            System.out.println("- " + status + ": " + count + " records"));
-        
-        // Type breakdown
-        Map<MaintenanceType, Integer> typeStats = getMaintenanceTypeStatistics();
-        System.out.println("\nMaintenance Type Breakdown:");
-        typeStats.forEach((type, count) -> 
-            System.out.println("- " + type + ": " + count + " records"));
-        
-        // Overdue and upcoming
-        System.out.println("\nOverdue Maintenance: " + getOverdueMaintenance().size());
-        System.out.println("Upcoming Maintenance (30 days): " + getUpcomingMaintenance(30).size());
-        
-        // Average cost by type
-        System.out.println("\nAverage Cost by Type:");
-        for (MaintenanceType type : MaintenanceType.values()) {
-            double avgCost = maintenanceRecords.stream()
-                    .filter(r -> r.getType() == type && r.getStatus() == MaintenanceStatus.COMPLETED)
-                    .mapToDouble(MaintenanceRecord::getCost)
-                    .average()
-                    .orElse(0.0);
-            if (avgCost > 0) {
-                System.out.println("- " + type + ": RM " + String.format("%.2f", avgCost));
+        System.out.print(new ConsoleReportRenderer().render(buildMaintenanceReport()));
+    }
+
+    /**
+     * All maintenance report metrics, computed in one pass over the records.
+     */
+    public Report buildMaintenanceReport() {
+        List<MaintenanceRecord> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(maintenanceRecords);
+        }
+        LocalDate today = LocalDate.now();
+        ReportTotals totals = ReportEngine.collect(snapshot, Collector.of(
+                () -> new ReportTotals(today, today.plusDays(30)), ReportTotals::accept, ReportTotals::merge));
+
+        Report report = new Report("Maintenance Report");
+        report.metrics(null)
+              .row("Total Maintenance Records", totals.records)
+              .row("Total Maintenance Cost (RM)", totals.completedCost);
+
+        Report.Section status = report.table("Status Breakdown", "Status", "Records");
+        totals.byStatus.forEach((s, count) -> status.row(s.toString(), count));
+
+        Report.Section types = report.table("Maintenance Type Breakdown", "Type", "Records");
+        totals.byType.forEach((type, count) -> types.row(type.toString(), count));
+
+        report.metrics(null)
+              .row("Overdue Maintenance", totals.overdue)
+              .row("Upcoming Maintenance (30 days)", totals.upcoming);
+
+        Report.Section avgCost = report.table("Average Cost by Type", "Type", "Average Cost (RM)");
+        totals.completedCostByType.forEach((type, cost) -> {
+            double avg = cost / totals.completedCountByType.get(type);
+            if (avg > 0) avgCost.row(type.toString(), avg);
+        });
+        return report;
+    }
+
+    /** Every maintenance report metric in one accumulator; partial results merge. */
+    private static final class ReportTotals {
+        private final LocalDate today;
+        private final LocalDate upcomingCutoff;
+        private long records;
+        private double completedCost;
+        private long overdue;
+        private long upcoming;
+        private final Map<MaintenanceStatus, Long> byStatus = new EnumMap<>(MaintenanceStatus.class);
+        private final Map<MaintenanceType, Long> byType = new EnumMap<>(MaintenanceType.class);
+        private final Map<MaintenanceType, Double> completedCostByType = new EnumMap<>(MaintenanceType.class);
+        private final Map<MaintenanceType, Long> completedCountByType = new EnumMap<>(MaintenanceType.class);
+
+        ReportTotals(LocalDate today, LocalDate upcomingCutoff) {
+            this.today = today;
+            this.upcomingCutoff = upcomingCutoff;
+        }
+
+        void accept(MaintenanceRecord record) {
+            records++;
+            byStatus.merge(record.getStatus(), 1L, Long::sum);
+            byType.merge(record.getType(), 1L, Long::sum);
+
+            if (record.getStatus() == MaintenanceStatus.COMPLETED) {
+                completedCost += record.getCost();
+                completedCostByType.merge(record.getType(), record.getCost(), Double::sum);
+                completedCountByType.merge(record.getType(), 1L, Long::sum);
+            } else if (record.getStatus() == MaintenanceStatus.SCHEDULED) {
+                LocalDate date = record.getScheduledDate();
+                if (date.isBefore(today)) {
+                    overdue++;
+                } else if (!date.isAfter(upcomingCutoff)) {
+                    upcoming++;
+                }
             }
         }
-        
-        System.out.println("====================================================\n");
+
+        ReportTotals merge(ReportTotals other) {
+            records += other.records;
+            completedCost += other.completedCost;
+            overdue += other.overdue;
+            upcoming += other.upcoming;
+            other.byStatus.forEach((k, v) -> byStatus.merge(k, v, Long::sum));
+            other.byType.forEach((k, v) -> byType.merge(k, v, Long::sum));
+            other.completedCostByType.forEach((k, v) -> completedCostByType.merge(k, v, Double::sum));
+            other.completedCountByType.forEach((k, v) -> completedCountByType.merge(k, v, Long::sum));
+            return this;
+        }
     }
 
     public boolean rescheduleMaintenance(String recordId, LocalDate newDate) {
@@ -88,7 +88,7 @@ public class MaintenanceRecord {
 
     public void printSummary() {
         String costStr = cost > 0 ? "RM " + String.format("%.2f", cost) : "-";
-        System.out.printf("%-8s | %-6s | %-20s | %-12s | %-12s | %-10s%n",
+        System.out.printf("%-15s | %-6s | %-20s | %-12s | %-12s | %-10s%n",
             recordId, vesselId, type, scheduledDate, status, costStr);
 }
     public boolean isOverdue() {
@@ -0,0 +1,229 @@
+package com.rentalapp.payment;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Double-entry ledger of money movements. Every payment, refund and loyalty accrual is
+ * one transaction whose entries sum to zero; running balances per account are kept in
+ * memory. With a journal every transaction is appended to disk (see
+ * {@link LedgerJournal}) and balances move only once it is durable, so after a
+ * restart replaying the journal gives the same balances, which {@link #verify()} checks.
+ */
+public class Ledger implements AutoCloseable {
+    /** What the ledger owes per loyalty point: the RM 0.10 a point is worth in rewards. */
+    public static final long LOYALTY_POINT_CENTS = 10;
+
+    private static final LedgerAccount[] ACCOUNTS = LedgerAccount.values();
+
+    public record Entry(LedgerAccount account, long cents) {}
+
+    public record Transaction(long timestampMillis, String type, String reference, String customerId,
+                              List<Entry> entries) {
+        public long sum() {
+            long sum = 0;
+            for (Entry entry : entries) sum += entry.cents();
+            return sum;
+        }
+    }
+
+    private final LedgerJournal journal; // null: in memory only
+    private final AtomicLongArray balances = new AtomicLongArray(ACCOUNTS.length);
+    // Moved together with the balances under this object's lock, so verify() sees a consistent pair
+    private long transactionCount;
+    private long journalBytes;
+
+    private Ledger() {
+        this.journal = null;
+    }
+
+    private Ledger(Path journalPath) throws IOException {
+        this.journal = LedgerJournal.open(journalPath, this::apply, this::committed);
+        this.journalBytes = journal.getSizeBytes();
+    }
+
+    public static Ledger inMemory() {
+        return new Ledger();
+    }
+
+    /** Open the ledger journaled in {@code directory}, restoring balances from it. */
+    public static Ledger open(Path directory) throws IOException {
+        return new Ledger(directory.resolve("journal.log"));
+    }
+
+    // ================= POSTING =================
+    public Posting transaction(String type, String reference, String customerId) {
+        return new Posting(type, reference, customerId);
+    }
+
+    /** Collects the entries of one transaction; debits add to an account, credits subtract. */
+    public final class Posting {
+        private final String type;
+        private final String reference;
+        private final String customerId;
+        private final List<Entry> entries = new ArrayList<>(4);
+
+        private Posting(String type, String reference, String customerId) {
+            this.type = type;
+            this.reference = reference;
+            this.customerId = customerId;
+        }
+
+        public Posting debit(LedgerAccount account, long cents) {
+            if (cents != 0) entries.add(new Entry(account, cents));
+            return this;
+        }
+
+        public Posting credit(LedgerAccount account, long cents) {
+            return debit(account, -cents);
+        }
+
+        /**
+         * Record the transaction. The future completes once it is durable (at once without
+         * a journal); the balances include it from then on.
+         *
+         * @throws IllegalArgumentException if debits and credits do not balance
+         */
+        public CompletableFuture<Void> post() {
+            Transaction transaction = new Transaction(System.currentTimeMillis(), type, reference, customerId,
+                    List.copyOf(entries));
+            if (transaction.sum() != 0) {
+                throw new IllegalArgumentException("Unbalanced ledger transaction " + reference + ": debits exceed credits by "
+                        + Money.format(transaction.sum()));
+            }
+            if (entries.isEmpty()) return CompletableFuture.completedFuture(null);
+            if (journal == null) {
+                synchronized (Ledger.this) {
+                    apply(transaction);
+                }
+                return CompletableFuture.completedFuture(null);
+            }
+            return journal.append(transaction);
+        }
+    }
+
+    private synchronized void committed(List<Transaction> transactions, long bytes) {
+        for (Transaction transaction : transactions) apply(transaction);
+        journalBytes = bytes;
+    }
+
+    private void apply(Transaction transaction) {
+        for (Entry entry : transaction.entries()) {
+            balances.addAndGet(entry.account().ordinal(), entry.cents());
+        }
+        transactionCount++;
+    }
+
+    // ================= BALANCES =================
+    /** Debit-positive running balance. */
+    public long getBalanceCents(LedgerAccount account) {
+        return balances.get(account.ordinal());
+    }
+
+    public synchronized long getTransactionCount() {
+        return transactionCount;
+    }
+
+    public boolean isJournaled() {
+        return journal != null;
+    }
+
+    public void printBalances() {
+        long[] snapshot;
+        long count;
+        synchronized (this) {
+            snapshot = snapshot();
+            count = transactionCount;
+        }
+        System.out.println("\n==================== PAYMENTS LEDGER ====================");
+        System.out.printf("%-20s %15s %15s%n", "Account", "Debit", "Credit");
+        long total = 0;
+        for (LedgerAccount account : ACCOUNTS) {
+            long balance = snapshot[account.ordinal()];
+            total += balance;
+            System.out.printf("%-20s %15s %15s%n", account.getLabel(),
+                    balance > 0 ? Money.format(balance) : "", balance < 0 ? Money.format(-balance) : "");
+        }
+        System.out.println("Transactions: " + count + " | Trial balance: " + (total == 0 ? "balanced" : Money.format(total)));
+        if (journal != null) {
+            long groups = journal.getGroupCount();
+            System.out.printf("Journal: %s | %d bytes | %d commits, avg %.1f / largest %d transactions per fsync%n",
+                    journal.getPath(), journalBytes, groups,
+                    groups == 0 ? 0.0 : (double) journal.getCommittedCount() / groups, journal.getLargestGroup());
+        } else {
+            System.out.println("Journal: none (balances are not persisted)");
+        }
+        System.out.println("=========================================================\n");
+    }
+
+    private long[] snapshot() {
+        long[] snapshot = new long[ACCOUNTS.length];
+        for (int i = 0; i < snapshot.length; i++) snapshot[i] = balances.get(i);
+        return snapshot;
+    }
+
+    // ================= VERIFICATION =================
+    /**
+     * Outcome of replaying the journal against the running balances. {@code replayed}
+     * and {@code running} are debit-positive balances indexed by account ordinal.
+     */
+    public record Verification(long transactions, long expectedTransactions, long unbalanced, boolean journalIntact,
+                               long[] replayed, long[] running) {
+        public boolean isConsistent() {
+            return journalIntact && unbalanced == 0 && transactions == expectedTransactions
+                    && Arrays.equals(replayed, running) && Arrays.stream(replayed).sum() == 0;
+        }
+
+        public void print() {
+            System.out.println("\n================= LEDGER VERIFICATION =================");
+            System.out.println("Transactions replayed: " + transactions + " (expected " + expectedTransactions + ")");
+            System.out.println("Journal intact: " + (journalIntact ? "yes" : "NO") + " | Unbalanced transactions: " + unbalanced);
+            for (LedgerAccount account : ACCOUNTS) {
+                long journaled = replayed[account.ordinal()];
+                long inMemory = running[account.ordinal()];
+                System.out.printf("%-20s %15s %s%n", account.getLabel(), Money.format(journaled),
+                        journaled == inMemory ? "ok" : "MISMATCH (running " + Money.format(inMemory) + ")");
+            }
+            System.out.println(isConsistent() ? "Ledger verified: the journal proves every balance."
+                                              : "Ledger verification FAILED.");
+            System.out.println("=======================================================\n");
+        }
+    }
+
+    /**
+     * Re-read the journal from disk, check that every transaction balances, and compare
+     * the replayed balances with the running ones as of the same commit. Postings may
+     * continue meanwhile; they are simply not part of this check.
+     */
+    public Verification verify() throws IOException {
+        long[] running;
+        long expected;
+        long upTo;
+        synchronized (this) {
+            running = snapshot();
+            expected = transactionCount;
+            upTo = journalBytes;
+        }
+        if (journal == null) {
+            return new Verification(expected, expected, 0, true, running.clone(), running);
+        }
+
+        long[] replayed = new long[ACCOUNTS.length];
+        long[] counts = new long[2]; // transactions, unbalanced
+        long stopped = journal.replay(upTo, transaction -> {
+            counts[0]++;
+            if (transaction.sum() != 0) counts[1]++;
+            for (Entry entry : transaction.entries()) replayed[entry.account().ordinal()] += entry.cents();
+        });
+        return new Verification(counts[0], expected, counts[1], stopped == upTo, replayed, running);
+    }
+
+    /** Wait for queued transactions to be written, then close the journal. */
+    @Override
+    public void close() throws IOException {
+        if (journal != null) journal.close();
+    }
+}
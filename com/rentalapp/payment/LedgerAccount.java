@@ -0,0 +1,24 @@
+package com.rentalapp.payment;
+
+/**
+ * Accounts of the payments ledger. Balances are kept debit-positive: money received
+ * from customers and refunds paid out are debit balances; revenue, tax owed and
+ * loyalty points owed are credit (negative) balances.
+ */
+public enum LedgerAccount {
+    CUSTOMER("Customer Payments"),
+    REVENUE("Rental Revenue"),
+    TAX("Tax Payable"),
+    REFUNDS("Refunds"),
+    LOYALTY_LIABILITY("Loyalty Liability");
+
+    private final String label;
+
+    LedgerAccount(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+}
@@ -0,0 +1,272 @@
+package com.rentalapp.payment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of ledger transactions with group commit. Posting threads encode
+ * their own frames and queue them; one writer thread takes everything queued since its
+ * last write, appends it with a single write and a single fsync, and only then
+ * completes the whole group. Under concurrent payments many transactions share one
+ * fsync instead of each waiting for its own.
+ *
+ * Frames are {@code [int length][int crc32][payload]} like the rental history log; a
+ * torn frame at the end of the file (crash mid-write) is truncated on open.
+ */
+final class LedgerJournal implements AutoCloseable {
+    private static final int HEADER_BYTES = 8; // length + crc
+    private static final int MAX_GROUP = 1024;
+
+    /** Told about each group once it is durable, on the writer thread, in journal order. */
+    interface CommitListener {
+        void committed(List<Ledger.Transaction> transactions, long journalBytes);
+    }
+
+    private final Path path;
+    private final FileChannel channel;
+    private final CommitListener listener;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean closed;
+    private long size;                                   // written and forced, writer thread only
+    private ByteBuffer groupBuffer = ByteBuffer.allocate(64 * 1024);
+
+    private final LongAdder groups = new LongAdder();
+    private final LongAdder committed = new LongAdder();
+    private volatile int largestGroup;
+
+    private LedgerJournal(Path path, FileChannel channel, long size, CommitListener listener) {
+        this.path = path;
+        this.channel = channel;
+        this.size = size;
+        this.listener = listener;
+        this.writer = new Thread(this::run, "ledger-journal");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Open (or create) the journal, passing every stored transaction to {@code replay}
+     * before any new one is accepted.
+     */
+    static LedgerJournal open(Path path, Consumer<Ledger.Transaction> replay, CommitListener listener) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long valid = scan(channel, channel.size(), replay);
+        if (valid < channel.size()) {
+            System.err.println("Ledger journal: truncating " + (channel.size() - valid) + " bytes of incomplete data in "
+                    + path.getFileName());
+            channel.truncate(valid);
+        }
+        LedgerJournal journal = new LedgerJournal(path, channel, valid, listener);
+        journal.writer.start();
+        return journal;
+    }
+
+    // ================= WRITES =================
+    /** Queue the transaction; the future completes once it is on disk. */
+    CompletableFuture<Void> append(Ledger.Transaction transaction) {
+        Pending pending = new Pending(transaction, encode(transaction));
+        if (closed) {
+            pending.done.completeExceptionally(new IllegalStateException("Ledger journal is closed"));
+            return pending.done;
+        }
+        queue.add(pending);
+        return pending.done;
+    }
+
+    private void run() {
+        List<Pending> group = new ArrayList<>(MAX_GROUP);
+        while (true) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (closed) return;
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, MAX_GROUP - 1);
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<Pending> group) {
+        int bytes = 0;
+        for (Pending pending : group) bytes += pending.frame.length;
+        if (groupBuffer.capacity() < bytes) groupBuffer = ByteBuffer.allocate(Math.max(bytes, groupBuffer.capacity() * 2));
+        groupBuffer.clear();
+        for (Pending pending : group) groupBuffer.put(pending.frame);
+        groupBuffer.flip();
+
+        try {
+            long position = size;
+            while (groupBuffer.hasRemaining()) {
+                position += channel.write(groupBuffer, position);
+            }
+            channel.force(false);
+            size = position;
+        } catch (IOException e) {
+            // Drop the partial group so the file still ends on a frame boundary
+            try {
+                channel.truncate(size);
+            } catch (IOException ignored) {
+                // the torn tail is truncated on the next open
+            }
+            System.err.println("Ledger journal: write failed, " + group.size() + " transactions not recorded: " + e.getMessage());
+            for (Pending pending : group) pending.done.completeExceptionally(e);
+            return;
+        }
+
+        groups.increment();
+        committed.add(group.size());
+        if (group.size() > largestGroup) largestGroup = group.size();
+        List<Ledger.Transaction> transactions = new ArrayList<>(group.size());
+        for (Pending pending : group) transactions.add(pending.transaction);
+        listener.committed(transactions, size);
+        for (Pending pending : group) pending.done.complete(null);
+    }
+
+    /** Let the writer finish what is queued, then close the file. */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Pending left;
+        while ((left = queue.poll()) != null) {
+            left.done.completeExceptionally(new IllegalStateException("Ledger journal is closed"));
+        }
+        channel.close();
+    }
+
+    // ================= READS =================
+    /**
+     * Decode the first {@code upTo} bytes of the journal from disk, independently of
+     * the writer. Returns the offset where decoding stopped: {@code upTo} unless a frame
+     * is damaged.
+     */
+    long replay(long upTo, Consumer<Ledger.Transaction> visitor) throws IOException {
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            return scan(reader, Math.min(upTo, reader.size()), visitor);
+        }
+    }
+
+    private static long scan(FileChannel channel, long limit, Consumer<Ledger.Transaction> visitor) throws IOException {
+        if (limit == 0) return 0;
+        ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, limit);
+        CRC32 crc = new CRC32();
+        long offset = 0;
+        while (offset + HEADER_BYTES < limit) {
+            int length = buffer.getInt((int) offset);
+            if (length <= 0 || offset + HEADER_BYTES + (long) length > limit) break;
+            ByteBuffer body = buffer.slice((int) offset + HEADER_BYTES, length);
+            crc.reset();
+            crc.update(body.duplicate());
+            if ((int) crc.getValue() != buffer.getInt((int) offset + 4)) break;
+            visitor.accept(decode(body));
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    long getSizeBytes() { return size; }
+    long getGroupCount() { return groups.sum(); }
+    long getCommittedCount() { return committed.sum(); }
+    int getLargestGroup() { return largestGroup; }
+    Path getPath() { return path; }
+
+    // ================= FRAMES =================
+    // Payload: timestamp, type, reference, customer id, entry count, then (account, cents) per entry
+    private static byte[] encode(Ledger.Transaction transaction) {
+        byte[] type = bytes(transaction.type());
+        byte[] reference = bytes(transaction.reference());
+        byte[] customer = bytes(transaction.customerId());
+        List<Ledger.Entry> entries = transaction.entries();
+        int length = Long.BYTES + 3 * Integer.BYTES + length(type) + length(reference) + length(customer)
+                + 1 + entries.size() * (1 + Long.BYTES);
+
+        ByteBuffer frame = ByteBuffer.allocate(HEADER_BYTES + length);
+        frame.position(HEADER_BYTES);
+        frame.putLong(transaction.timestampMillis());
+        putString(frame, type);
+        putString(frame, reference);
+        putString(frame, customer);
+        frame.put((byte) entries.size());
+        for (Ledger.Entry entry : entries) {
+            frame.put((byte) entry.account().ordinal());
+            frame.putLong(entry.cents());
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(frame.array(), HEADER_BYTES, length);
+        frame.putInt(0, length);
+        frame.putInt(4, (int) crc.getValue());
+        return frame.array();
+    }
+
+    private static Ledger.Transaction decode(ByteBuffer body) {
+        long timestamp = body.getLong();
+        String type = getString(body);
+        String reference = getString(body);
+        String customerId = getString(body);
+        int count = body.get() & 0xFF;
+        LedgerAccount[] accounts = LedgerAccount.values();
+        List<Ledger.Entry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new Ledger.Entry(accounts[body.get()], body.getLong()));
+        }
+        return new Ledger.Transaction(timestamp, type, reference, customerId, entries);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putString(ByteBuffer frame, byte[] value) {
+        if (value == null) {
+            frame.putInt(-1);
+            return;
+        }
+        frame.putInt(value.length);
+        frame.put(value);
+    }
+
+    private static String getString(ByteBuffer body) {
+        int length = body.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Pending {
+        private final Ledger.Transaction transaction;
+        private final byte[] frame;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(Ledger.Transaction transaction, byte[] frame) {
+            this.transaction = transaction;
+            this.frame = frame;
+        }
+    }
+}
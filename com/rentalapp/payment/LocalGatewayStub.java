@@ -0,0 +1,73 @@
+package com.rentalapp.payment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Offline stand-in for a payment processor. Each call completes after a random latency
+ * in [minLatencyMillis, maxLatencyMillis] on a timer thread, so no caller thread is
+ * held while "waiting" on the gateway. Optional failure and decline rates let the
+ * resilience settings and payment throughput be exercised without a real gateway.
+ */
+public class LocalGatewayStub implements PaymentGateway {
+    private final long minLatencyMillis;
+    private final long maxLatencyMillis;
+    private final double transientFailureRate;
+    private final double declineRate;
+    private final ScheduledExecutorService timer;
+    private final AtomicLong referenceCounter = new AtomicLong(500000);
+
+    /** Always approves, after 20-80 ms. */
+    public LocalGatewayStub() {
+        this(20, 80, 0.0, 0.0);
+    }
+
+    public LocalGatewayStub(long minLatencyMillis, long maxLatencyMillis,
+                            double transientFailureRate, double declineRate) {
+        if (minLatencyMillis < 0 || maxLatencyMillis < minLatencyMillis) {
+            throw new IllegalArgumentException("Invalid latency range");
+        }
+        this.minLatencyMillis = minLatencyMillis;
+        this.maxLatencyMillis = maxLatencyMillis;
+        this.transientFailureRate = transientFailureRate;
+        this.declineRate = declineRate;
+        this.timer = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "gateway-stub");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Response> submit(Request request) {
+        return submitBatch(List.of(request)).thenApply(responses -> responses.get(0));
+    }
+
+    /** One simulated round trip for the whole batch; declines are decided per item. */
+    @Override
+    public CompletableFuture<List<Response>> submitBatch(List<Request> requests) {
+        CompletableFuture<List<Response>> result = new CompletableFuture<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long latency = minLatencyMillis + (maxLatencyMillis > minLatencyMillis
+                ? random.nextLong(maxLatencyMillis - minLatencyMillis + 1) : 0);
+        boolean fail = random.nextDouble() < transientFailureRate;
+
+        timer.schedule(() -> {
+            if (fail) {
+                result.completeExceptionally(new GatewayException("Gateway temporarily unavailable", true));
+                return;
+            }
+            List<Response> responses = new ArrayList<>(requests.size());
+            for (Request request : requests) {
+                boolean decline = ThreadLocalRandom.current().nextDouble() < declineRate;
+                responses.add(decline || request.amountCents() <= 0
+                        ? Response.declined(request.requestId(), "Declined by issuer")
+                        : Response.approved(request.requestId(), "GW" + referenceCounter.incrementAndGet()));
+            }
+            result.complete(responses);
+        }, latency, TimeUnit.MILLISECONDS);
+        return result;
+    }
+}
@@ -0,0 +1,48 @@
+package com.rentalapp.payment;
+
+/**
+ * Money is held as a primitive long number of sen (cents). Rates are whole basis points
+ * (1 bp = 0.01%), so pricing arithmetic stays in longs and rounds once per step, half away
+ * from zero, instead of drifting through doubles. {@link #toCents} and {@link #toAmount}
+ * convert at the edges where the rest of the code still speaks in RM doubles.
+ */
+public final class Money {
+    public static final int BASIS_POINTS = 10_000; // 100%
+
+    private Money() {}
+
+    public static long toCents(double amount) {
+        return Math.round(amount * 100.0);
+    }
+
+    public static double toAmount(long cents) {
+        return cents / 100.0;
+    }
+
+    /** A fractional rate (0.06 for 6%) in basis points. */
+    public static int toBasisPoints(double rate) {
+        return Math.toIntExact(Math.round(rate * BASIS_POINTS));
+    }
+
+    /** {@code cents * basisPoints / 10000}, rounded half away from zero. */
+    public static long applyRate(long cents, int basisPoints) {
+        long scaled = Math.multiplyExact(cents, (long) basisPoints);
+        long half = scaled >= 0 ? BASIS_POINTS / 2 : -(BASIS_POINTS / 2);
+        return (scaled + half) / BASIS_POINTS;
+    }
+
+    public static long times(long cents, long quantity) {
+        return Math.multiplyExact(cents, quantity);
+    }
+
+    /** "RM 12.34", or "-RM 12.34" for negative amounts. */
+    public static String format(long cents) {
+        StringBuilder text = new StringBuilder(16);
+        if (cents < 0) text.append('-');
+        long abs = Math.abs(cents);
+        long sen = abs % 100;
+        text.append("RM ").append(abs / 100).append('.');
+        if (sen < 10) text.append('0');
+        return text.append(sen).toString();
+    }
+}
@@ -1,105 +1,191 @@
 package com.rentalapp.payment;
 
+import com.rentalapp.rental.AddOn;
 import com.rentalapp.rental.RentalRecord;
 import com.rentalapp.auth.Customer;
+import com.rentalapp.auth.MemberCustomer;
+import com.rentalapp.vessel.Vessel;
+import com.rentalapp.vessel.VesselCategory;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.List;
 
+/**
+ * Pricing arithmetic over the compiled {@link PricingRules}. Everything is computed in
+ * long cents with basis-point rates (see {@link Money}); the double-returning methods
+ * are conversions for callers that still work in RM.
+ */
 public class PaymentCalculator {
+    private final PricingRules fixedRules; // null: follow PricingRules.standard(), including reloads
+    private final PricingCalendar calendar; // null: every day at the base price
+    private final QuoteCache quoteCache = new QuoteCache();
 
-        // Member discounts by category (Standard, VIP)
-    private static final java.util.Map<String, Double[]> MEMBER_DISCOUNT_MAP = java.util.Map.of(
-        "Yacht", new Double[]{0.08, 0.15},
-        "Pontoon", new Double[]{0.08, 0.15},
-        "Boat", new Double[]{0.08, 0.15},
-        "Jet Ski", new Double[]{0.05, 0.12},
-        "Fishing Charter", new Double[]{0.05, 0.12}
-    );
+    public PaymentCalculator() {
+        this(null, null);
+    }
 
+    public PaymentCalculator(PricingRules rules) {
+        this(rules, null);
+    }
 
-    public double calculateBaseAmount(RentalRecord rental) {
-        // Base price from the vessel itself
-        double base = rental.getBasePrice();
+    public PaymentCalculator(PricingRules rules, PricingCalendar calendar) {
+        this.fixedRules = rules;
+        this.calendar = calendar;
+    }
+
+    public PricingRules getRules() {
+        return fixedRules != null ? fixedRules : PricingRules.standard();
+    }
+
+    public QuoteCache getQuoteCache() {
+        return quoteCache;
+    }
+
+    /** The pricing calendar, or null if prices do not vary by day. */
+    public PricingCalendar getCalendar() {
+        return calendar;
+    }
+
+    /**
+     * Calendar multiplier for renting the vessel from {@code start}, applied to the whole
+     * rental (multi-day rentals are not priced day by day); base price without a calendar or start.
+     */
+    public int calendarMultiplier(Vessel vessel, LocalDateTime start) {
+        if (calendar == null || start == null) return Money.BASIS_POINTS;
+        return calendar.multiplierBasisPoints(vessel, start.toLocalDate());
+    }
+
+    public static PricingRules.Tier tierOf(Customer customer) {
+        if (!(customer instanceof MemberCustomer member)) return PricingRules.Tier.NONE;
+        return "VIP".equalsIgnoreCase(member.getMembershipTier()) ? PricingRules.Tier.VIP : PricingRules.Tier.STANDARD;
+    }
+
+    public PriceQuote quote(Vessel vessel, Customer customer, Duration duration, List<AddOn> addOns) {
+        return quote(vessel, customer, null, duration, addOns);
+    }
+
+    /**
+     * The quote for booking the vessel from {@code start} for this long with these
+     * add-ons, from the quote cache when the same booking was priced before. The price
+     * does not depend on the duration; it is accepted for callers' convenience. The base
+     * price is adjusted by the pricing calendar's multiplier for the start day. The
+     * returned quote is shared and must not be modified.
+     */
+    public PriceQuote quote(Vessel vessel, Customer customer, LocalDateTime start, Duration duration, List<AddOn> addOns) {
+        PricingRules rules = getRules();
+        PricingRules.Tier tier = tierOf(customer);
+        int multiplier = calendarMultiplier(vessel, start);
+        long addOnsCents = addOnsTotalCents(addOns);
+        QuoteCache.Key key = new QuoteCache.Key(vessel.getId(), tier, addOnsCents, multiplier, rules.getVersion());
+        return quoteCache.getOrCompute(key, vessel.getBasePriceCents(), () -> {
+            PriceQuote quote = new PriceQuote();
+            VesselCategory category = VesselCategory.fromLabel(vessel.getVesselCategory());
+            quoteBooking(rules, vessel.getBasePriceCents(), multiplier, rules.discountBasisPoints(category, tier),
+                    addOnsCents, quote);
+            return quote;
+        });
+    }
+
+    private static long addOnsTotalCents(List<AddOn> addOns) {
+        long total = 0;
+        if (addOns != null) {
+            for (AddOn addOn : addOns) total += addOn.getTotalPriceCents();
+        }
+        return total;
+    }
+
+    /**
+     * Price a booking of the vessel for the customer: base price less the member discount
+     * for the vessel's category and the customer's tier, tax on the discounted base, plus
+     * add-ons. Writes the breakdown into {@code out} and returns the total; allocates nothing.
+     */
+    public long quoteBooking(Vessel vessel, Customer customer, long addOnsCents, PriceQuote out) {
+        PricingRules rules = getRules();
+        VesselCategory category = VesselCategory.fromLabel(vessel.getVesselCategory());
+        return quoteBooking(rules, vessel.getBasePriceCents(), Money.BASIS_POINTS,
+                rules.discountBasisPoints(category, tierOf(customer)), addOnsCents, out);
+    }
+
+    public long quoteBooking(long basePriceCents, int discountBasisPoints, long addOnsCents, PriceQuote out) {
+        return quoteBooking(getRules(), basePriceCents, Money.BASIS_POINTS, discountBasisPoints, addOnsCents, out);
+    }
 
-        // Multiply by fractional days (convert Duration to hours / 24)
-        Duration duration = rental.getDuration();
-        double fractionalDays = duration.toMinutes() / 60.0 / 24.0;
-        return base * fractionalDays;
+    private static long quoteBooking(PricingRules rules, long listPriceCents, int multiplier, int discountBasisPoints,
+                                     long addOnsCents, PriceQuote out) {
+        long basePriceCents = Money.applyRate(listPriceCents, multiplier);
+        long discount = Money.applyRate(basePriceCents, discountBasisPoints);
+        long tax = rules.taxOn(basePriceCents - discount);
+        out.set(listPriceCents, basePriceCents - listPriceCents, discount, tax, addOnsCents);
+        return out.getTotalCents();
+    }
+
+    public double calculateBaseAmount(RentalRecord rental) {
+        // Base price from the vessel itself, multiplied by fractional days
+        long minutes = rental.getDuration().toMinutes();
+        return Money.toAmount(Math.round((double) rental.getBasePriceCents() * minutes / (24 * 60)));
     }
 
 
     // Calculate member discount
     public double calculateMemberDiscount(Customer customer, double amount, RentalRecord rental) {
-        if (!customer.isMember()) return 0.0;
-
-        Double[] discounts = MEMBER_DISCOUNT_MAP.getOrDefault(rental.getVesselCategory(), new Double[]{0.0, 0.0});
-        return customer.isMember() ? amount * discounts[1] : amount * discounts[0];
+        int basisPoints = getRules().discountBasisPoints(VesselCategory.fromLabel(rental.getVesselCategory()), tierOf(customer));
+        return Money.toAmount(Money.applyRate(Money.toCents(amount), basisPoints));
     }
 
     // Calculate refund amount
   public double calculateRefundAmount(RentalRecord rental) {
-    if (rental == null) return 0.0;
+    return Money.toAmount(calculateRefundCents(rental));
+}
+
+  public long calculateRefundCents(RentalRecord rental) {
+    if (rental == null) return 0;
 
     LocalDateTime now = LocalDateTime.now();
     long hoursUntilStart = java.time.temporal.ChronoUnit.HOURS
                                .between(now, rental.getScheduledStart());
-    double totalCost = rental.getTotalCost();
-
-    if (hoursUntilStart >= 168) { 
-        // 7+ days
-        System.out.println("Eligible for 100% refund.");
-        return totalCost;
-    } else if (hoursUntilStart >= 72) { 
-        // 3–6 days (72–167h)
-        System.out.println("Eligible for 50% refund.");
-        return totalCost * 0.50;
-    } else {
-        // <48h
-        System.out.println("No refund (within 48 hours of rental).");
-        return 0.0;
+    int refundRate = getRules().refundBasisPoints(hoursUntilStart);
+
+    if (refundRate > 0) {
+        System.out.println("Eligible for " + (refundRate / 100) + "% refund.");
+        return Money.applyRate(rental.getTotalCostCents(), refundRate);
     }
+    System.out.println("No refund (too close to the rental start).");
+    return 0;
 }
 
     // Calculate extension cost
     public double calculateExtensionCost(String vesselCategory, Duration additionalDuration) {
-        double hourlyRate = 0.0;
-        String lowerCategory = vesselCategory.toLowerCase();
+        return Money.toAmount(calculateExtensionCents(vesselCategory, additionalDuration.toHours()));
+    }
 
-        if (lowerCategory.contains("yacht")) hourlyRate = 500.0;
-        else if (lowerCategory.contains("fishing")) hourlyRate = 300.0;
-        else if (lowerCategory.contains("jet ski")) hourlyRate = 150.0;
-        else if (lowerCategory.contains("pontoon")) hourlyRate = 250.0;
-        else if (lowerCategory.contains("boat")) hourlyRate = 200.0;
+    /** Hourly extension rate for the category times whole hours, including tax. */
+    public long calculateExtensionCents(String vesselCategory, long hours) {
+        return calculateExtensionCents(VesselCategory.fromLabel(vesselCategory), hours);
+    }
 
-        return hourlyRate * additionalDuration.toHours() * 1.06; // including 6% tax
+    public long calculateExtensionCents(VesselCategory category, long hours) {
+        PricingRules rules = getRules();
+        long beforeTax = Money.times(rules.extensionHourlyCents(category), hours);
+        return beforeTax + rules.taxOn(beforeTax);
     }
 
 
-    public double calculateDamageFee(String damageType, String severity) {
-        double baseFee = 0.0;
-
-        switch (damageType.toUpperCase()) {
-            case "MINOR":
-                baseFee = 200.0; // could be scaled up to 1000 based on severity
-                break;
-            case "MAJOR":
-                baseFee = 5000.0; // placeholder for full repair
-                break;
-            case "CLEANING":
-                baseFee = 200.0; // up to 500
-                break;
-            case "LOST_EQUIPMENT":
-                baseFee = 150.0; // average value
-                break;
-        }
+    /** The tax included in {@link #calculateExtensionCents(String, long)}. */
+    public long calculateExtensionTaxCents(String vesselCategory, long hours) {
+        PricingRules rules = getRules();
+        return rules.taxOn(Money.times(rules.extensionHourlyCents(VesselCategory.fromLabel(vesselCategory)), hours));
+    }
 
-        double multiplier = 1.0;
-        switch (severity.toUpperCase()) {
-            case "MODERATE": multiplier = 1.5; break;
-            case "SEVERE": multiplier = 2.0; break;
-        }
+    public double calculateDamageFee(String damageType, String severity) {
+        return Money.toAmount(calculateDamageFeeCents(damageType, severity));
+    }
 
-        return baseFee * multiplier;
+    /** Unknown damage types cost nothing; unknown severities are charged as light. */
+    public long calculateDamageFeeCents(String damageType, String severity) {
+        PricingRules.DamageType type = PricingRules.damageType(damageType);
+        if (type == null) return 0;
+        PricingRules.Severity level = PricingRules.severity(severity);
+        return getRules().damageFeeCents(type, level != null ? level : PricingRules.Severity.LIGHT);
     }
 
 }
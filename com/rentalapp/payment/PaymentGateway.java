@@ -0,0 +1,64 @@
+package com.rentalapp.payment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * External payment processor. Calls are asynchronous: the future completes with the
+ * gateway's answer, or exceptionally with a {@link GatewayException} when the call
+ * could not be made or did not finish (timeouts, outages, overload). A declined
+ * payment is a normal response, not an exception.
+ */
+public interface PaymentGateway {
+
+    enum Operation { CHARGE, REFUND }
+
+    /**
+     * One gateway call. {@code requestId} stays the same across retries so the gateway
+     * can recognise a repeated attempt.
+     */
+    record Request(String requestId, Operation operation, long amountCents, String paymentMethod) {
+        public double amount() { return Money.toAmount(amountCents); }
+    }
+
+    record Response(String requestId, boolean approved, String reference, String declineReason) {
+        public static Response approved(String requestId, String reference) {
+            return new Response(requestId, true, reference, null);
+        }
+
+        public static Response declined(String requestId, String reason) {
+            return new Response(requestId, false, null, reason);
+        }
+    }
+
+    CompletableFuture<Response> submit(Request request);
+
+    /**
+     * Submit several requests as one call; responses come back in request order. The
+     * default sends them one by one, for gateways without a batch endpoint, and fails
+     * the whole batch if any call fails.
+     */
+    default CompletableFuture<List<Response>> submitBatch(List<Request> requests) {
+        List<CompletableFuture<Response>> calls = new ArrayList<>(requests.size());
+        for (Request request : requests) {
+            calls.add(submit(request));
+        }
+        return CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0]))
+                .thenApply(done -> calls.stream().map(CompletableFuture::join).toList());
+    }
+
+    /** A call that failed without an answer from the gateway. {@code retryable} marks transient failures. */
+    class GatewayException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final boolean retryable;
+
+        public GatewayException(String message, boolean retryable) {
+            super(message);
+            this.retryable = retryable;
+        }
+
+        public boolean isRetryable() { return retryable; }
+    }
+}
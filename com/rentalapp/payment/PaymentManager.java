@@ -6,37 +6,68 @@ import com.rentalapp.auth.Customer;
 import com.rentalapp.auth.MemberCustomer;
 import com.rentalapp.loyalty.LoyaltyAccount;
 import com.rentalapp.loyalty.LoyaltyPointManager;
+import com.rentalapp.report.AnalyticsSketches;
+import com.rentalapp.report.ConsoleReportRenderer;
+import com.rentalapp.report.Report;
+import com.rentalapp.report.RollupCube;
+import com.rentalapp.utils.BatchIterator;
+import com.rentalapp.utils.IdGenerator;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class PaymentManager {
     private PaymentCalculator paymentCalculator;
     private LoyaltyPointManager loyaltyPointManager;
-    private List<Receipt> receipts;
+    // Receipts indexed by id, rental, customer and payment time
+    private final ReceiptStore receipts = new ReceiptStore();
+    // Receipt count and revenue by day x category x payment method, updated on every receipt
+    private final RollupCube receiptRollup = new RollupCube();
+    private final AnalyticsSketches receiptSketches = new AnalyticsSketches();
     private Map<String, PaymentSummary> paymentSummaries;
-    private int receiptCounter;
+    private final PaymentGateway paymentGateway;
+    private final SettlementBatcher settlementBatcher;
+    private final Ledger ledger;
+    private final AtomicLong gatewayRequestCounter = new AtomicLong();
     
     public PaymentManager(LoyaltyPointManager loyaltyPointManager) {
+        this(loyaltyPointManager, Ledger.inMemory());
+    }
+
+    public PaymentManager(LoyaltyPointManager loyaltyPointManager, Ledger ledger) {
+        this(loyaltyPointManager, new ResilientPaymentGateway(new LocalGatewayStub()), ledger);
+    }
+
+    public PaymentManager(LoyaltyPointManager loyaltyPointManager, PaymentGateway paymentGateway) {
+        this(loyaltyPointManager, paymentGateway, Ledger.inMemory());
+    }
+
+    public PaymentManager(LoyaltyPointManager loyaltyPointManager, PaymentGateway paymentGateway, Ledger ledger) {
+        this.paymentGateway = paymentGateway;
+        this.ledger = ledger;
+        this.settlementBatcher = new SettlementBatcher(paymentGateway);
         this.paymentCalculator = new PaymentCalculator();
         this.loyaltyPointManager = loyaltyPointManager;
-        this.receipts = new ArrayList<>();
-        this.paymentSummaries = new HashMap<>();
-        this.receiptCounter = 10000;
+        this.paymentSummaries = new ConcurrentHashMap<>();
     }
 
 public Receipt processPayment(RentalRecord rental, Customer customer,
                               String paymentMethod, String cardNumber, String eWalletPhone) {
 
-    double finalAmount = rental.getTotalCost();
+    long finalAmount = rental.getTotalCostCents();
 
-     double addOnsAmount = 0.0;
-    if (rental.getAddOns() != null) {
-        addOnsAmount = rental.getAddOns().stream().mapToDouble(AddOn::getTotalPrice).sum();
+    long addOnsAmount = 0;
+    for (AddOn addOn : rental.getAddOns()) {
+        addOnsAmount += addOn.getTotalPriceCents();
     }
 
-    double baseAmount = finalAmount - addOnsAmount;
-    if (baseAmount < 0) baseAmount = 0.0;
+    long baseAmount = Math.max(0, finalAmount - addOnsAmount);
 
    
     int loyaltyPointsEarned = 0;
@@ -48,7 +79,7 @@ public Receipt processPayment(RentalRecord rental, Customer customer,
         }
     }
 
-    String receiptId = "REC" + (++receiptCounter);
+    String receiptId = IdGenerator.shared().next("REC");
     Receipt receipt = new Receipt(
             receiptId,
             rental.getRentalId(),
@@ -58,10 +89,10 @@ public Receipt processPayment(RentalRecord rental, Customer customer,
             rental.getVesselType(),
             rental.getVesselCategory(),
             rental.getDuration(),
-            baseAmount,
-            addOnsAmount,
+            Money.toAmount(baseAmount),
+            Money.toAmount(addOnsAmount),
             0.0,               
-            finalAmount,
+            Money.toAmount(finalAmount),
             paymentMethod,
             cardNumber,
             eWalletPhone,
@@ -71,9 +102,9 @@ public Receipt processPayment(RentalRecord rental, Customer customer,
     );
 
     // Use the finalAmount 
-    if (processPaymentGateway(finalAmount, paymentMethod)) {
-        customer.addToTotalSpent(finalAmount);
-        receipts.add(receipt);
+    if (captureNow(receipt, paymentMethod, Math.min(rental.getTaxAmountCents(), finalAmount))) {
+        customer.addToTotalSpentCents(finalAmount);
+        addReceipt(receipt);
         updatePaymentSummary(customer.getCustomerId(), finalAmount, 0, paymentMethod, true);
 
         System.out.println(paymentMethod + " payment processed successfully!");
@@ -98,7 +129,7 @@ public Receipt processPayment(RentalRecord rental, Customer customer,
     }
 
     // Create refund receipt
-    String receiptId = "REF" + (++receiptCounter);
+    String receiptId = IdGenerator.shared().next("REF");
 
     String paymentMethod = originalReceipt.getPaymentMethod();
     String maskedCardNumber = originalReceipt.getMaskedCardNumber();
@@ -125,25 +156,22 @@ public Receipt processPayment(RentalRecord rental, Customer customer,
         new ArrayList<>()           
     );
 
-    // Process refund through gateway
-    if (processRefundGateway(refundAmount)) {
-        // Deduct loyalty points
-        loyaltyPointManager.deductPoints(
-            originalReceipt.getCustomerId(),
-            originalReceipt.getLoyaltyPointsEarned()
-        );
-
-        receipts.add(refundReceipt);
-
-        System.out.println("Refund processed successfully!");
-        System.out.println("Refund Amount: RM " + String.format("%.2f", refundAmount));
-        System.out.println("Refunded via: " + paymentMethod);
-
-        return refundReceipt;
-    } else {
-        System.out.println("Refund processing failed.");
-        return null;
-    }
+    // Refunds go out with the next settlement batch; points and totals move only once it is settled
+    storeReceipt(refundReceipt);
+    settleInBatch(refundReceipt, PaymentGateway.Operation.REFUND, -refundReceipt.getFinalAmountCents(), paymentMethod,
+            () -> {
+                loyaltyPointManager.deductPoints(
+                    originalReceipt.getCustomerId(),
+                    originalReceipt.getLoyaltyPointsEarned()
+                );
+                recordReceiptTotals(refundReceipt);
+            });
+
+    System.out.println("Refund requested. Refund Amount: " + Money.format(-refundReceipt.getFinalAmountCents()));
+    System.out.println("Refunded via: " + paymentMethod + " (settled with the next payment batch, receipt "
+            + refundReceipt.getReceiptId() + ")");
+
+    return refundReceipt;
 }
     
 
@@ -160,7 +188,7 @@ public Receipt processCustomPayment(
         return null;
     }
 
-    String receiptId = "CUST" + (++receiptCounter);
+    String receiptId = IdGenerator.shared().next("CUST");
 
     // If rental == null → membership upgrade or other custom fee
     String rentalId, vesselId, vesselType, vesselCategory;
@@ -204,13 +232,13 @@ public Receipt processCustomPayment(
     new ArrayList<>()
     );
 
-    if (processPaymentGateway(amount, paymentMethod)) {
-        customer.addToTotalSpent(amount);
-        receipts.add(receipt);
-        updatePaymentSummary(customer.getCustomerId(), amount, 0, paymentMethod, false);
+    if (captureNow(receipt, paymentMethod, 0)) {
+        customer.addToTotalSpentCents(receipt.getFinalAmountCents());
+        addReceipt(receipt);
+        updatePaymentSummary(customer.getCustomerId(), receipt.getFinalAmountCents(), 0, paymentMethod, false);
 
-        System.out.println("\n" + description + " processed successfully! Amount: RM " 
-                           + String.format("%.2f", amount));
+        System.out.println("\n" + description + " processed successfully! Amount: "
+                           + Money.format(receipt.getFinalAmountCents()));
         return receipt;
     } else {
         System.out.println("Payment failed.");
@@ -219,22 +247,19 @@ public Receipt processCustomPayment(
 }
       
     public List<Receipt> getCustomerReceipts(String customerId) {
-        List<Receipt> customerReceipts = new ArrayList<>();
-        for (Receipt receipt : receipts) {
-            if (receipt.getCustomerId().equals(customerId)) {
-                customerReceipts.add(receipt);
-            }
-        }
-        return customerReceipts;
+        return receipts.getForCustomer(customerId);
+    }
+
+    /**
+     * Iterate all receipts in the order they were issued, 1024 at a time, without
+     * copying the whole list. Used by exports.
+     */
+    public Iterator<Receipt> iterateReceipts() {
+        return new BatchIterator<>(receipts::fetch, 1024);
     }
 
     public Receipt getReceiptById(String receiptId) {
-        for (Receipt receipt : receipts) {
-            if (receipt.getReceiptId().equals(receiptId)) {
-                return receipt;
-            }
-        }
-        return null;
+        return receipts.get(receiptId);
     }
 
     public PaymentSummary getPaymentSummary(String customerId) {
@@ -251,39 +276,41 @@ public Receipt processCustomPayment(
     }
 
     public double calculateTotalRevenue() {
-        double totalRevenue = 0;
-        for (Receipt receipt : receipts) {
-            if (receipt.getFinalAmount() > 0) { 
-                totalRevenue += receipt.getFinalAmount();
-            }
-        }
-        return totalRevenue;
+        return receiptRollup.total(null, null).amount();
     }
 
+    public RollupCube getReceiptRollup() {
+        return receiptRollup;
+    }
+
+    /** Approximate statistics over paid (positive) receipts. */
+    public AnalyticsSketches getReceiptSketches() {
+        return receiptSketches;
+    }
+
+    /**
+     * Receipts paid between the two instants (inclusive), oldest first.
+     */
     public List<Receipt> getReceiptsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        List<Receipt> filteredReceipts = new ArrayList<>();
-        for (Receipt receipt : receipts) {
-            if (!receipt.getPaymentDateTime().isBefore(startDate) && 
-                !receipt.getPaymentDateTime().isAfter(endDate)) {
-                filteredReceipts.add(receipt);
-            }
-        }
-        return filteredReceipts;
+        return receipts.getBetween(startDate, endDate);
     }
 
+    /** The rental's original payment receipt. */
     public Receipt getReceiptByRentalId(String rentalId) {
-    for (Receipt receipt : receipts) {
-        if (receipt.getRentalId() != null && receipt.getRentalId().equals(rentalId)) {
-            return receipt;
-        }
+        return receipts.getFirstForRental(rentalId);
     }
-    return null;
+
+    /** Every receipt of the rental (payment, extensions, refund, charges) in issue order. */
+    public List<Receipt> getReceiptsByRentalId(String rentalId) {
+        return receipts.getForRental(rentalId);
     }
 
 public void updateReceiptLoyaltyPoints(String rentalId, int loyaltyPoints) {
     Receipt receipt = getReceiptByRentalId(rentalId);
     if (receipt != null) {
+        int previousPoints = receipt.getLoyaltyPointsEarned();
         receipt.setLoyaltyPointsEarned(loyaltyPoints);
+        postLoyalty(receipt, loyaltyPoints - previousPoints);
 
         PaymentSummary summary = paymentSummaries.get(receipt.getCustomerId());
         if (summary != null) {
@@ -295,56 +322,197 @@ public void updateReceiptLoyaltyPoints(String rentalId, int loyaltyPoints) {
     
 
     // Private helper methods
-    private Receipt findReceiptByRentalId(String rentalId) {
-        for (Receipt receipt : receipts) {
-            if (receipt.getRentalId().equals(rentalId)) {
-                return receipt;
-            }
+    private void addReceipt(Receipt receipt) {
+        if (storeReceipt(receipt)) {
+            recordReceiptTotals(receipt);
         }
-        return null;
     }
 
-    private boolean processPaymentGateway(double amount, String paymentMethod) {
-        // Simulate payment gateway processing
-        System.out.println("\nProcessing payment of RM " + String.format("%.2f", amount) + 
-                          " via " + paymentMethod + "...");
-        
+    private boolean storeReceipt(Receipt receipt) {
+        if (!receipts.add(receipt)) {
+            System.err.println("Duplicate receipt id ignored: " + receipt.getReceiptId());
+            return false;
+        }
         return true;
     }
 
-    private boolean processRefundGateway(double amount) {
-        // Simulate refund processing
-        System.out.println("\nProcessing refund of RM " + String.format("%.2f", amount) + "...");
-        
-        // always succeed
+    private void recordReceiptTotals(Receipt receipt) {
+        // Refunds count as receipts but only positive amounts are revenue
+        long revenueCents = Math.max(0, receipt.getFinalAmountCents());
+        receiptRollup.add(receipt.getPaymentDateTime().toLocalDate(), receipt.getVesselCategory(), null,
+                receipt.getPaymentMethod(), 1, revenueCents);
+        if (revenueCents > 0) {
+            Duration duration = receipt.getDuration();
+            receiptSketches.record(receipt.getPaymentDateTime(), receipt.getCustomerId(), receipt.getVesselType(),
+                    duration == null ? null : duration.toMinutes(), receipt.getFinalAmount());
+        }
+    }
+
+    private Receipt findReceiptByRentalId(String rentalId) {
+        return receipts.getFirstForRental(rentalId);
+    }
+
+    /**
+     * Capture a payment the customer is waiting on. Skips the settlement batch; on approval
+     * the receipt is marked settled with the gateway reference and posted to the ledger.
+     * {@code taxCents} is the part of the amount that is tax.
+     */
+    private boolean captureNow(Receipt receipt, String paymentMethod, long taxCents) {
+        long amount = receipt.getFinalAmountCents();
+        System.out.println("\nProcessing payment of " + Money.format(amount) +
+                          " via " + paymentMethod + "...");
+        PaymentGateway.Response response = awaitGateway(
+                settlementBatcher.submitNow(gatewayRequest(PaymentGateway.Operation.CHARGE, amount, paymentMethod)));
+        if (response == null || !response.approved()) return false;
+        receipt.markSettled(response.reference());
+        // The customer's confirmation waits for the journal; concurrent payments share its fsync
+        awaitLedger(postToLedger(receipt, taxCents));
         return true;
     }
 
-   private void updatePaymentSummary(String customerId, double amount, int loyaltyPoints, String paymentMethod, boolean isNewRental) {
-    PaymentSummary summary = paymentSummaries.get(customerId);
-    if (summary == null) {
-        summary = new PaymentSummary(customerId);
-        paymentSummaries.put(customerId, summary);
+    /**
+     * Queue the receipt's amount for the next settlement batch and reconcile the receipt
+     * when it returns. {@code onSettled} applies the payment's side effects (totals,
+     * points) and runs only if the gateway approved it.
+     */
+    private void settleInBatch(Receipt receipt, PaymentGateway.Operation operation, long amountCents,
+                               String paymentMethod, Runnable onSettled) {
+        settlementBatcher.submit(gatewayRequest(operation, amountCents, paymentMethod),
+                (response, error) -> reconcile(receipt, response, error, onSettled));
     }
-    summary.addPayment(amount, loyaltyPoints, paymentMethod, isNewRental);
-}
 
-    public void generateMonthlyReport() {
-        System.out.println("\n==================== MONTHLY PAYMENT REPORT ====================");
-        System.out.println("Total Receipts: " + receipts.size());
-        System.out.println("Total Revenue: RM " + String.format("%.2f", calculateTotalRevenue()));
-        
-        Map<String, Integer> paymentMethodCount = new HashMap<>();
-        for (Receipt receipt : receipts) {
-            paymentMethodCount.put(receipt.getPaymentMethod(), 
-                paymentMethodCount.getOrDefault(receipt.getPaymentMethod(), 0) + 1);
+    private void reconcile(Receipt receipt, PaymentGateway.Response response, Throwable error, Runnable onSettled) {
+        if (error == null && response.approved()) {
+            receipt.markSettled(response.reference());
+            postToLedger(receipt, 0);
+            onSettled.run();
+            return;
+        }
+        String reason;
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            reason = cause.getMessage();
+        } else {
+            reason = "Declined: " + response.declineReason();
+        }
+        receipt.markSettlementFailed(reason);
+        System.err.println("Settlement failed for receipt " + receipt.getReceiptId() + ": " + reason);
+    }
+
+    // ================= LEDGER =================
+    /**
+     * Post a settled receipt: a payment moves money from the customer into revenue and
+     * tax, a refund (negative amount) out of the customer account into refunds. The
+     * receipt's loyalty points move between revenue and the loyalty liability.
+     */
+    private CompletableFuture<Void> postToLedger(Receipt receipt, long taxCents) {
+        long amount = receipt.getFinalAmountCents();
+        long loyaltyCents = Ledger.LOYALTY_POINT_CENTS * receipt.getLoyaltyPointsEarned();
+        Ledger.Posting posting = ledger.transaction(amount < 0 ? "REFUND" : "PAYMENT",
+                receipt.getReceiptId(), receipt.getCustomerId());
+        if (amount >= 0) {
+            posting.debit(LedgerAccount.CUSTOMER, amount)
+                   .credit(LedgerAccount.TAX, taxCents)
+                   .credit(LedgerAccount.REVENUE, amount - taxCents);
+        } else {
+            posting.debit(LedgerAccount.REFUNDS, -amount)
+                   .credit(LedgerAccount.CUSTOMER, -amount);
+        }
+        posting.debit(LedgerAccount.REVENUE, loyaltyCents)
+               .credit(LedgerAccount.LOYALTY_LIABILITY, loyaltyCents);
+        return logLedgerFailure(posting.post(), receipt);
+    }
+
+    // Points recorded on a receipt after it was paid (completion bonus)
+    private void postLoyalty(Receipt receipt, int points) {
+        long cents = Ledger.LOYALTY_POINT_CENTS * points;
+        if (cents == 0) return;
+        logLedgerFailure(ledger.transaction("LOYALTY", receipt.getReceiptId(), receipt.getCustomerId())
+                .debit(LedgerAccount.REVENUE, cents)
+                .credit(LedgerAccount.LOYALTY_LIABILITY, cents)
+                .post(), receipt);
+    }
+
+    private static CompletableFuture<Void> logLedgerFailure(CompletableFuture<Void> posted, Receipt receipt) {
+        return posted.whenComplete((ignored, error) -> {
+            if (error != null) {
+                System.err.println("Ledger: receipt " + receipt.getReceiptId() + " not journaled: " + error.getMessage());
+            }
+        });
+    }
+
+    private static void awaitLedger(CompletableFuture<Void> posted) {
+        try {
+            posted.join();
+        } catch (CompletionException e) {
+            // Already reported; the payment itself went through
         }
-        
-        System.out.println("\nPayment Methods:");
-        for (Map.Entry<String, Integer> entry : paymentMethodCount.entrySet()) {
-            System.out.println("- " + entry.getKey() + ": " + entry.getValue() + " transactions");
+    }
+
+    public Ledger getLedger() {
+        return ledger;
+    }
+
+    private PaymentGateway.Request gatewayRequest(PaymentGateway.Operation operation, long amountCents, String paymentMethod) {
+        String requestId = "GW-" + gatewayRequestCounter.incrementAndGet();
+        return new PaymentGateway.Request(requestId, operation, amountCents, paymentMethod);
+    }
+
+    // The console blocks here for its own payment, up to the gateway policy's attempts x
+    // attempt timeout plus backoff (about 3 x 2 s by default). Null if the call failed.
+    private PaymentGateway.Response awaitGateway(CompletableFuture<PaymentGateway.Response> call) {
+        try {
+            PaymentGateway.Response response = call.join();
+            if (!response.approved()) {
+                System.out.println("Payment declined: " + response.declineReason());
+            }
+            return response;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            System.err.println("Payment gateway error: " + cause.getMessage());
+            return null;
         }
-        System.out.println("===============================================================\n");
+    }
+
+    public PaymentGateway getPaymentGateway() {
+        return paymentGateway;
+    }
+
+    public SettlementBatcher getSettlementBatcher() {
+        return settlementBatcher;
+    }
+
+   private void updatePaymentSummary(String customerId, long amountCents, int loyaltyPoints, String paymentMethod, boolean isNewRental) {
+    PaymentSummary summary = paymentSummaries.computeIfAbsent(customerId, PaymentSummary::new);
+    summary.addPayment(amountCents, loyaltyPoints, paymentMethod, isNewRental);
+}
+
+    public void generateMonthlyReport() {
+        generateMonthlyReport(YearMonth.now());
+    }
+
+    public void generateMonthlyReport(YearMonth month) {
+        System.out.print(new ConsoleReportRenderer().render(buildMonthlyReport(month)));
+    }
+
+    /**
+     * Receipts and revenue for one month, read from the receipt rollup.
+     */
+    public Report buildMonthlyReport(YearMonth month) {
+        LocalDate from = month.atDay(1);
+        LocalDate to = month.atEndOfMonth();
+        RollupCube.Totals totals = receiptRollup.total(from, to);
+
+        Report report = new Report("Monthly Payment Report");
+        report.metrics(null)
+              .row("Month", month.toString())
+              .row("Total Receipts", totals.count())
+              .row("Total Revenue (RM)", totals.amount());
+
+        Report.Section methods = report.table("Payment Methods", "Method", "Transactions");
+        receiptRollup.groupBy(from, to, RollupCube.Key::paymentMethod)
+                .forEach((method, t) -> methods.row(method, t.count()));
+        return report;
     }
     
     /**
@@ -360,9 +528,13 @@ public Receipt processExtensionPayment(
         String eWalletPhoneNumber
 ) {
     // Calculate cost using PaymentCalculator
-    double extensionCost = paymentCalculator.calculateExtensionCost(
+    long extensionCost = paymentCalculator.calculateExtensionCents(
             rental.getVesselCategory(),
-            additionalDuration
+            additionalDuration.toHours()
+    );
+    long extensionTax = paymentCalculator.calculateExtensionTaxCents(
+            rental.getVesselCategory(),
+            additionalDuration.toHours()
     );
 
     String prefix = isLateReturn ? "LATE" : "EXT";
@@ -370,24 +542,24 @@ public Receipt processExtensionPayment(
 
     int loyaltyPointsEarned = 0;
     if (!isLateReturn && customer instanceof MemberCustomer) {
-        loyaltyPointsEarned = (int) (extensionCost / 10);
+        loyaltyPointsEarned = (int) (extensionCost / 10_00);
     }
 
-    String receiptId = prefix + (++receiptCounter);
+    String receiptId = IdGenerator.shared().next(prefix);
 
     Receipt receipt = new Receipt(
         receiptId,
-        "EXTENSION",
+        rental.getRentalId(),
         customer.getCustomerId(),
         customer.getName(),
         rental.getVesselId(),
         type,                           
         rental.getVesselCategory(),
         additionalDuration,
-        extensionCost,                  
+        Money.toAmount(extensionCost),
         0,                              
         0,                             
-        extensionCost,                  
+        Money.toAmount(extensionCost),
         paymentMethod,
         maskedCardNumber,               
         eWalletPhoneNumber,             
@@ -397,9 +569,9 @@ public Receipt processExtensionPayment(
     );
 
     // Process payment
-    if (processPaymentGateway(extensionCost, paymentMethod)) {
-        customer.addToTotalSpent(extensionCost);
-        receipts.add(receipt);
+    if (captureNow(receipt, paymentMethod, extensionTax)) {
+        customer.addToTotalSpentCents(extensionCost);
+        addReceipt(receipt);
 
         // Loyalty points only for planned extensions
          if (!isLateReturn && loyaltyPointsEarned > 0 && customer instanceof MemberCustomer) {
@@ -428,7 +600,7 @@ public Receipt processExtensionPayment(
         return null;
     }
 
-    String receiptId = "CHG" + (++receiptCounter);
+    String receiptId = IdGenerator.shared().next("CHG");
 
     Receipt chargeReceipt = new Receipt(
         receiptId,
@@ -451,15 +623,17 @@ public Receipt processExtensionPayment(
         new ArrayList<>()
     );
 
-    if (processPaymentGateway(amount, paymentMethod)) {
-        customer.addToTotalSpent(amount);
-        receipts.add(chargeReceipt);
-        updatePaymentSummary(customer.getCustomerId(), amount, 0, paymentMethod, false);
-        System.out.println("Additional charge processed successfully! Amount: RM " + String.format("%.2f", amount));
-        return chargeReceipt;
-    } else {
-        System.out.println("Additional charge payment failed.");
-        return null;
-    }
+    // Post-rental charges are not time-critical, so they go out with the next settlement batch
+    // and count towards the customer's totals once settled
+    long amountCents = chargeReceipt.getFinalAmountCents();
+    storeReceipt(chargeReceipt);
+    settleInBatch(chargeReceipt, PaymentGateway.Operation.CHARGE, amountCents, paymentMethod, () -> {
+        customer.addToTotalSpentCents(amountCents);
+        recordReceiptTotals(chargeReceipt);
+        updatePaymentSummary(customer.getCustomerId(), amountCents, 0, paymentMethod, false);
+    });
+    System.out.println("Additional charge recorded! Amount: " + Money.format(amountCents)
+            + " (will be settled with the next payment batch)");
+    return chargeReceipt;
 }
 }
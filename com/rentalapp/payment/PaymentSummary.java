@@ -2,147 +2,198 @@ package com.rentalapp.payment;
 
 import java.time.LocalDateTime;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running payment totals for one customer. Safe to update from several payment threads
+ * at once without locking: totals are adders, per-method totals are atomics, and only
+ * the most recent {@link #RECENT_PAYMENTS} amounts are kept, in a ring. Highest and
+ * lowest payment are tracked over all payments, and the preferred method is updated
+ * as payments arrive rather than recomputed.
+ */
 public class PaymentSummary {
-    private String customerId;
-    private double totalSpent;
-    private int totalRentals;
-    private int totalLoyaltyPointsEarned;
-    private LocalDateTime lastPaymentDate;
-    private Map<String, Double> paymentMethodBreakdown;
-    private List<Double> paymentHistory;
-    private double averageRentalCost;
-    private String preferredPaymentMethod;
+    public static final int RECENT_PAYMENTS = 32; // power of two
+
+    private volatile String customerId;
+    private final LongAdder totalSpentCents = new LongAdder();
+    private final LongAdder totalRentals = new LongAdder();
+    private final LongAdder totalLoyaltyPointsEarned = new LongAdder();
+    private volatile LocalDateTime lastPaymentDate;
+    private final Map<String, AtomicLong> paymentMethodBreakdown = new ConcurrentHashMap<>(); // cents
+    private final AtomicReference<MethodTotal> preferredPaymentMethod = new AtomicReference<>();
+
+    // Ring of recent payments; payment number n goes to slot n % RECENT_PAYMENTS
+    private final AtomicLong paymentCount = new AtomicLong();
+    private final AtomicReferenceArray<RecentPayment> recentPayments = new AtomicReferenceArray<>(RECENT_PAYMENTS);
+    private final AtomicLong maxPaymentCents = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong minPaymentCents = new AtomicLong(Long.MAX_VALUE);
+
+    private record MethodTotal(String method, long cents) {}
+    private record RecentPayment(long number, long cents) {}
 
     public PaymentSummary(String customerId) {
         this.customerId = customerId;
-        this.totalSpent = 0.0;
-        this.totalRentals = 0;
-        this.totalLoyaltyPointsEarned = 0;
-        this.paymentMethodBreakdown = new HashMap<>();
-        this.paymentHistory = new ArrayList<>();
-        this.averageRentalCost = 0.0;
-        this.preferredPaymentMethod = "";
     }
 
     // Add payment with loyalty points and optional method
-    public void addPayment(double amount, int loyaltyPoints, String paymentMethod, boolean isNewRental) {
-    if (amount < 0) amount = 0; // Ensure refunds don't reduce total spent
+    public void addPayment(long amountCents, int loyaltyPoints, String paymentMethod, boolean isNewRental) {
+        if (amountCents < 0) amountCents = 0; // Ensure refunds don't reduce total spent
 
-    this.totalSpent += amount;
+        totalSpentCents.add(amountCents);
 
-    // Only increment rentals when this is a new rental payment
-    if (isNewRental) {
-        this.totalRentals++;
-    }
+        // Only increment rentals when this is a new rental payment
+        if (isNewRental) {
+            totalRentals.increment();
+        }
 
-    this.totalLoyaltyPointsEarned += loyaltyPoints;
-    this.lastPaymentDate = LocalDateTime.now();
-    this.paymentHistory.add(amount);
+        totalLoyaltyPointsEarned.add(loyaltyPoints);
+        lastPaymentDate = LocalDateTime.now();
+        recordRecent(amountCents);
 
-    // Update payment method breakdown
-    if (paymentMethod != null && !paymentMethod.isEmpty()) {
-        paymentMethodBreakdown.put(paymentMethod,
-            paymentMethodBreakdown.getOrDefault(paymentMethod, 0.0) + amount);
-        updatePreferredPaymentMethod();
+        // Update payment method breakdown
+        if (paymentMethod != null && !paymentMethod.isEmpty()) {
+            long methodTotal = paymentMethodBreakdown.computeIfAbsent(paymentMethod, k -> new AtomicLong())
+                                                     .addAndGet(amountCents);
+            updatePreferredPaymentMethod(paymentMethod, methodTotal);
+        }
     }
 
-    // Update average rental cost 
-    this.averageRentalCost = totalRentals > 0 ? totalSpent / totalRentals : 0;
+    public void addLoyaltyPoints(int points) {
+        totalLoyaltyPointsEarned.add(points);
     }
 
-    public void addLoyaltyPoints(int points) {
-    this.totalLoyaltyPointsEarned += points;
-}
+    private void recordRecent(long amountCents) {
+        long number = paymentCount.getAndIncrement();
+        int slot = (int) (number & (RECENT_PAYMENTS - 1));
+        recentPayments.set(slot, new RecentPayment(number, amountCents));
+        maxPaymentCents.accumulateAndGet(amountCents, Math::max);
+        minPaymentCents.accumulateAndGet(amountCents, Math::min);
+    }
 
+    // Method totals only grow, so only the method just paid with can overtake the leader
+    private void updatePreferredPaymentMethod(String method, long methodTotal) {
+        while (true) {
+            MethodTotal leader = preferredPaymentMethod.get();
+            if (leader != null && leader.cents() >= methodTotal) return; // ties keep the current leader
+            if (preferredPaymentMethod.compareAndSet(leader, new MethodTotal(method, methodTotal))) return;
+        }
+    }
 
-    private void updatePreferredPaymentMethod() {
-        if (!paymentMethodBreakdown.isEmpty()) {
-            this.preferredPaymentMethod = paymentMethodBreakdown.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("");
+    /**
+     * Up to {@code limit} of the most recent amounts in cents, oldest first. A payment
+     * being recorded while this runs may be left out.
+     */
+    private long[] recentPayments(int limit) {
+        long count = paymentCount.get();
+        int n = (int) Math.min(Math.min(limit, RECENT_PAYMENTS), count);
+        long[] amounts = new long[n];
+        int found = 0;
+        for (long number = count - n; number < count; number++) {
+            int slot = (int) (number & (RECENT_PAYMENTS - 1));
+            RecentPayment payment = recentPayments.get(slot);
+            // Not yet written, or already overwritten by a newer payment
+            if (payment != null && payment.number() == number) amounts[found++] = payment.cents();
         }
+        return found == n ? amounts : Arrays.copyOf(amounts, found);
     }
 
     public void printSummary() {
+        String preferred = getPreferredPaymentMethod();
         System.out.println("\n==================== PAYMENT SUMMARY ====================");
         System.out.println("Customer ID: " + customerId);
-        System.out.println("Total Rentals: " + totalRentals);
-        System.out.println("Total Spent: RM " + String.format("%.2f", totalSpent));
-        System.out.println("Average Cost per Rental: RM " + String.format("%.2f", averageRentalCost));
-        System.out.println("Total Loyalty Points Earned: " + totalLoyaltyPointsEarned);
+        System.out.println("Total Rentals: " + getTotalRentals());
+        System.out.println("Total Spent: " + Money.format(totalSpentCents.sum()));
+        System.out.println("Average Cost per Rental: " + Money.format(averageRentalCostCents()));
+        System.out.println("Total Loyalty Points Earned: " + getTotalLoyaltyPointsEarned());
         if (lastPaymentDate != null) {
             System.out.println("Last Payment Date: " + lastPaymentDate.toLocalDate());
         }
-        if (!preferredPaymentMethod.isEmpty()) {
-            System.out.println("Preferred Payment Method: " + preferredPaymentMethod);
+        if (!preferred.isEmpty()) {
+            System.out.println("Preferred Payment Method: " + preferred);
         }
         if (!paymentMethodBreakdown.isEmpty()) {
             System.out.println("\nPayment Method Breakdown:");
-            paymentMethodBreakdown.forEach((method, amount) ->
-                System.out.println("- " + method + ": RM " + String.format("%.2f", amount)));
+            paymentMethodBreakdown.forEach((method, cents) ->
+                System.out.println("- " + method + ": " + Money.format(cents.get())));
         }
         System.out.println("========================================================\n");
     }
 
     public void printDetailedSummary() {
         printSummary();
-        if (!paymentHistory.isEmpty()) {
+        long[] recent = recentPayments(10);
+        if (recent.length > 0) {
             System.out.println("Payment History (Last 10):");
-            List<Double> recentPayments = paymentHistory.size() > 10
-                ? paymentHistory.subList(paymentHistory.size() - 10, paymentHistory.size())
-                : paymentHistory;
-            for (int i = 0; i < recentPayments.size(); i++) {
-                System.out.println((i + 1) + ". RM " + String.format("%.2f", recentPayments.get(i)));
+            for (int i = 0; i < recent.length; i++) {
+                System.out.println((i + 1) + ". " + Money.format(recent[i]));
             }
 
-            double maxPayment = Collections.max(paymentHistory);
-            double minPayment = Collections.min(paymentHistory);
-
             System.out.println("\nPayment Statistics:");
-            System.out.println("Highest Payment: RM " + String.format("%.2f", maxPayment));
-            System.out.println("Lowest Payment: RM " + String.format("%.2f", minPayment));
+            System.out.println("Highest Payment: " + Money.format(maxPaymentCents.get()));
+            System.out.println("Lowest Payment: " + Money.format(minPaymentCents.get()));
         }
     }
 
     public boolean isHighValueCustomer() {
-        return totalSpent >= 2000 || totalRentals >= 10;
+        return totalSpentCents.sum() >= 2000_00 || getTotalRentals() >= 10;
     }
 
     // Getters
     public String getCustomerId() { return customerId; }
-    public double getTotalSpent() { return totalSpent; }
-    public int getTotalRentals() { return totalRentals; }
-    public int getTotalLoyaltyPointsEarned() { return totalLoyaltyPointsEarned; }
+    public double getTotalSpent() { return Money.toAmount(totalSpentCents.sum()); }
+    public long getTotalSpentCents() { return totalSpentCents.sum(); }
+    public int getTotalRentals() { return totalRentals.intValue(); }
+    public int getTotalLoyaltyPointsEarned() { return totalLoyaltyPointsEarned.intValue(); }
     public LocalDateTime getLastPaymentDate() { return lastPaymentDate; }
-    public Map<String, Double> getPaymentMethodBreakdown() { return new HashMap<>(paymentMethodBreakdown); }
-    public double getAverageRentalCost() { return averageRentalCost; }
-    public String getPreferredPaymentMethod() { return preferredPaymentMethod; }
-    public List<Double> getPaymentHistory() { return new ArrayList<>(paymentHistory); }
-
-    // Setters
-    public void setCustomerId(String customerId) { this.customerId = customerId; }
-    public void setTotalSpent(double totalSpent) {
-        this.totalSpent = totalSpent;
-        this.averageRentalCost = totalRentals > 0 ? totalSpent / totalRentals : 0;
+    public Map<String, Double> getPaymentMethodBreakdown() {
+        Map<String, Double> breakdown = new HashMap<>();
+        paymentMethodBreakdown.forEach((method, cents) -> breakdown.put(method, Money.toAmount(cents.get())));
+        return breakdown;
+    }
+    public double getAverageRentalCost() { return Money.toAmount(averageRentalCostCents()); }
+    public String getPreferredPaymentMethod() {
+        MethodTotal leader = preferredPaymentMethod.get();
+        return leader == null ? "" : leader.method();
     }
-    public void setTotalRentals(int totalRentals) {
-        this.totalRentals = totalRentals;
-        this.averageRentalCost = totalRentals > 0 ? totalSpent / totalRentals : 0;
+    public long getPaymentCount() { return paymentCount.get(); }
+    /** The most recent payments (at most {@link #RECENT_PAYMENTS}), oldest first. */
+    public List<Double> getPaymentHistory() {
+        long[] recent = recentPayments(RECENT_PAYMENTS);
+        List<Double> history = new ArrayList<>(recent.length);
+        for (long cents : recent) history.add(Money.toAmount(cents));
+        return history;
     }
-    public void setTotalLoyaltyPointsEarned(int points) { this.totalLoyaltyPointsEarned = points; }
+
+    private long averageRentalCostCents() {
+        long rentals = totalRentals.sum();
+        return rentals > 0 ? Math.round((double) totalSpentCents.sum() / rentals) : 0;
+    }
+
+    // Setters; not meant to race with addPayment
+    public void setCustomerId(String customerId) { this.customerId = customerId; }
+    public void setTotalSpent(double totalSpent) { reset(totalSpentCents, Money.toCents(totalSpent)); }
+    public void setTotalRentals(int totalRentals) { reset(this.totalRentals, totalRentals); }
+    public void setTotalLoyaltyPointsEarned(int points) { reset(totalLoyaltyPointsEarned, points); }
     public void setLastPaymentDate(LocalDateTime date) { this.lastPaymentDate = date; }
 
+    private static void reset(LongAdder adder, long value) {
+        adder.reset();
+        adder.add(value);
+    }
+
     @Override
     public String toString() {
         return "PaymentSummary{" +
                 "customerId='" + customerId + '\'' +
-                ", totalSpent=" + totalSpent +
-                ", totalRentals=" + totalRentals +
-                ", averageRentalCost=" + averageRentalCost +
-                ", totalLoyaltyPointsEarned=" + totalLoyaltyPointsEarned +
-                ", preferredPaymentMethod='" + preferredPaymentMethod + '\'' +
+                ", totalSpent=" + getTotalSpent() +
+                ", totalRentals=" + getTotalRentals() +
+                ", averageRentalCost=" + getAverageRentalCost() +
+                ", totalLoyaltyPointsEarned=" + getTotalLoyaltyPointsEarned() +
+                ", preferredPaymentMethod='" + getPreferredPaymentMethod() + '\'' +
                 '}';
     }
 }
@@ -0,0 +1,43 @@
+package com.rentalapp.payment;
+
+/**
+ * Price breakdown of one booking, in cents. Filled in by
+ * {@link PaymentCalculator#quoteBooking}; callers that quote repeatedly (search results,
+ * the booking preview) keep one instance and reuse it, so quoting allocates nothing.
+ */
+public final class PriceQuote {
+    private long listPriceCents;
+    private long adjustmentCents;
+    private long baseCents;
+    private long discountCents;
+    private long taxCents;
+    private long addOnsCents;
+    private long totalCents;
+
+    void set(long baseCents, long discountCents, long taxCents, long addOnsCents) {
+        set(baseCents, 0, discountCents, taxCents, addOnsCents);
+    }
+
+    void set(long listPriceCents, long adjustmentCents, long discountCents, long taxCents, long addOnsCents) {
+        this.listPriceCents = listPriceCents;
+        this.adjustmentCents = adjustmentCents;
+        this.baseCents = listPriceCents + adjustmentCents;
+        this.discountCents = discountCents;
+        this.taxCents = taxCents;
+        this.addOnsCents = addOnsCents;
+        this.totalCents = baseCents - discountCents + taxCents + addOnsCents;
+    }
+
+    /** The vessel's own base price, before the pricing calendar. */
+    public long getListPriceCents() { return listPriceCents; }
+    /** Seasonal and demand adjustment from the pricing calendar; negative off season. */
+    public long getAdjustmentCents() { return adjustmentCents; }
+    /** Base price for the booked day (list price plus adjustment), before the member discount. */
+    public long getBaseCents() { return baseCents; }
+    public long getDiscountCents() { return discountCents; }
+    /** Base price after the member discount; tax is charged on this. */
+    public long getDiscountedBaseCents() { return baseCents - discountCents; }
+    public long getTaxCents() { return taxCents; }
+    public long getAddOnsCents() { return addOnsCents; }
+    public long getTotalCents() { return totalCents; }
+}
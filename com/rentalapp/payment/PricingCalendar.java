@@ -0,0 +1,354 @@
+package com.rentalapp.payment;
+
+import com.rentalapp.vessel.Vessel;
+import com.rentalapp.vessel.VesselCategory;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.MonthDay;
+import java.util.*;
+
+/**
+ * Day-by-day price multipliers per vessel class (a category at a location): day of
+ * week, holidays and seasons from the calendar rules, times a surge factor driven by how
+ * much of the class is booked that day. Multipliers are precomputed into a dense array
+ * per class indexed by day, so a quote reads one in O(1); a booking change recomputes
+ * only the days it covers. Multipliers are basis points of the vessel's base price.
+ * <p>
+ * Vessels at locations the calendar was not built with share one "other" class, which
+ * only the location-wide ({@code *}) rules apply to. Days outside the horizon and
+ * vessels of unknown category are priced at the base price.
+ * <p>
+ * The horizon starts on the day the calendar is built and does not move forward: a
+ * process running longer than {@code horizonDays} prices later days at the base price
+ * until it is restarted. A booking is priced with the multiplier of its start day
+ * only; the later days of a multi-day rental count towards utilisation but are not
+ * priced separately.
+ */
+public final class PricingCalendar {
+    public static final int DEFAULT_HORIZON_DAYS = 730;
+
+    private static final VesselCategory[] CATEGORIES = VesselCategory.values();
+    private static final int OTHER_LOCATION = 0;
+
+    private final long firstDay;                        // epoch day of index 0
+    private final int horizonDays;
+    private final List<String> locations = new ArrayList<>();           // [slot], null for "other"
+    private final Map<String, Integer> locationSlots = new HashMap<>(); // exact and lower-case labels
+    private final int[] fleet;                          // [class] vessels sharing the bookings
+    private final int[][] booked;                       // [class][day]
+    private final int[][] seasonalBasisPoints;          // [class][day] day of week or holiday, times seasons
+    private final int[][] multipliers;                  // [class][day] seasonal times surge
+    private final int[][] surgeMinUtilisation;          // [class] descending, basis points of the fleet
+    private final int[][] surgeBasisPoints;             // [class] parallel to surgeMinUtilisation
+    private final Map<String, Booking> bookings = new HashMap<>();
+    private Rules rules;
+
+    private record Booking(int vesselClass, long firstDay, long lastDay) {}
+
+    public PricingCalendar(Rules rules, Collection<Vessel> vessels) {
+        this(rules, vessels, LocalDate.now(), DEFAULT_HORIZON_DAYS);
+    }
+
+    public PricingCalendar(Rules rules, Collection<Vessel> vessels, LocalDate firstDay, int horizonDays) {
+        if (horizonDays <= 0) throw new IllegalArgumentException("horizonDays must be positive");
+        this.firstDay = firstDay.toEpochDay();
+        this.horizonDays = horizonDays;
+
+        locations.add(null);
+        for (Vessel vessel : vessels) {
+            String location = vessel.getLocation();
+            if (location == null || location.isBlank() || slotOf(location) != OTHER_LOCATION) continue;
+            locationSlots.put(location, locations.size());
+            locationSlots.putIfAbsent(location.trim().toLowerCase(), locations.size());
+            locations.add(location.trim());
+        }
+
+        int classes = CATEGORIES.length * locations.size();
+        this.fleet = new int[classes];
+        this.booked = new int[classes][horizonDays];
+        this.seasonalBasisPoints = new int[classes][horizonDays];
+        this.multipliers = new int[classes][horizonDays];
+        this.surgeMinUtilisation = new int[classes][];
+        this.surgeBasisPoints = new int[classes][];
+        countFleet(vessels);
+        reload(rules);
+    }
+
+    // ================= LOOKUPS =================
+    /**
+     * Multiplier for renting the vessel on this date. Reads one array element and takes
+     * no lock, so it may briefly miss a booking being recorded on another thread.
+     */
+    public int multiplierBasisPoints(Vessel vessel, LocalDate date) {
+        int vesselClass = classOf(vessel);
+        long day = date.toEpochDay() - firstDay;
+        if (vesselClass < 0 || day < 0 || day >= horizonDays) return Money.BASIS_POINTS;
+        return multipliers[vesselClass][(int) day];
+    }
+
+    /** Booked share of the vessel's class on this date, in basis points of the class fleet. */
+    public synchronized int utilisationBasisPoints(Vessel vessel, LocalDate date) {
+        int vesselClass = classOf(vessel);
+        long day = date.toEpochDay() - firstDay;
+        if (vesselClass < 0 || day < 0 || day >= horizonDays) return 0;
+        return utilisation(vesselClass, (int) day);
+    }
+
+    // ================= BOOKINGS =================
+    /** Count the rental against its vessel's class on every day from start to end. */
+    public synchronized void recordBooking(String rentalId, Vessel vessel, LocalDateTime start, LocalDateTime end) {
+        int vesselClass = classOf(vessel);
+        if (vesselClass < 0 || start == null || end == null || bookings.containsKey(rentalId)) return;
+        long first = start.toLocalDate().toEpochDay();
+        long last = lastDay(first, end);
+        bookings.put(rentalId, new Booking(vesselClass, first, last));
+        adjust(vesselClass, first, last, 1);
+    }
+
+    /** Move the end of a recorded rental, e.g. after an extension. */
+    public synchronized void rescheduleBooking(String rentalId, LocalDateTime newEnd) {
+        Booking booking = bookings.get(rentalId);
+        if (booking == null || newEnd == null) return;
+        long last = lastDay(booking.firstDay(), newEnd);
+        if (last > booking.lastDay()) {
+            adjust(booking.vesselClass(), booking.lastDay() + 1, last, 1);
+        } else if (last < booking.lastDay()) {
+            adjust(booking.vesselClass(), last + 1, booking.lastDay(), -1);
+        }
+        bookings.put(rentalId, new Booking(booking.vesselClass(), booking.firstDay(), last));
+    }
+
+    /**
+     * The rental ended or was cancelled at {@code releasedAt}: the days after that no
+     * longer count against its class. Days already used stay booked.
+     */
+    public synchronized void releaseBooking(String rentalId, LocalDateTime releasedAt) {
+        Booking booking = bookings.remove(rentalId);
+        if (booking == null) return;
+        long from = releasedAt == null ? booking.firstDay()
+                : Math.max(booking.firstDay(), releasedAt.toLocalDate().toEpochDay() + 1);
+        adjust(booking.vesselClass(), from, booking.lastDay(), -1);
+    }
+
+    // ================= RECOMPUTATION =================
+    /** Recompile every class from new calendar rules, keeping the bookings. */
+    public synchronized void reload(Rules rules) {
+        this.rules = rules;
+        for (int vesselClass = 0; vesselClass < fleet.length; vesselClass++) {
+            compile(vesselClass);
+        }
+    }
+
+    /** Recount the vessels per class after vessels were added, removed or moved. */
+    public synchronized void recountFleet(Collection<Vessel> vessels) {
+        int[] before = fleet.clone();
+        countFleet(vessels);
+        for (int vesselClass = 0; vesselClass < fleet.length; vesselClass++) {
+            if (fleet[vesselClass] != before[vesselClass]) refresh(vesselClass, 0, horizonDays - 1);
+        }
+    }
+
+    private void countFleet(Collection<Vessel> vessels) {
+        Arrays.fill(fleet, 0);
+        for (Vessel vessel : vessels) {
+            int vesselClass = classOf(vessel);
+            if (vesselClass >= 0) fleet[vesselClass]++;
+        }
+    }
+
+    private void compile(int vesselClass) {
+        VesselCategory category = CATEGORIES[vesselClass / locations.size()];
+        String location = locations.get(vesselClass % locations.size());
+
+        int[] weekday = new int[7];
+        Arrays.fill(weekday, Money.BASIS_POINTS);
+        List<Holiday> holidays = new ArrayList<>();
+        List<Season> seasons = new ArrayList<>();
+        List<Surge> surges = new ArrayList<>();
+        for (Rule rule : rules.rules) {
+            if (!rule.appliesTo(category, location)) continue;
+            if (rule instanceof Weekday w) {
+                weekday[w.day().ordinal()] = (int) Money.applyRate(weekday[w.day().ordinal()], w.basisPoints());
+            } else if (rule instanceof Holiday h) {
+                holidays.add(h);
+            } else if (rule instanceof Season s) {
+                seasons.add(s);
+            } else if (rule instanceof Surge s) {
+                surges.add(s);
+            }
+        }
+
+        int[] seasonal = seasonalBasisPoints[vesselClass];
+        for (int day = 0; day < horizonDays; day++) {
+            LocalDate date = LocalDate.ofEpochDay(firstDay + day);
+            // A holiday replaces the day-of-week multiplier; the highest holiday wins
+            int dayBasisPoints = 0;
+            for (Holiday holiday : holidays) {
+                if (holiday.covers(date)) dayBasisPoints = Math.max(dayBasisPoints, holiday.basisPoints());
+            }
+            long basisPoints = dayBasisPoints > 0 ? dayBasisPoints : weekday[date.getDayOfWeek().ordinal()];
+            if (!seasons.isEmpty()) {
+                MonthDay monthDay = MonthDay.from(date);
+                for (Season season : seasons) {
+                    if (season.covers(monthDay)) basisPoints = Money.applyRate(basisPoints, season.basisPoints());
+                }
+            }
+            seasonal[day] = (int) basisPoints;
+        }
+
+        surges.sort(Comparator.comparingInt(Surge::minUtilisation).reversed());
+        surgeMinUtilisation[vesselClass] = new int[surges.size()];
+        surgeBasisPoints[vesselClass] = new int[surges.size()];
+        for (int i = 0; i < surges.size(); i++) {
+            surgeMinUtilisation[vesselClass][i] = surges.get(i).minUtilisation();
+            surgeBasisPoints[vesselClass][i] = surges.get(i).basisPoints();
+        }
+        refresh(vesselClass, 0, horizonDays - 1);
+    }
+
+    private void adjust(int vesselClass, long firstEpochDay, long lastEpochDay, int delta) {
+        int from = (int) Math.max(0, firstEpochDay - firstDay);
+        int to = (int) Math.min(horizonDays - 1, lastEpochDay - firstDay);
+        for (int day = from; day <= to; day++) {
+            booked[vesselClass][day] = Math.max(0, booked[vesselClass][day] + delta);
+        }
+        refresh(vesselClass, from, to);
+    }
+
+    private void refresh(int vesselClass, int from, int to) {
+        for (int day = from; day <= to; day++) {
+            multipliers[vesselClass][day] =
+                    (int) Money.applyRate(seasonalBasisPoints[vesselClass][day], surge(vesselClass, day));
+        }
+    }
+
+    private int surge(int vesselClass, int day) {
+        int[] thresholds = surgeMinUtilisation[vesselClass];
+        if (thresholds.length == 0 || fleet[vesselClass] == 0) return Money.BASIS_POINTS;
+        int utilisation = utilisation(vesselClass, day);
+        for (int i = 0; i < thresholds.length; i++) {
+            if (utilisation >= thresholds[i]) return surgeBasisPoints[vesselClass][i];
+        }
+        return Money.BASIS_POINTS;
+    }
+
+    private int utilisation(int vesselClass, int day) {
+        int vessels = fleet[vesselClass];
+        return vessels == 0 ? 0 : (int) ((long) booked[vesselClass][day] * Money.BASIS_POINTS / vessels);
+    }
+
+    // A rental ending exactly at midnight does not use the day it ends on
+    private static long lastDay(long firstDay, LocalDateTime end) {
+        long last = end.toLocalDate().toEpochDay();
+        if (end.toLocalTime().equals(LocalTime.MIDNIGHT) && last > firstDay) last--;
+        return Math.max(firstDay, last);
+    }
+
+    private int classOf(Vessel vessel) {
+        VesselCategory category = VesselCategory.fromLabel(vessel.getVesselCategory());
+        if (category == null) return -1;
+        return category.ordinal() * locations.size() + slotOf(vessel.getLocation());
+    }
+
+    private int slotOf(String location) {
+        if (location == null) return OTHER_LOCATION;
+        Integer slot = locationSlots.get(location);
+        if (slot == null) slot = locationSlots.get(location.trim().toLowerCase());
+        return slot != null ? slot : OTHER_LOCATION;
+    }
+
+    // ================= RULES =================
+    private sealed interface Rule {
+        VesselCategory category();   // null: every category
+        String location();           // null: every location
+
+        default boolean appliesTo(VesselCategory vesselCategory, String vesselLocation) {
+            return (category() == null || category() == vesselCategory)
+                    && (location() == null || location().equalsIgnoreCase(vesselLocation));
+        }
+    }
+
+    private record Weekday(VesselCategory category, String location, DayOfWeek day, int basisPoints) implements Rule {}
+
+    private record Holiday(VesselCategory category, String location, LocalDate from, LocalDate to, int basisPoints)
+            implements Rule {
+        boolean covers(LocalDate date) {
+            return !date.isBefore(from) && !date.isAfter(to);
+        }
+    }
+
+    /** Recurs every year; a range such as 11-01..03-15 wraps over the new year. */
+    private record Season(VesselCategory category, String location, MonthDay from, MonthDay to, int basisPoints)
+            implements Rule {
+        boolean covers(MonthDay day) {
+            if (!from.isAfter(to)) return !day.isBefore(from) && !day.isAfter(to);
+            return !day.isBefore(from) || !day.isAfter(to);
+        }
+    }
+
+    private record Surge(VesselCategory category, String location, int minUtilisation, int basisPoints)
+            implements Rule {}
+
+    /**
+     * Calendar rules as read from the table, before they are compiled against the
+     * fleet's classes. Day-of-week and season multipliers that apply to the same class
+     * multiply; a holiday replaces the day-of-week multiplier; the surge tier with the
+     * highest threshold the day's utilisation reaches applies on top.
+     */
+    public static final class Rules {
+        private final List<Rule> rules;
+
+        private Rules(List<Rule> rules) {
+            this.rules = List.copyOf(rules);
+        }
+
+        public int size() {
+            return rules.size();
+        }
+
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /** A null category or location makes the rule apply to all of them. */
+        public static final class Builder {
+            private final List<Rule> rules = new ArrayList<>();
+
+            private Builder() {}
+
+            public Builder weekday(VesselCategory category, String location, DayOfWeek day, int basisPoints) {
+                rules.add(new Weekday(category, location, day, positive(basisPoints)));
+                return this;
+            }
+
+            public Builder holiday(VesselCategory category, String location, LocalDate from, LocalDate to, int basisPoints) {
+                if (to.isBefore(from)) throw new IllegalArgumentException("Holiday ends before it starts: " + from + ".." + to);
+                rules.add(new Holiday(category, location, from, to, positive(basisPoints)));
+                return this;
+            }
+
+            public Builder season(VesselCategory category, String location, MonthDay from, MonthDay to, int basisPoints) {
+                rules.add(new Season(category, location, from, to, positive(basisPoints)));
+                return this;
+            }
+
+            /** {@code minUtilisation} in basis points of the class fleet booked that day. */
+            public Builder surge(VesselCategory category, String location, int minUtilisation, int basisPoints) {
+                if (minUtilisation < 0) throw new IllegalArgumentException("Surge threshold must not be negative");
+                rules.add(new Surge(category, location, minUtilisation, positive(basisPoints)));
+                return this;
+            }
+
+            public Rules build() {
+                return new Rules(rules);
+            }
+
+            private static int positive(int basisPoints) {
+                if (basisPoints <= 0) throw new IllegalArgumentException("Multiplier must be positive: " + basisPoints);
+                return basisPoints;
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.rentalapp.payment;
+
+import com.rentalapp.utils.PricingRulesLoader;
+import com.rentalapp.vessel.VesselCategory;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pricing rules (tax, hourly extension rates, member discounts, damage fees, refund
+ * policy) compiled into dense arrays indexed by enum ordinal. Built once from the rules
+ * table; every lookup is an array read, so all pricing paths share the same numbers
+ * without string matching or allocation. Amounts are cents and rates basis points.
+ */
+public final class PricingRules {
+
+    public enum Tier { NONE, STANDARD, VIP }
+
+    public enum DamageType {
+        MINOR("Minor Damage"),
+        MAJOR("Major Damage"),
+        CLEANING("Cleaning Fee"),
+        LOST_EQUIPMENT("Lost Equipment");
+
+        private final String label;
+
+        DamageType(String label) { this.label = label; }
+
+        public String getLabel() { return label; }
+    }
+
+    public enum Severity {
+        LIGHT("Light"),
+        MODERATE("Moderate"),
+        SEVERE("Severe");
+
+        private final String label;
+
+        Severity(String label) { this.label = label; }
+
+        public String getLabel() { return label; }
+    }
+
+    private static final DamageType[] DAMAGE_TYPES = DamageType.values();
+    private static final Severity[] SEVERITIES = Severity.values();
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private static volatile PricingRules standard;
+
+    private final long version;
+    private final int taxBasisPoints;
+    private final long[] extensionHourlyCents;   // [category]
+    private final int[][] discountBasisPoints;   // [category][tier]
+    private final long[][] damageFeeCents;       // [damage type][severity]
+    private final int[] refundMinHours;          // descending
+    private final int[] refundBasisPoints;       // parallel to refundMinHours
+
+    private PricingRules(Builder builder) {
+        this.version = VERSIONS.incrementAndGet();
+        this.taxBasisPoints = builder.taxBasisPoints;
+        this.extensionHourlyCents = builder.extensionHourlyCents.clone();
+
+        int categories = VesselCategory.values().length;
+        int tiers = Tier.values().length;
+        this.discountBasisPoints = new int[categories][tiers];
+        for (int c = 0; c < categories; c++) {
+            for (int t = 0; t < tiers; t++) {
+                int specific = builder.categoryDiscounts[c][t];
+                discountBasisPoints[c][t] = specific >= 0 ? specific : Math.max(0, builder.defaultDiscounts[t]);
+            }
+        }
+
+        this.damageFeeCents = new long[DamageType.values().length][Severity.values().length];
+        for (DamageType type : DamageType.values()) {
+            for (Severity severity : Severity.values()) {
+                damageFeeCents[type.ordinal()][severity.ordinal()] =
+                        Money.applyRate(builder.damageBaseCents[type.ordinal()], builder.severityBasisPoints[severity.ordinal()]);
+            }
+        }
+
+        this.refundMinHours = new int[builder.refundTiers.size()];
+        this.refundBasisPoints = new int[builder.refundTiers.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> tier : builder.refundTiers.entrySet()) {
+            refundMinHours[i] = tier.getKey();
+            refundBasisPoints[i++] = tier.getValue();
+        }
+    }
+
+    /** The rules from the data folder, loaded on first use. */
+    public static PricingRules standard() {
+        PricingRules rules = standard;
+        if (rules == null) {
+            synchronized (PricingRules.class) {
+                if (standard == null) standard = PricingRulesLoader.loadPricingRules();
+                rules = standard;
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Re-read the rules table and make it the standard rules. Calculators following the
+     * standard rules pick it up on their next calculation; if the table no longer
+     * compiles, the current rules stay in force and the error is thrown.
+     */
+    public static synchronized PricingRules reloadStandard() {
+        PricingRules reloaded = PricingRulesLoader.loadPricingRules();
+        standard = reloaded;
+        return reloaded;
+    }
+
+    // ================= LOOKUPS =================
+    /** Distinct for every compiled rule set; cached prices carry it so a reload invalidates them. */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getTaxBasisPoints() {
+        return taxBasisPoints;
+    }
+
+    public long taxOn(long cents) {
+        return Money.applyRate(cents, taxBasisPoints);
+    }
+
+    /** Member discount in basis points; 0 for unknown categories. */
+    public int discountBasisPoints(VesselCategory category, Tier tier) {
+        return category == null ? 0 : discountBasisPoints[category.ordinal()][tier.ordinal()];
+    }
+
+    public long extensionHourlyCents(VesselCategory category) {
+        return category == null ? 0 : extensionHourlyCents[category.ordinal()];
+    }
+
+    public long damageFeeCents(DamageType type, Severity severity) {
+        return damageFeeCents[type.ordinal()][severity.ordinal()];
+    }
+
+    /** Share of the rental cost refunded when cancelling this many hours before the start. */
+    public int refundBasisPoints(long hoursUntilStart) {
+        for (int i = 0; i < refundMinHours.length; i++) {
+            if (hoursUntilStart >= refundMinHours[i]) return refundBasisPoints[i];
+        }
+        return 0;
+    }
+
+    /** Case-insensitive lookup by name; null if unknown. */
+    public static DamageType damageType(String name) {
+        return constantOf(DAMAGE_TYPES, name);
+    }
+
+    /** Case-insensitive lookup by name; null if unknown. */
+    public static Severity severity(String name) {
+        return constantOf(SEVERITIES, name);
+    }
+
+    private static <E extends Enum<E>> E constantOf(E[] values, String name) {
+        if (name == null) return null;
+        for (E value : values) {
+            if (value.name().equalsIgnoreCase(name)) return value;
+        }
+        return null;
+    }
+
+    // ================= BUILDER =================
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static final class Builder {
+        private int taxBasisPoints = -1;
+        private final long[] extensionHourlyCents = new long[VesselCategory.values().length];
+        private final boolean[] extensionSet = new boolean[VesselCategory.values().length];
+        private final int[] defaultDiscounts = filled(Tier.values().length);
+        private final int[][] categoryDiscounts = new int[VesselCategory.values().length][];
+        private final long[] damageBaseCents = new long[DamageType.values().length];
+        private final int[] severityBasisPoints = filled(Severity.values().length);
+        private final NavigableMap<Integer, Integer> refundTiers = new TreeMap<>(Comparator.reverseOrder());
+
+        private Builder() {
+            for (int c = 0; c < categoryDiscounts.length; c++) {
+                categoryDiscounts[c] = filled(Tier.values().length);
+            }
+        }
+
+        public Builder tax(int basisPoints) {
+            this.taxBasisPoints = basisPoints;
+            return this;
+        }
+
+        public Builder extensionHourly(VesselCategory category, long cents) {
+            extensionHourlyCents[category.ordinal()] = cents;
+            extensionSet[category.ordinal()] = true;
+            return this;
+        }
+
+        /** {@code category} null sets the default for categories without their own row. */
+        public Builder memberDiscount(VesselCategory category, Tier tier, int basisPoints) {
+            if (category == null) defaultDiscounts[tier.ordinal()] = basisPoints;
+            else categoryDiscounts[category.ordinal()][tier.ordinal()] = basisPoints;
+            return this;
+        }
+
+        public Builder damageBase(DamageType type, long cents) {
+            damageBaseCents[type.ordinal()] = cents;
+            return this;
+        }
+
+        public Builder damageSeverity(Severity severity, int basisPoints) {
+            severityBasisPoints[severity.ordinal()] = basisPoints;
+            return this;
+        }
+
+        public Builder refund(int minHoursBeforeStart, int basisPoints) {
+            refundTiers.put(minHoursBeforeStart, basisPoints);
+            return this;
+        }
+
+        /** Severities without a rule charge the base fee unchanged. */
+        public PricingRules build() {
+            if (taxBasisPoints < 0) {
+                throw new IllegalStateException("Pricing rules have no TAX rule");
+            }
+            for (VesselCategory category : VesselCategory.values()) {
+                if (!extensionSet[category.ordinal()]) {
+                    throw new IllegalStateException("Pricing rules have no EXTENSION_HOURLY rule for " + category.getLabel());
+                }
+            }
+            for (int s = 0; s < severityBasisPoints.length; s++) {
+                if (severityBasisPoints[s] < 0) severityBasisPoints[s] = Money.BASIS_POINTS;
+            }
+            return new PricingRules(this);
+        }
+
+        private static int[] filled(int length) {
+            int[] values = new int[length];
+            Arrays.fill(values, -1);
+            return values;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.rentalapp.payment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of booking quotes for browsing, where the same vessel and add-ons are
+ * priced again and again. A quote does not depend on the rental duration, so browsing
+ * different durations of one vessel shares a single entry. The capacity is split over independently locked
+ * LRU segments so concurrent kiosks rarely contend.
+ * <p>
+ * Invalidation is automatic: the key carries the pricing-rules version, so a reload
+ * makes every older entry unreachable (they age out), and each entry remembers the
+ * vessel base price it was computed from, so a hit after a price change is treated as
+ * a miss and recomputed. Seasonal and surge pricing needs no invalidation either: the
+ * key carries the calendar multiplier, so a day whose multiplier moved simply looks up
+ * a different entry.
+ */
+public class QuoteCache {
+    private static final int SEGMENTS = 16;
+
+    /**
+     * Everything a quote depends on besides the base price. {@code addOnsCents} is the
+     * add-on total (add-ons only enter the quote as that sum); {@code multiplier} the
+     * pricing-calendar multiplier for the booked day.
+     */
+    public record Key(String vesselId, PricingRules.Tier tier, long addOnsCents, int multiplier,
+                      long rulesVersion) {}
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final int capacity;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public QuoteCache() {
+        this(4096);
+    }
+
+    public QuoteCache(int capacity) {
+        if (capacity < SEGMENTS) throw new IllegalArgumentException("capacity must be at least " + SEGMENTS);
+        this.capacity = capacity;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(capacity / SEGMENTS, evictions);
+        }
+    }
+
+    /**
+     * The cached quote for the key if it was computed from the same base price, otherwise
+     * the result of {@code compute}, which is cached. Returned quotes must not be modified.
+     */
+    public PriceQuote getOrCompute(Key key, long basePriceCents, Supplier<PriceQuote> compute) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            Entry entry = segment.get(key);
+            if (entry != null) {
+                if (entry.basePriceCents == basePriceCents) {
+                    hits.increment();
+                    return entry.quote;
+                }
+                stale.increment();
+            }
+        }
+        misses.increment();
+        // Computed outside the lock; two threads may race to fill a key, both get a correct quote
+        PriceQuote quote = compute.get();
+        synchronized (segment) {
+            segment.put(key, new Entry(quote, basePriceCents));
+        }
+        return quote;
+    }
+
+    /** Drop every entry, e.g. after a bulk price change. */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getStaleHits() { return stale.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+
+    public double getHitRate() {
+        long lookups = hits.sum() + misses.sum();
+        return lookups == 0 ? 0.0 : (double) hits.sum() / lookups;
+    }
+
+    public void printMetrics() {
+        System.out.println("\n================== QUOTE CACHE ==================");
+        System.out.printf("Entries: %d/%d | Hit rate: %.1f%%%n", size(), capacity, getHitRate() * 100);
+        System.out.printf("Hits: %d | Misses: %d (stale price: %d) | Evictions: %d%n",
+                getHits(), getMisses(), getStaleHits(), getEvictions());
+        System.out.println("=================================================\n");
+    }
+
+    private Segment segmentFor(Key key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    private record Entry(PriceQuote quote, long basePriceCents) {}
+
+    /** Access-ordered map that drops its least recently used entry when full. */
+    private static final class Segment extends LinkedHashMap<Key, Entry> {
+        private static final long serialVersionUID = 1L;
+
+        private final int maxEntries;
+        private final LongAdder evictions;
+
+        Segment(int maxEntries, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            if (size() <= maxEntries) return false;
+            evictions.increment();
+            return true;
+        }
+    }
+}
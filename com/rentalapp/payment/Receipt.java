@@ -15,16 +15,20 @@ public class Receipt {
     private String vesselType;
     private String vesselCategory;
     private Duration duration;           
-    private double baseAmount;
-    private double addOnsAmount;
-    private double memberDiscount;
-    private double finalAmount;
+    private long baseAmountCents;
+    private long addOnsAmountCents;
+    private long memberDiscountCents;
+    private long finalAmountCents;
     private String paymentMethod;
     private LocalDateTime paymentDateTime;
     private int loyaltyPointsEarned;
     private List<AddOn> addOns;
     private String maskedCardNumber;
     private String eWalletPhoneNumber;
+    // Written by the settlement thread when the gateway answers
+    private volatile SettlementStatus settlementStatus = SettlementStatus.PENDING;
+    private volatile String gatewayReference;
+    private volatile String settlementNote;
 
       // Unified constructor (works for both card & e-wallet)
 public Receipt(String receiptId, String rentalId, String customerId, String customerName,
@@ -40,10 +44,10 @@ public Receipt(String receiptId, String rentalId, String customerId, String cust
     this.vesselType = vesselType;
     this.vesselCategory = vesselCategory;
     this.duration = duration;
-    this.baseAmount = baseAmount;
-    this.addOnsAmount = addOnsAmount;
-    this.memberDiscount = memberDiscount;
-    this.finalAmount = finalAmount;
+    this.baseAmountCents = Money.toCents(baseAmount);
+    this.addOnsAmountCents = Money.toCents(addOnsAmount);
+    this.memberDiscountCents = Money.toCents(memberDiscount);
+    this.finalAmountCents = Money.toCents(finalAmount);
     this.paymentMethod = paymentMethod;
     this.maskedCardNumber = maskedCardNumber;
     this.eWalletPhoneNumber = eWalletPhoneNumber;
@@ -74,18 +78,18 @@ public Receipt(String receiptId, String rentalId, String customerId, String cust
         long minutes = duration.toMinutesPart();
         System.out.println("Duration: " + hours + "h " + minutes + "m");
         System.out.println("-".repeat(50));
-        System.out.println("Base Amount(include tax): " + formatCurrency(baseAmount));
+        System.out.println("Base Amount(include tax): " + Money.format(baseAmountCents));
         
          if (addOns != null && !addOns.isEmpty()) {
             System.out.println("Add-Ons:");
             for (AddOn addon : addOns) {
-                System.out.println("  - " + addon.getName() + ": " + formatCurrency(addon.getPrice()));
+                System.out.println("  - " + addon.getName() + ": " + Money.format(addon.getPriceCents()));
             }
-            System.out.println("Add-Ons Total: " + formatCurrency(addOnsAmount));
+            System.out.println("Add-Ons Total: " + Money.format(addOnsAmountCents));
         }
 
-        if (memberDiscount > 0) {
-            System.out.println("Member Discount: -" + formatCurrency(memberDiscount));
+        if (memberDiscountCents > 0) {
+            System.out.println("Member Discount: -" + Money.format(memberDiscountCents));
         }
 
         if (maskedCardNumber != null && !maskedCardNumber.isEmpty()) {
@@ -97,8 +101,11 @@ public Receipt(String receiptId, String rentalId, String customerId, String cust
         }
         
         System.out.println("-".repeat(50));
-        System.out.println("TOTAL AMOUNT: " + formatCurrency(finalAmount));
+        System.out.println("TOTAL AMOUNT: " + Money.format(finalAmountCents));
         System.out.println("Payment Method: " + paymentMethod);
+        System.out.println("Settlement: " + settlementStatus
+                + (gatewayReference != null ? " (ref " + gatewayReference + ")" : "")
+                + (settlementNote != null ? " - " + settlementNote : ""));
         
         if (loyaltyPointsEarned > 0) {
             System.out.println("Loyalty Points Earned: " + loyaltyPointsEarned);
@@ -113,14 +120,7 @@ public Receipt(String receiptId, String rentalId, String customerId, String cust
 
    public void printSummaryReceipt() {
         System.out.println(receiptId + " | " + customerName + " | " + vesselType +
-                " | " + formatCurrency(finalAmount) + " | " + paymentMethod);
-    }
-
-    private String formatCurrency(double amount) {
-        if (amount < 0) {
-            return "-RM " + String.format("%.2f", Math.abs(amount));
-        }
-        return "RM " + String.format("%.2f", amount);
+                " | " + Money.format(finalAmountCents) + " | " + paymentMethod);
     }
 
     // Getters
@@ -132,16 +132,23 @@ public Receipt(String receiptId, String rentalId, String customerId, String cust
     public String getVesselType() { return vesselType; }
     public String getVesselCategory() { return vesselCategory; }
     public Duration getDuration() { return duration; }    
-    public double getBaseAmount() { return baseAmount; }
-    public double getAddOnsAmount() { return addOnsAmount; }
-    public double getMemberDiscount() { return memberDiscount; }
-    public double getFinalAmount() { return finalAmount; }
+    public double getBaseAmount() { return Money.toAmount(baseAmountCents); }
+    public double getAddOnsAmount() { return Money.toAmount(addOnsAmountCents); }
+    public double getMemberDiscount() { return Money.toAmount(memberDiscountCents); }
+    public double getFinalAmount() { return Money.toAmount(finalAmountCents); }
+    public long getBaseAmountCents() { return baseAmountCents; }
+    public long getAddOnsAmountCents() { return addOnsAmountCents; }
+    public long getMemberDiscountCents() { return memberDiscountCents; }
+    public long getFinalAmountCents() { return finalAmountCents; }
     public String getPaymentMethod() { return paymentMethod; }
     public LocalDateTime getPaymentDateTime() { return paymentDateTime; }
     public int getLoyaltyPointsEarned() { return loyaltyPointsEarned; }
     public List<AddOn> getAddOns() { return addOns; }
     public String getMaskedCardNumber() { return maskedCardNumber; }
     public String getEWalletPhoneNumber() { return eWalletPhoneNumber; }
+    public SettlementStatus getSettlementStatus() { return settlementStatus; }
+    public String getGatewayReference() { return gatewayReference; }
+    public String getSettlementNote() { return settlementNote; }
 
     // Setters
     public void setReceiptId(String receiptId) { this.receiptId = receiptId; }
@@ -152,10 +159,10 @@ public Receipt(String receiptId, String rentalId, String customerId, String cust
     public void setVesselType(String vesselType) { this.vesselType = vesselType; }
     public void setVesselCategory(String vesselCategory) { this.vesselCategory = vesselCategory; }
     public void setDuration(Duration duration) { this.duration = duration; }
-    public void setBaseAmount(double baseAmount) { this.baseAmount = baseAmount; }
-     public void setAddOnsAmount(double addOnsAmount) { this.addOnsAmount = addOnsAmount; }   
-    public void setMemberDiscount(double memberDiscount) { this.memberDiscount = memberDiscount; }
-    public void setFinalAmount(double finalAmount) { this.finalAmount = finalAmount; }
+    public void setBaseAmount(double baseAmount) { this.baseAmountCents = Money.toCents(baseAmount); }
+     public void setAddOnsAmount(double addOnsAmount) { this.addOnsAmountCents = Money.toCents(addOnsAmount); }   
+    public void setMemberDiscount(double memberDiscount) { this.memberDiscountCents = Money.toCents(memberDiscount); }
+    public void setFinalAmount(double finalAmount) { this.finalAmountCents = Money.toCents(finalAmount); }
     public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
     public void setPaymentDateTime(LocalDateTime paymentDateTime) { this.paymentDateTime = paymentDateTime; }
     public void setLoyaltyPointsEarned(int loyaltyPointsEarned) { this.loyaltyPointsEarned = loyaltyPointsEarned; }
@@ -163,6 +170,18 @@ public Receipt(String receiptId, String rentalId, String customerId, String cust
     public void setMaskedCardNumber(String maskedCardNumber) { this.maskedCardNumber = maskedCardNumber; }
     public void setEWalletPhoneNumber(String eWalletPhoneNumber) { this.eWalletPhoneNumber = eWalletPhoneNumber; }
 
+    // Settlement
+    public void markSettled(String gatewayReference) {
+        this.gatewayReference = gatewayReference;
+        this.settlementNote = null;
+        this.settlementStatus = SettlementStatus.SETTLED;
+    }
+
+    public void markSettlementFailed(String reason) {
+        this.settlementNote = reason;
+        this.settlementStatus = SettlementStatus.FAILED;
+    }
+
     @Override
     public String toString() {
         long hours = duration.toHours();
@@ -175,7 +194,7 @@ public Receipt(String receiptId, String rentalId, String customerId, String cust
                 ", vesselType='" + vesselType + '\'' +
                 ", vesselCategory='" + vesselCategory + '\'' +
                 ", duration=" + hours + "h " + minutes + "m" +
-                ", finalAmount=" + finalAmount +
+                ", finalAmount=" + getFinalAmount() +
                 ", paymentMethod='" + paymentMethod + '\'' +
                 ", paymentDateTime=" + paymentDateTime +
                 ", addOns=" + addOns +
@@ -0,0 +1,106 @@
+package com.rentalapp.payment;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Receipts indexed by receipt id, by rental id (a rental can have a payment, extensions,
+ * a refund and damage charges), by customer id and by payment time. Lookups by receipt
+ * id are lock-free; the other indexes share a read-write lock so concurrent payment
+ * threads can add receipts while reports and lookups read them.
+ */
+public class ReceiptStore {
+    private final Map<String, Receipt> byId = new ConcurrentHashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Receipt> inIssueOrder = new ArrayList<>();
+    private final Map<String, List<Receipt>> byRental = new HashMap<>();
+    private final Map<String, List<Receipt>> byCustomer = new HashMap<>();
+    private final NavigableMap<LocalDateTime, List<Receipt>> byTime = new TreeMap<>();
+
+    /** Add a receipt; returns false (and stores nothing) if its id is already present. */
+    public boolean add(Receipt receipt) {
+        lock.writeLock().lock();
+        try {
+            if (byId.putIfAbsent(receipt.getReceiptId(), receipt) != null) {
+                return false;
+            }
+            inIssueOrder.add(receipt);
+            if (receipt.getRentalId() != null) {
+                byRental.computeIfAbsent(receipt.getRentalId(), k -> new ArrayList<>(2)).add(receipt);
+            }
+            byCustomer.computeIfAbsent(receipt.getCustomerId(), k -> new ArrayList<>()).add(receipt);
+            byTime.computeIfAbsent(receipt.getPaymentDateTime(), k -> new ArrayList<>(1)).add(receipt);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Receipt get(String receiptId) {
+        return receiptId == null ? null : byId.get(receiptId);
+    }
+
+    /** The first receipt issued for the rental (its original payment), or null. */
+    public Receipt getFirstForRental(String rentalId) {
+        lock.readLock().lock();
+        try {
+            List<Receipt> receipts = byRental.get(rentalId);
+            return receipts == null ? null : receipts.get(0);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Every receipt of the rental in issue order. */
+    public List<Receipt> getForRental(String rentalId) {
+        return copyOf(byRental, rentalId);
+    }
+
+    public List<Receipt> getForCustomer(String customerId) {
+        return copyOf(byCustomer, customerId);
+    }
+
+    /** Receipts paid between the two instants (inclusive), oldest first. */
+    public List<Receipt> getBetween(LocalDateTime from, LocalDateTime to) {
+        List<Receipt> result = new ArrayList<>();
+        if (from == null || to == null || from.isAfter(to)) return result;
+        lock.readLock().lock();
+        try {
+            for (List<Receipt> bucket : byTime.subMap(from, true, to, true).values()) {
+                result.addAll(bucket);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /** Up to {@code max} receipts in issue order starting at {@code from}; used for batched iteration. */
+    public List<Receipt> fetch(int from, int max) {
+        lock.readLock().lock();
+        try {
+            if (from >= inIssueOrder.size()) return Collections.emptyList();
+            return new ArrayList<>(inIssueOrder.subList(from, Math.min(inIssueOrder.size(), from + max)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private List<Receipt> copyOf(Map<String, List<Receipt>> index, String key) {
+        lock.readLock().lock();
+        try {
+            List<Receipt> receipts = index.get(key);
+            return receipts == null ? new ArrayList<>() : new ArrayList<>(receipts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
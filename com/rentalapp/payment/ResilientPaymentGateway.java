@@ -0,0 +1,235 @@
+package com.rentalapp.payment;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Wraps a {@link PaymentGateway} with the protections a remote call needs:
+ * <ul>
+ *   <li>a bulkhead per payment channel (cards and e-wallets), so a slow channel cannot
+ *       take every in-flight slot;</li>
+ *   <li>a timeout on each attempt;</li>
+ *   <li>bounded retries of transient failures with exponential backoff and full jitter;</li>
+ *   <li>a circuit breaker per channel that fails fast while the channel keeps failing.</li>
+ * </ul>
+ * Declines are answers, not failures: they are neither retried nor counted by the breaker.
+ * Retried calls reuse their request ids, so the gateway can de-duplicate them.
+ */
+public class ResilientPaymentGateway implements PaymentGateway {
+
+    public enum Channel { CARD, EWALLET }
+
+    /**
+     * @param attemptTimeout    time allowed for one gateway attempt
+     * @param maxAttempts       attempts per request, including the first
+     * @param baseBackoff       backoff before the second attempt; doubles each retry (before jitter)
+     * @param maxConcurrent     in-flight calls allowed per channel
+     * @param failureThreshold  consecutive failures that open a channel's circuit
+     * @param openDuration      how long an open circuit rejects calls before a trial call
+     */
+    public record Policy(Duration attemptTimeout, int maxAttempts, Duration baseBackoff,
+                         int maxConcurrent, int failureThreshold, Duration openDuration) {
+        public static Policy defaults() {
+            return new Policy(Duration.ofSeconds(2), 3, Duration.ofMillis(100), 32, 5, Duration.ofSeconds(30));
+        }
+    }
+
+    private final PaymentGateway delegate;
+    private final Policy policy;
+    private final Map<Channel, Semaphore> bulkheads = new EnumMap<>(Channel.class);
+    private final Map<Channel, CircuitBreaker> breakers = new EnumMap<>(Channel.class);
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder approved = new LongAdder();
+    private final LongAdder declined = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder bulkheadRejections = new LongAdder();
+    private final LongAdder shortCircuits = new LongAdder();
+
+    public ResilientPaymentGateway(PaymentGateway delegate) {
+        this(delegate, Policy.defaults());
+    }
+
+    public ResilientPaymentGateway(PaymentGateway delegate, Policy policy) {
+        if (policy.maxAttempts() < 1 || policy.maxConcurrent() < 1 || policy.failureThreshold() < 1) {
+            throw new IllegalArgumentException("Attempts, concurrency and failure threshold must be at least 1");
+        }
+        this.delegate = delegate;
+        this.policy = policy;
+        for (Channel channel : Channel.values()) {
+            bulkheads.put(channel, new Semaphore(policy.maxConcurrent()));
+            breakers.put(channel, new CircuitBreaker());
+        }
+    }
+
+    public static Channel channelFor(String paymentMethod) {
+        return paymentMethod != null && paymentMethod.toLowerCase().contains("wallet") ? Channel.EWALLET : Channel.CARD;
+    }
+
+    @Override
+    public CompletableFuture<Response> submit(Request request) {
+        return execute(channelFor(request.paymentMethod()), () -> delegate.submit(request))
+                .whenComplete((response, error) -> record(error, response == null ? List.of() : List.of(response)));
+    }
+
+    /** A batch is one gateway call: it shares one bulkhead slot, timeout, retry budget and breaker verdict. */
+    @Override
+    public CompletableFuture<List<Response>> submitBatch(List<Request> requests) {
+        if (requests.isEmpty()) return CompletableFuture.completedFuture(List.of());
+        return execute(channelFor(requests.get(0).paymentMethod()), () -> delegate.submitBatch(requests))
+                .whenComplete((responses, error) -> record(error, responses == null ? List.of() : responses));
+    }
+
+    private void record(Throwable error, List<Response> responses) {
+        if (error != null) {
+            failed.increment();
+            return;
+        }
+        for (Response response : responses) {
+            if (response.approved()) approved.increment();
+            else declined.increment();
+        }
+    }
+
+    private <T> CompletableFuture<T> execute(Channel channel, Supplier<CompletableFuture<T>> call) {
+        calls.increment();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attempt(call, channel, 1, result);
+        return result;
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> call, Channel channel, int attemptNumber,
+                             CompletableFuture<T> result) {
+        CircuitBreaker breaker = breakers.get(channel);
+        if (!breaker.allowCall()) {
+            shortCircuits.increment();
+            // Transient for the caller, but not retried here: an open breaker is there to stop calls
+            result.completeExceptionally(new GatewayException(channel + " payments are unavailable (circuit open)", true));
+            return;
+        }
+        Semaphore bulkhead = bulkheads.get(channel);
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejections.increment();
+            breaker.release();
+            result.completeExceptionally(new GatewayException(channel + " gateway is at capacity, try again shortly", true));
+            return;
+        }
+
+        CompletableFuture<T> pending;
+        try {
+            pending = call.get();
+        } catch (RuntimeException e) {
+            pending = CompletableFuture.failedFuture(e);
+        }
+        // The slot is held until the delegate's call really ends, not when we stop waiting
+        // for it, so timed-out calls still running count against the channel's limit
+        pending.whenComplete((value, error) -> bulkhead.release());
+        pending.copy().orTimeout(policy.attemptTimeout().toMillis(), TimeUnit.MILLISECONDS)
+            .whenComplete((value, error) -> {
+                if (error == null) {
+                    breaker.onSuccess();
+                    result.complete(value);
+                    return;
+                }
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                if (cause instanceof TimeoutException) timeouts.increment();
+                breaker.onFailure();
+
+                if (isRetryable(cause) && attemptNumber < policy.maxAttempts()) {
+                    retries.increment();
+                    Executor delayed = CompletableFuture.delayedExecutor(backoffMillis(attemptNumber), TimeUnit.MILLISECONDS);
+                    delayed.execute(() -> attempt(call, channel, attemptNumber + 1, result));
+                } else {
+                    result.completeExceptionally(cause instanceof GatewayException ? cause
+                            : new GatewayException("Payment gateway call failed: " + describe(cause), isRetryable(cause)));
+                }
+            });
+    }
+
+    private static boolean isRetryable(Throwable cause) {
+        return cause instanceof TimeoutException
+                || (cause instanceof GatewayException gateway && gateway.isRetryable());
+    }
+
+    /** Full jitter: uniform in [0, base * 2^(attempt-1)], capped at the attempt timeout. */
+    private long backoffMillis(int attemptNumber) {
+        long ceiling = Math.min(policy.baseBackoff().toMillis() << Math.min(attemptNumber - 1, 20),
+                                policy.attemptTimeout().toMillis());
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static String describe(Throwable cause) {
+        if (cause instanceof TimeoutException) return "timed out";
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    public CircuitState getCircuitState(Channel channel) {
+        return breakers.get(channel).state.get();
+    }
+
+    public void printMetrics() {
+        System.out.println("\n================ PAYMENT GATEWAY ================");
+        System.out.printf("Calls: %d | Approved: %d | Declined: %d | Failed: %d%n",
+                calls.sum(), approved.sum(), declined.sum(), failed.sum());
+        System.out.printf("Retries: %d | Timeouts: %d | Bulkhead rejections: %d | Short-circuited: %d%n",
+                retries.sum(), timeouts.sum(), bulkheadRejections.sum(), shortCircuits.sum());
+        for (Channel channel : Channel.values()) {
+            System.out.printf("%-8s circuit %-9s in flight %d/%d%n", channel, getCircuitState(channel),
+                    policy.maxConcurrent() - bulkheads.get(channel).availablePermits(), policy.maxConcurrent());
+        }
+        System.out.println("=================================================\n");
+    }
+
+    // ================= CIRCUIT BREAKER =================
+    public enum CircuitState { CLOSED, OPEN, HALF_OPEN }
+
+    /**
+     * CLOSED until {@code failureThreshold} consecutive failures, then OPEN for
+     * {@code openDuration}. After that one trial call is let through (HALF_OPEN): success
+     * closes the circuit, failure opens it again.
+     */
+    private final class CircuitBreaker {
+        private final AtomicReference<CircuitState> state = new AtomicReference<>(CircuitState.CLOSED);
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final AtomicLong openedAt = new AtomicLong();
+        private final AtomicInteger trialCalls = new AtomicInteger();
+
+        boolean allowCall() {
+            CircuitState current = state.get();
+            if (current == CircuitState.CLOSED) return true;
+            if (current == CircuitState.OPEN) {
+                if (System.nanoTime() - openedAt.get() < policy.openDuration().toNanos()) return false;
+                if (state.compareAndSet(CircuitState.OPEN, CircuitState.HALF_OPEN)) trialCalls.set(0);
+            }
+            return trialCalls.getAndIncrement() == 0; // HALF_OPEN: a single trial call
+        }
+
+        /** A call allowed through never reached the gateway (bulkhead full). */
+        void release() {
+            if (state.get() == CircuitState.HALF_OPEN) trialCalls.set(0);
+        }
+
+        void onSuccess() {
+            consecutiveFailures.set(0);
+            state.set(CircuitState.CLOSED);
+        }
+
+        void onFailure() {
+            int failures = consecutiveFailures.incrementAndGet();
+            if (state.get() == CircuitState.HALF_OPEN || failures >= policy.failureThreshold()) {
+                openedAt.set(System.nanoTime());
+                state.set(CircuitState.OPEN);
+            }
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.rentalapp.payment;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Coalesces gateway submissions (captures and refunds) into batch calls. Requests are
+ * queued per payment channel; a channel's batch is sent when it reaches
+ * {@code maxBatchSize} or when {@code window} has passed since its first request,
+ * whichever comes first. Each request's future completes with its own response once
+ * the batch returns. Latency-sensitive requests use {@link #submitNow}, which skips the
+ * queue and makes a single call.
+ *
+ * When a batch fails for a transient reason (a retryable {@link PaymentGateway.GatewayException}:
+ * timeouts, a full bulkhead, an open circuit) its requests are queued again for a later
+ * batch, up to {@link #MAX_RESUBMITS} times each, with the same request ids. The
+ * scheduler thread is a daemon, so wait for {@link #flushAll} before exiting: it covers
+ * requests still queued, in flight and waiting to be resubmitted.
+ */
+public class SettlementBatcher {
+    public static final int MAX_RESUBMITS = 5;
+
+    private final PaymentGateway gateway;
+    private final int maxBatchSize;
+    private final long windowMillis;
+    private final Map<ResilientPaymentGateway.Channel, Lane> lanes =
+            new EnumMap<>(ResilientPaymentGateway.Channel.class);
+    private final Set<ResilientPaymentGateway.Channel> flushScheduled =
+            ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService scheduler;
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedItems = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder resubmitted = new LongAdder();
+
+    public SettlementBatcher(PaymentGateway gateway) {
+        this(gateway, 50, Duration.ofSeconds(2));
+    }
+
+    public SettlementBatcher(PaymentGateway gateway, int maxBatchSize, Duration window) {
+        if (maxBatchSize < 1) throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        this.gateway = gateway;
+        this.maxBatchSize = maxBatchSize;
+        this.windowMillis = window.toMillis();
+        for (ResilientPaymentGateway.Channel channel : ResilientPaymentGateway.Channel.values()) {
+            lanes.put(channel, new Lane());
+        }
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "settlement-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Queue the request for the next batch of its channel. */
+    public CompletableFuture<PaymentGateway.Response> submit(PaymentGateway.Request request) {
+        return submit(request, null);
+    }
+
+    /**
+     * Queue the request for the next batch of its channel. {@code onResult} receives the
+     * final response or failure before the request counts as finished for {@link #flushAll}.
+     */
+    public CompletableFuture<PaymentGateway.Response> submit(PaymentGateway.Request request,
+                                                             BiConsumer<PaymentGateway.Response, Throwable> onResult) {
+        Pending pending = new Pending(request, onResult);
+        lanes.get(ResilientPaymentGateway.channelFor(request.paymentMethod())).outstanding.add(pending);
+        enqueue(pending);
+        return pending.result;
+    }
+
+    private void enqueue(Pending pending) {
+        ResilientPaymentGateway.Channel channel = ResilientPaymentGateway.channelFor(pending.request.paymentMethod());
+        Lane lane = lanes.get(channel);
+        lane.queue.add(pending);
+
+        if (lane.size.incrementAndGet() >= maxBatchSize) {
+            scheduler.execute(() -> flush(channel, false));
+        } else {
+            scheduleWindow(channel);
+        }
+    }
+
+    /** Send the request on its own, now. For captures a waiting customer depends on. */
+    public CompletableFuture<PaymentGateway.Response> submitNow(PaymentGateway.Request request) {
+        bypassed.increment();
+        return gateway.submit(request);
+    }
+
+    /**
+     * Send everything queued without waiting for the window; the future completes when
+     * every request submitted so far, whether queued, in flight or waiting to be
+     * resubmitted, has its final answer and its {@code onResult} callback has run.
+     */
+    public CompletableFuture<Void> flushAll() {
+        List<CompletableFuture<?>> outstanding = new ArrayList<>();
+        for (ResilientPaymentGateway.Channel channel : ResilientPaymentGateway.Channel.values()) {
+            for (Pending pending : lanes.get(channel).outstanding) {
+                outstanding.add(pending.finished);
+            }
+            scheduler.execute(() -> flush(channel, true));
+        }
+        return CompletableFuture.allOf(outstanding.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Cut and send batches for the channel. A size trigger only sends full batches (the
+     * window timer will pick up the rest); a window or explicit flush sends everything.
+     * Runs on the scheduler thread only, so a channel's batches are cut in order.
+     */
+    private void flush(ResilientPaymentGateway.Channel channel, boolean includePartial) {
+        Lane lane = lanes.get(channel);
+        while (includePartial || lane.size.get() >= maxBatchSize) {
+            List<Pending> batch = new ArrayList<>(maxBatchSize);
+            Pending next;
+            while (batch.size() < maxBatchSize && (next = lane.queue.poll()) != null) {
+                batch.add(next);
+            }
+            if (batch.isEmpty()) break;
+            lane.size.addAndGet(-batch.size());
+            send(batch);
+        }
+        if (lane.size.get() > 0) scheduleWindow(channel);
+    }
+
+    private void scheduleWindow(ResilientPaymentGateway.Channel channel) {
+        if (!flushScheduled.add(channel)) return;
+        scheduler.schedule(() -> {
+            flushScheduled.remove(channel);
+            flush(channel, true);
+        }, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void send(List<Pending> batch) {
+        batches.increment();
+        batchedItems.add(batch.size());
+        List<PaymentGateway.Request> requests = new ArrayList<>(batch.size());
+        for (Pending pending : batch) requests.add(pending.request);
+
+        CompletableFuture<List<PaymentGateway.Response>> call;
+        try {
+            call = gateway.submitBatch(requests);
+        } catch (RuntimeException e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+        call.whenComplete((responses, error) -> {
+            if (error != null) {
+                failedBatches.increment();
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                boolean transientFailure = cause instanceof PaymentGateway.GatewayException gatewayError
+                        && gatewayError.isRetryable();
+                for (Pending pending : batch) {
+                    if (transientFailure && pending.resubmits < MAX_RESUBMITS) {
+                        pending.resubmits++;
+                        resubmitted.increment();
+                        // Back after a window, not straight into the flush that just failed
+                        scheduler.schedule(() -> enqueue(pending), windowMillis, TimeUnit.MILLISECONDS);
+                    } else {
+                        finish(pending, null, cause);
+                    }
+                }
+                return;
+            }
+            // Match by request id rather than position in case the gateway reorders
+            Map<String, PaymentGateway.Response> byId = new HashMap<>();
+            for (PaymentGateway.Response response : responses) byId.put(response.requestId(), response);
+            for (Pending pending : batch) {
+                PaymentGateway.Response response = byId.get(pending.request.requestId());
+                if (response != null) {
+                    finish(pending, response, null);
+                } else {
+                    finish(pending, null, new PaymentGateway.GatewayException(
+                            "No result for " + pending.request.requestId() + " in settlement batch", false));
+                }
+            }
+        });
+    }
+
+    // Report the final answer: callback first, so flushAll also waits for its effects
+    private void finish(Pending pending, PaymentGateway.Response response, Throwable error) {
+        try {
+            if (pending.onResult != null) pending.onResult.accept(response, error);
+        } catch (RuntimeException e) {
+            System.err.println("Settlement callback failed for " + pending.request.requestId() + ": " + e.getMessage());
+        } finally {
+            if (error != null) {
+                pending.result.completeExceptionally(error);
+            } else {
+                pending.result.complete(response);
+            }
+            lanes.get(ResilientPaymentGateway.channelFor(pending.request.paymentMethod())).outstanding.remove(pending);
+            pending.finished.complete(null);
+        }
+    }
+
+    public int getQueuedCount() {
+        int total = 0;
+        for (Lane lane : lanes.values()) total += lane.size.get();
+        return total;
+    }
+
+    /** Requests without a final answer yet: queued, in flight or waiting to be resubmitted. */
+    public int getOutstandingCount() {
+        int total = 0;
+        for (Lane lane : lanes.values()) total += lane.outstanding.size();
+        return total;
+    }
+
+    public void printMetrics() {
+        long batchCount = batches.sum();
+        System.out.println("\n================ SETTLEMENT BATCHING ================");
+        System.out.printf("Batches: %d | Items: %d | Avg batch: %.1f | Failed batches: %d%n",
+                batchCount, batchedItems.sum(), batchCount == 0 ? 0.0 : (double) batchedItems.sum() / batchCount,
+                failedBatches.sum());
+        System.out.printf("Resubmitted: %d | Bypassed (immediate): %d | Queued now: %d%n",
+                resubmitted.sum(), bypassed.sum(), getQueuedCount());
+        System.out.println("=====================================================\n");
+    }
+
+    private static final class Lane {
+        private final Queue<Pending> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger(); // ConcurrentLinkedQueue.size() is O(n)
+        private final Set<Pending> outstanding = ConcurrentHashMap.newKeySet(); // submitted, not yet finished
+    }
+
+    private static final class Pending {
+        private final PaymentGateway.Request request;
+        private final BiConsumer<PaymentGateway.Response, Throwable> onResult; // null: none
+        private final CompletableFuture<PaymentGateway.Response> result = new CompletableFuture<>();
+        private final CompletableFuture<Void> finished = new CompletableFuture<>(); // after onResult ran
+        private int resubmits; // changed only by the completion of the batch holding it
+
+        Pending(PaymentGateway.Request request, BiConsumer<PaymentGateway.Response, Throwable> onResult) {
+            this.request = request;
+            this.onResult = onResult;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.rentalapp.payment;
+
+public enum SettlementStatus {
+    PENDING,
+    SETTLED,
+    FAILED
+}
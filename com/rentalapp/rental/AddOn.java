@@ -1,31 +1,32 @@
 package com.rentalapp.rental;
 
+import com.rentalapp.payment.Money;
 import java.util.List;
 
+/**
+ * An add-on offered in the catalog, or a quantity of one chosen for a booking.
+ * Instances are immutable: a booking takes a line item via {@link #withCount(int)}
+ * so the shared catalog entry is never changed.
+ */
 public class AddOn {
-    private String name;
-    private String description;
-    private double price;
-    private String unit;        // Unit type (e.g., "pax", "set"), optional
-    private int count;          // Number of units, optional
-    private List<String> suitableFor; 
+    private final String name;
+    private final String description;
+    private final long priceCents;
+    private final String unit;        // Unit type (e.g., "pax", "set"), optional
+    private final int count;          // Number of units, optional
+    private final List<String> suitableFor; 
 
     // ================= Constructors =================
     // Flat price add-ons
     public AddOn(String name, String description, double price, List<String> suitableFor) {
-        this.name = name;
-        this.description = description;
-        this.price = price;
-        this.unit = null;
-        this.count = 1;
-        this.suitableFor = suitableFor;
+        this(name, description, price, null, 1, suitableFor);
     }
 
     // Per-unit add-ons
     public AddOn(String name, String description, double price, String unit, int count, List<String> suitableFor) {
         this.name = name;
         this.description = description;
-        this.price = price;
+        this.priceCents = Money.toCents(price);
         this.unit = unit;
         this.count = count;
         this.suitableFor = suitableFor;
@@ -35,32 +36,35 @@ public class AddOn {
     // ================= Getters =================
     public String getName() { return name; }
     public String getDescription() { return description; }
-    public double getPrice() { return price; }
+    public double getPrice() { return Money.toAmount(priceCents); }
+    public long getPriceCents() { return priceCents; }
     public String getUnit() { return unit; }
     public int getCount() { return count; }
     public List<String> getSuitableFor() { return suitableFor; }
 
-    // ================= Setters =================
-    public void setName(String name) { this.name = name; }
-    public void setDescription(String description) { this.description = description; }
-    public void setPrice(double price) { this.price = price; }
-    public void setUnit(String unit) { this.unit = unit; }
-    public void setCount(int count) { this.count = count; }
-    public void setSuitableFor(List<String> suitableFor) { this.suitableFor = suitableFor;}
-
     // ================= Utility Methods =================
+    /**
+     * Line item for a booking: same add-on, given quantity. Shares all catalog fields.
+     */
+    public AddOn withCount(int count) {
+        return count == this.count ? this : new AddOn(name, description, getPrice(), unit, count, suitableFor);
+    }
+
     public double getTotalPrice() {
-        return price * count;
+        return Money.toAmount(getTotalPriceCents());
+    }
+
+    public long getTotalPriceCents() {
+        return Money.times(priceCents, count);
     }
 
     @Override
     public String toString() {
         if (unit != null && count > 1) {
             return String.format("%s (%s) - RM%.2f x %d %s = RM%.2f", 
-                name, description, price, count, unit, getTotalPrice());
+                name, description, getPrice(), count, unit, getTotalPrice());
         } else {
             return String.format("%s (%s) - RM%.2f", name, description, getTotalPrice());
         }
     }
 }
-
@@ -0,0 +1,52 @@
+package com.rentalapp.rental;
+
+import com.rentalapp.vessel.VesselCategory;
+import java.util.*;
+
+/**
+ * Read-only add-ons indexed by vessel category. Built once when the add-on data is
+ * loaded; lookups return the same unmodifiable list on every call.
+ */
+public class AddOnCatalog {
+    private final List<AddOn> all;
+    private final Map<VesselCategory, List<AddOn>> byCategory = new EnumMap<>(VesselCategory.class);
+
+    public AddOnCatalog(List<AddOn> addOns) {
+        this.all = List.copyOf(addOns);
+
+        Map<VesselCategory, List<AddOn>> building = new EnumMap<>(VesselCategory.class);
+        for (AddOn addOn : all) {
+            if (addOn.getSuitableFor() == null) continue;
+            for (String label : addOn.getSuitableFor()) {
+                VesselCategory category = VesselCategory.fromLabel(label);
+                if (category == null) {
+                    System.err.println("Add-on " + addOn.getName() + " lists unknown vessel category: " + label);
+                    continue;
+                }
+                building.computeIfAbsent(category, c -> new ArrayList<>()).add(addOn);
+            }
+        }
+        building.forEach((category, list) -> byCategory.put(category, List.copyOf(list)));
+    }
+
+    public static AddOnCatalog empty() {
+        return new AddOnCatalog(List.of());
+    }
+
+    public List<AddOn> getAddOnsFor(VesselCategory category) {
+        if (category == null) return List.of();
+        return byCategory.getOrDefault(category, List.of());
+    }
+
+    public List<AddOn> getAddOnsFor(String categoryLabel) {
+        return getAddOnsFor(VesselCategory.fromLabel(categoryLabel));
+    }
+
+    public List<AddOn> getAll() {
+        return all;
+    }
+
+    public int size() {
+        return all.size();
+    }
+}
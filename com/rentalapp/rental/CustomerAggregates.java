@@ -0,0 +1,158 @@
+package com.rentalapp.rental;
+
+import com.rentalapp.payment.Money;
+import com.rentalapp.utils.EpochTime;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-customer running totals (spend, loyalty points, history rows by status, last
+ * rental, completed rentals), updated as history rows and completions are written so
+ * dashboards read them in O(1). {@link #verifyAgainst} compares them with totals
+ * rebuilt from the raw data and {@link #replaceWith} swaps in the rebuilt copy.
+ */
+public class CustomerAggregates {
+    private final Map<String, Aggregate> byCustomer = new ConcurrentHashMap<>();
+
+    // ================= UPDATES =================
+    void onHistoryAdded(RentalHistoryRecord record) {
+        aggregate(record.getCustomerId()).addRow(record);
+    }
+
+    void onStatusChanged(RentalHistoryRecord record, String oldStatus) {
+        aggregate(record.getCustomerId()).changeStatus(record, oldStatus);
+    }
+
+    void onRentalCompleted(String customerId) {
+        aggregate(customerId).addCompleted();
+    }
+
+    private Aggregate aggregate(String customerId) {
+        return byCustomer.computeIfAbsent(customerId, k -> new Aggregate());
+    }
+
+    // ================= QUERIES =================
+    /** Totals for the customer; an empty aggregate if nothing has been recorded. */
+    public Aggregate get(String customerId) {
+        Aggregate aggregate = byCustomer.get(customerId);
+        return aggregate != null ? aggregate : Aggregate.EMPTY;
+    }
+
+    public int size() {
+        return byCustomer.size();
+    }
+
+    // ================= CONSISTENCY =================
+    /**
+     * Totals rebuilt from raw history rows and completed rental records.
+     */
+    static CustomerAggregates rebuild(Iterator<RentalHistoryRecord> history, Collection<RentalRecord> completedRentals) {
+        CustomerAggregates rebuilt = new CustomerAggregates();
+        while (history.hasNext()) {
+            rebuilt.onHistoryAdded(history.next());
+        }
+        for (RentalRecord rental : completedRentals) {
+            if (rental.getStatus() == RentalStatus.COMPLETED) {
+                rebuilt.onRentalCompleted(rental.getCustomerId());
+            }
+        }
+        return rebuilt;
+    }
+
+    /** Customer ids whose totals differ from the expected ones. */
+    List<String> verifyAgainst(CustomerAggregates expected) {
+        Set<String> ids = new TreeSet<>(byCustomer.keySet());
+        ids.addAll(expected.byCustomer.keySet());
+        List<String> mismatched = new ArrayList<>();
+        for (String id : ids) {
+            if (!get(id).sameTotals(expected.get(id))) {
+                mismatched.add(id);
+            }
+        }
+        return mismatched;
+    }
+
+    void replaceWith(CustomerAggregates rebuilt) {
+        byCustomer.keySet().retainAll(rebuilt.byCustomer.keySet());
+        byCustomer.putAll(rebuilt.byCustomer);
+    }
+
+    /**
+     * Running totals for one customer. Updated from the history subscriber thread and the
+     * console thread, so reads and writes go through the object's lock.
+     */
+    public static final class Aggregate {
+        static final Aggregate EMPTY = new Aggregate();
+
+        private long spendCents;          // excludes cancelled rows
+        private long loyaltyPoints;
+        private final Map<String, Integer> rowsByStatus = new HashMap<>(4);
+        private long lastRentalEpoch = EpochTime.NONE;
+        private int completedRentals;
+
+        private synchronized void addRow(RentalHistoryRecord record) {
+            if (!isCancelled(record.getStatus())) {
+                spendCents += Money.toCents(record.getTotalAmount());
+            }
+            loyaltyPoints += record.getLoyaltyPointsEarned();
+            rowsByStatus.merge(String.valueOf(record.getStatus()), 1, Integer::sum);
+
+            LocalDateTime start = record.getScheduledStart();
+            if (start != null) {
+                lastRentalEpoch = Math.max(lastRentalEpoch, EpochTime.toEpochSecond(start));
+            }
+        }
+
+        private synchronized void changeStatus(RentalHistoryRecord record, String oldStatus) {
+            String newStatus = record.getStatus();
+            rowsByStatus.merge(String.valueOf(oldStatus), -1, Integer::sum);
+            rowsByStatus.remove(String.valueOf(oldStatus), 0);
+            rowsByStatus.merge(String.valueOf(newStatus), 1, Integer::sum);
+
+            long cents = Money.toCents(record.getTotalAmount());
+            if (isCancelled(oldStatus) && !isCancelled(newStatus)) spendCents += cents;
+            if (!isCancelled(oldStatus) && isCancelled(newStatus)) spendCents -= cents;
+        }
+
+        private synchronized void addCompleted() {
+            completedRentals++;
+        }
+
+        public synchronized double getTotalSpent() { return Money.toAmount(spendCents); }
+        public synchronized long getLoyaltyPoints() { return loyaltyPoints; }
+        public synchronized int getCompletedRentals() { return completedRentals; }
+        public synchronized LocalDateTime getLastRentalAt() { return EpochTime.fromEpochSecond(lastRentalEpoch); }
+
+        public synchronized int getRowCount(String status) {
+            return rowsByStatus.getOrDefault(status, 0);
+        }
+
+        public synchronized Map<String, Integer> getRowsByStatus() {
+            return new TreeMap<>(rowsByStatus);
+        }
+
+        private boolean sameTotals(Aggregate other) {
+            Map<String, Integer> otherRows;
+            long otherSpend, otherPoints, otherLast;
+            int otherCompleted;
+            synchronized (other) {
+                otherRows = new HashMap<>(other.rowsByStatus);
+                otherSpend = other.spendCents;
+                otherPoints = other.loyaltyPoints;
+                otherLast = other.lastRentalEpoch;
+                otherCompleted = other.completedRentals;
+            }
+            synchronized (this) {
+                return spendCents == otherSpend && loyaltyPoints == otherPoints
+                        && lastRentalEpoch == otherLast && completedRentals == otherCompleted
+                        && rowsByStatus.equals(otherRows);
+            }
+        }
+
+        private static boolean isCancelled(String status) {
+            return "CANCELLED".equalsIgnoreCase(status);
+        }
+    }
+}
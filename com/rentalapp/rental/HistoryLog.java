@@ -0,0 +1,558 @@
+package com.rentalapp.rental;
+
+import com.rentalapp.payment.Money;
+import com.rentalapp.utils.EpochTime;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, segmented log of rental history. Every history row and every status
+ * change is one frame: {@code [int length][int crc32][byte type][payload]}, where the
+ * CRC covers type and payload. Status changes are small delta frames instead of
+ * rewrites of the rows they affect.
+ *
+ * Segments roll at a fixed size. When a segment is sealed its rentalId/customerId
+ * offsets are written to a sidecar {@code .idx} file, so reopening the log only reads
+ * the index files plus the active segment; sealed segments are memory-mapped the
+ * first time a read touches them. Every append is forced to the device before it
+ * returns. A torn frame at the end of a segment (crash mid-write) is truncated on
+ * open; a damaged tail of a sealed segment is first copied to a {@code .damaged} file
+ * and the segment's index is rewritten to match.
+ *
+ * All methods go through this object's lock.
+ */
+public class HistoryLog implements AutoCloseable {
+    public static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+
+    private static final byte ROW = 1;
+    private static final byte STATUS = 2;
+    private static final int HEADER_BYTES = 8; // length + crc
+    private static final int INDEX_MAGIC = 0x48494458; // "HIDX"
+    private static final String PREFIX = "history-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String INDEX_SUFFIX = ".idx";
+
+    // Index entry kinds, as stored in .idx files
+    private static final byte RENTAL_ROW = 1;
+    private static final byte CUSTOMER_ROW = 2;
+    private static final byte RENTAL_STATUS = 3;
+
+    private final Path directory;
+    private final int segmentBytes;
+    private final List<Segment> segments = new ArrayList<>();
+    // Positions pack (segment number << 32 | offset), so they sort in write order
+    private final Map<String, PositionList> rowsByRental = new HashMap<>();
+    private final Map<String, PositionList> rowsByCustomer = new HashMap<>();
+    private final Map<String, PositionList> statusByRental = new HashMap<>();
+    private Segment active;
+    private ByteBuffer frame = ByteBuffer.allocate(512);
+    private final CRC32 crc = new CRC32();
+
+    private HistoryLog(Path directory, long segmentBytes) {
+        if (segmentBytes <= HEADER_BYTES || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between 9 bytes and 2 GB");
+        }
+        this.directory = directory;
+        this.segmentBytes = (int) segmentBytes;
+    }
+
+    public static HistoryLog open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_BYTES);
+    }
+
+    public static HistoryLog open(Path directory, long segmentBytes) throws IOException {
+        Files.createDirectories(directory);
+        HistoryLog log = new HistoryLog(directory, segmentBytes);
+        log.recover();
+        return log;
+    }
+
+    // ================= WRITES =================
+    public synchronized void appendRow(RentalHistoryRecord record) throws IOException {
+        beginFrame(ROW);
+        putString(record.getRentalId());
+        putString(record.getCustomerId());
+        putString(record.getCustomerName());
+        putString(record.getVesselId());
+        putString(record.getVesselModel());
+        putString(record.getVesselType());
+        putString(record.getLocation());
+        putLong(EpochTime.toEpochSecond(record.getScheduledStart()));
+        putLong(EpochTime.toEpochSecond(record.getScheduledEnd()));
+        putLong(EpochTime.toEpochSecond(record.getActualEnd()));
+        Duration duration = record.getDuration();
+        putLong(duration == null ? Long.MIN_VALUE : duration.getSeconds());
+        putLong(Money.toCents(record.getTotalAmount()));
+        putString(record.getPaymentMethod());
+        putString(record.getStatus());
+        putInt(record.getLoyaltyPointsEarned());
+        int offset = writeFrame();
+        active.channel.force(false);
+        indexEntry(active, RENTAL_ROW, record.getRentalId(), offset);
+        indexEntry(active, CUSTOMER_ROW, record.getCustomerId(), offset);
+    }
+
+    /** Record a status change for every row of the rental written so far. */
+    public synchronized void appendStatus(String rentalId, String newStatus) throws IOException {
+        beginFrame(STATUS);
+        putString(rentalId);
+        putString(newStatus);
+        int offset = writeFrame();
+        active.channel.force(false);
+        indexEntry(active, RENTAL_STATUS, rentalId, offset);
+    }
+
+    /** Force written frames to the storage device. */
+    public synchronized void flush() throws IOException {
+        if (active.channel != null) active.channel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        for (Segment segment : segments) {
+            segment.release();
+        }
+    }
+
+    /**
+     * Position just past the last frame written so far. Frames appended later compare
+     * greater, so {@link #readAll(long)} can replay only what was there before.
+     */
+    public synchronized long endPosition() {
+        return ((long) active.number << 32) | active.size;
+    }
+
+    // ================= READS =================
+    /**
+     * The customer's rows in write order, with later status deltas applied. Only frames
+     * listed in the offset index are read, so the cost does not depend on log size.
+     */
+    public synchronized List<RentalHistoryRecord> readCustomer(String customerId) {
+        return readRows(rowsByCustomer.get(customerId));
+    }
+
+    public synchronized List<RentalHistoryRecord> readRental(String rentalId) {
+        return readRows(rowsByRental.get(rentalId));
+    }
+
+    public synchronized boolean containsRental(String rentalId) {
+        return rowsByRental.containsKey(rentalId);
+    }
+
+    /**
+     * Every row written before {@code end} (see {@link #endPosition()}), in write order
+     * with the status deltas written before {@code end} applied; used to hydrate
+     * RentalHistory. The lock is taken one segment at a time so appends and index
+     * lookups are not held up by a full replay.
+     */
+    public List<RentalHistoryRecord> readAll(long end) {
+        List<RentalHistoryRecord> rows = new ArrayList<>();
+        Map<String, List<RentalHistoryRecord>> byRental = new HashMap<>();
+        int endSegment = (int) (end >>> 32);
+        int count;
+        synchronized (this) {
+            count = segments.size();
+        }
+        for (int i = 0; i < count; i++) {
+            synchronized (this) {
+                Segment segment = segments.get(i);
+                if (segment.number > endSegment) break;
+                int limit = segment.number == endSegment ? (int) end : segment.size;
+                replaySegment(segment, limit, rows, byRental);
+            }
+        }
+        return rows;
+    }
+
+    private void replaySegment(Segment segment, int limit, List<RentalHistoryRecord> rows,
+                               Map<String, List<RentalHistoryRecord>> byRental) {
+        ByteBuffer buffer = segment.view();
+        int offset = 0;
+        while (offset < limit) {
+            int length = buffer.getInt(offset);
+            ByteBuffer body = checkedBody(buffer, segment, offset, length);
+            offset += HEADER_BYTES + length;
+            if (body == null) continue;
+
+            if (body.get() == ROW) {
+                RentalHistoryRecord row = decodeRow(body);
+                rows.add(row);
+                byRental.computeIfAbsent(row.getRentalId(), k -> new ArrayList<>(2)).add(row);
+            } else {
+                String rentalId = getString(body);
+                String status = getString(body);
+                for (RentalHistoryRecord row : byRental.getOrDefault(rentalId, Collections.emptyList())) {
+                    row.setStatus(status);
+                }
+            }
+        }
+    }
+
+    public synchronized int getSegmentCount() {
+        return segments.size();
+    }
+
+    public synchronized long getSizeBytes() {
+        long total = 0;
+        for (Segment segment : segments) total += segment.size;
+        return total;
+    }
+
+    private List<RentalHistoryRecord> readRows(PositionList positions) {
+        List<RentalHistoryRecord> rows = new ArrayList<>();
+        if (positions == null) return rows;
+
+        long[] rowPositions = new long[positions.size];
+        for (int i = 0; i < positions.size; i++) {
+            ByteBuffer body = readBody(positions.values[i]);
+            if (body == null || body.get() != ROW) continue;
+            rowPositions[rows.size()] = positions.values[i];
+            rows.add(decodeRow(body));
+        }
+
+        // A delta applies to the rental's rows written before it; deltas are in write order
+        for (int i = 0; i < rows.size(); i++) {
+            RentalHistoryRecord row = rows.get(i);
+            PositionList deltas = statusByRental.get(row.getRentalId());
+            if (deltas == null) continue;
+            for (int d = 0; d < deltas.size; d++) {
+                if (deltas.values[d] < rowPositions[i]) continue;
+                ByteBuffer body = readBody(deltas.values[d]);
+                if (body == null || body.get() != STATUS) continue;
+                getString(body); // rental id
+                row.setStatus(getString(body));
+            }
+        }
+        return rows;
+    }
+
+    private ByteBuffer readBody(long position) {
+        Segment segment = segments.get((int) (position >>> 32) - segments.get(0).number);
+        int offset = (int) position;
+        ByteBuffer buffer = segment.view();
+        return checkedBody(buffer, segment, offset, buffer.getInt(offset));
+    }
+
+    /** The frame's type + payload, or null (with a warning) if its checksum does not match. */
+    private ByteBuffer checkedBody(ByteBuffer buffer, Segment segment, int offset, int length) {
+        ByteBuffer body = buffer.slice(offset + HEADER_BYTES, length);
+        if (checksum(body) != buffer.getInt(offset + 4)) {
+            System.err.println("History log: bad checksum in " + segment.path.getFileName()
+                    + " at offset " + offset + ", frame skipped");
+            return null;
+        }
+        return body;
+    }
+
+    private static RentalHistoryRecord decodeRow(ByteBuffer body) {
+        String rentalId = getString(body);
+        String customerId = getString(body);
+        String customerName = getString(body);
+        String vesselId = getString(body);
+        String vesselModel = getString(body);
+        String vesselType = getString(body);
+        String location = getString(body);
+        long start = body.getLong();
+        long end = body.getLong();
+        long actualEnd = body.getLong();
+        long durationSeconds = body.getLong();
+        long amountCents = body.getLong();
+        String paymentMethod = getString(body);
+        String status = getString(body);
+        int loyaltyPoints = body.getInt();
+        return new RentalHistoryRecord(rentalId, customerId, customerName, vesselId, vesselModel, vesselType, location,
+                EpochTime.fromEpochSecond(start), EpochTime.fromEpochSecond(end), EpochTime.fromEpochSecond(actualEnd),
+                durationSeconds == Long.MIN_VALUE ? null : Duration.ofSeconds(durationSeconds),
+                Money.toAmount(amountCents), paymentMethod, status, loyaltyPoints);
+    }
+
+    // ================= FRAMES =================
+    private void beginFrame(byte type) {
+        frame.clear();
+        frame.position(HEADER_BYTES);
+        frame.put(type);
+    }
+
+    private void putString(String value) {
+        if (value == null) {
+            putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensureCapacity(bytes.length);
+        frame.put(bytes);
+    }
+
+    private void putLong(long value) {
+        ensureCapacity(Long.BYTES);
+        frame.putLong(value);
+    }
+
+    private void putInt(int value) {
+        ensureCapacity(Integer.BYTES);
+        frame.putInt(value);
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (frame.remaining() >= bytes) return;
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(frame.capacity() * 2, frame.position() + bytes));
+        frame.flip();
+        grown.put(frame);
+        frame = grown;
+    }
+
+    /** Checksum and write the frame being built; returns its offset in the active segment. */
+    private int writeFrame() throws IOException {
+        int length = frame.position() - HEADER_BYTES;
+        frame.putInt(0, length);
+        frame.putInt(4, checksum(frame.slice(HEADER_BYTES, length)));
+        frame.flip();
+
+        if (active.size > 0 && (long) active.size + frame.remaining() > segmentBytes) {
+            roll();
+        }
+        int offset = active.size;
+        long position = offset;
+        while (frame.hasRemaining()) {
+            position += active.channel.write(frame, position);
+        }
+        active.size = (int) position;
+        return offset;
+    }
+
+    private static String getString(ByteBuffer body) {
+        int length = body.getInt();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int checksum(ByteBuffer bytes) {
+        crc.reset();
+        crc.update(bytes.duplicate());
+        return (int) crc.getValue();
+    }
+
+    // ================= SEGMENTS / INDEX =================
+    private void recover() throws IOException {
+        List<Integer> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(p -> p.getFileName().toString())
+                 .filter(n -> n.startsWith(PREFIX) && n.endsWith(SEGMENT_SUFFIX))
+                 .forEach(n -> numbers.add(Integer.parseInt(n.substring(PREFIX.length(), n.length() - SEGMENT_SUFFIX.length()))));
+        }
+        Collections.sort(numbers);
+
+        for (int i = 0; i < numbers.size(); i++) {
+            Segment segment = new Segment(numbers.get(i), segmentPath(numbers.get(i)));
+            segments.add(segment);
+            boolean last = i == numbers.size() - 1;
+            if (last || !loadIndex(segment)) {
+                scan(segment, last);
+                if (!last) {
+                    writeIndex(segment);
+                    segment.pending = null;
+                }
+            }
+        }
+        if (segments.isEmpty()) {
+            Segment first = new Segment(1, segmentPath(1));
+            segments.add(first);
+        }
+        active = segments.get(segments.size() - 1);
+        active.openForAppend();
+    }
+
+    private void roll() throws IOException {
+        active.channel.force(false);
+        writeIndex(active);
+        active.pending = null;
+        active.release();
+
+        Segment next = new Segment(active.number + 1, segmentPath(active.number + 1));
+        segments.add(next);
+        next.openForAppend();
+        active = next;
+    }
+
+    /**
+     * Index every valid frame of the segment and truncate a torn or corrupt tail. Past
+     * the active segment that tail may hide later frames, so it is kept in a
+     * {@code .damaged} file for inspection first.
+     */
+    private void scan(Segment segment, boolean active) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long fileSize = channel.size();
+            ByteBuffer buffer = fileSize == 0 ? ByteBuffer.allocate(0)
+                    : channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            int offset = 0;
+            while (offset + HEADER_BYTES < fileSize) {
+                int length = buffer.getInt(offset);
+                if (length <= 0 || offset + HEADER_BYTES + (long) length > fileSize) break;
+                ByteBuffer body = buffer.slice(offset + HEADER_BYTES, length);
+                if (checksum(body) != buffer.getInt(offset + 4)) break;
+
+                byte type = body.get();
+                String rentalId = getString(body);
+                if (type == ROW) {
+                    indexEntry(segment, RENTAL_ROW, rentalId, offset);
+                    indexEntry(segment, CUSTOMER_ROW, getString(body), offset);
+                } else {
+                    indexEntry(segment, RENTAL_STATUS, rentalId, offset);
+                }
+                offset += HEADER_BYTES + length;
+            }
+            if (offset < fileSize) {
+                if (active) {
+                    System.err.println("History log: truncating " + (fileSize - offset) + " bytes of incomplete data in "
+                            + segment.path.getFileName());
+                } else {
+                    Path damaged = segment.path.resolveSibling(segment.path.getFileName() + ".damaged");
+                    try (FileChannel out = FileChannel.open(damaged, StandardOpenOption.CREATE,
+                            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                        long copied = 0;
+                        while (copied < fileSize - offset) {
+                            copied += channel.transferTo(offset + copied, fileSize - offset - copied, out);
+                        }
+                        out.force(false);
+                    }
+                    System.err.println("History log: " + segment.path.getFileName() + " is damaged after offset "
+                            + offset + "; the remaining " + (fileSize - offset) + " bytes were moved to "
+                            + damaged.getFileName());
+                }
+                channel.truncate(offset);
+                channel.force(true);
+            }
+            segment.size = offset;
+        }
+    }
+
+    private void indexEntry(Segment segment, byte kind, String key, int offset) {
+        if (key == null) return;
+        Map<String, PositionList> target = switch (kind) {
+            case RENTAL_ROW -> rowsByRental;
+            case CUSTOMER_ROW -> rowsByCustomer;
+            default -> statusByRental;
+        };
+        target.computeIfAbsent(key, k -> new PositionList()).add(((long) segment.number << 32) | offset);
+        if (segment.pending != null) {
+            segment.pending.add(new IndexEntry(kind, key, offset));
+        }
+    }
+
+    /** Layout: magic, valid segment bytes, entry count, then (kind, key, offset) per entry. */
+    private void writeIndex(Segment segment) throws IOException {
+        Path target = indexPath(segment.number);
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(segment.size);
+            out.writeInt(segment.pending.size());
+            for (IndexEntry entry : segment.pending) {
+                out.writeByte(entry.kind());
+                out.writeUTF(entry.key());
+                out.writeInt(entry.offset());
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private boolean loadIndex(Segment segment) {
+        Path path = indexPath(segment.number);
+        if (!Files.exists(path)) return false;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), 64 * 1024))) {
+            if (in.readInt() != INDEX_MAGIC) return false;
+            int size = in.readInt();
+            if (size != Files.size(segment.path)) return false;
+            int entries = in.readInt();
+            List<IndexEntry> loaded = new ArrayList<>(entries);
+            for (int i = 0; i < entries; i++) {
+                loaded.add(new IndexEntry(in.readByte(), in.readUTF(), in.readInt()));
+            }
+            segment.size = size;
+            segment.pending = null;
+            for (IndexEntry entry : loaded) {
+                indexEntry(segment, entry.kind(), entry.key(), entry.offset());
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("History log: ignoring unreadable index " + path.getFileName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Path segmentPath(int number) {
+        return directory.resolve(String.format("%s%08d%s", PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private Path indexPath(int number) {
+        return directory.resolve(String.format("%s%08d%s", PREFIX, number, INDEX_SUFFIX));
+    }
+
+    private record IndexEntry(byte kind, String key, int offset) {}
+
+    private static final class Segment {
+        private final int number;
+        private final Path path;
+        private int size;
+        private FileChannel channel;          // open only while the segment is active
+        private ByteBuffer mapped;            // read view, mapped on first read
+        private List<IndexEntry> pending = new ArrayList<>(); // entries for the .idx written when sealed
+
+        Segment(int number, Path path) {
+            this.number = number;
+            this.path = path;
+        }
+
+        void openForAppend() throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (pending == null) pending = new ArrayList<>();
+        }
+
+        /**
+         * Mapped view covering every written byte. The active segment is remapped when it
+         * has grown since the last read; sealed segments are mapped once.
+         */
+        ByteBuffer view() {
+            if (mapped == null || mapped.capacity() < size) {
+                try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+                    mapped = size == 0 ? ByteBuffer.allocate(0) : reader.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Cannot map history segment " + path.getFileName(), e);
+                }
+            }
+            return mapped;
+        }
+
+        void release() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+    }
+
+    /** Growable long array of packed positions, appended in increasing order. */
+    private static final class PositionList {
+        private long[] values = new long[2];
+        private int size;
+
+        void add(long position) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = position;
+        }
+    }
+}
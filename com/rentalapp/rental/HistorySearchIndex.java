@@ -0,0 +1,184 @@
+package com.rentalapp.rental;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Inverted keyword index over history rows. Rows are identified by their position in
+ * RentalHistory's insertion-ordered list, so a higher id is a newer row. Text fields
+ * (rental id, customer name, vessel model/type, payment method) are tokenised into
+ * sorted posting lists; the status, which changes after insert, is kept as one bit
+ * set per status so a transition is two bit flips.
+ *
+ * Not thread-safe: RentalHistory calls it under its own lock.
+ */
+class HistorySearchIndex {
+    private static final int REBUILD_CHUNK = 4096;
+
+    private final NavigableMap<String, IntList> postings = new TreeMap<>();
+    private final Map<String, BitSet> statusBits = new HashMap<>();
+    private int size;
+
+    void add(int rowId, RentalHistoryRecord record) {
+        for (String token : tokens(record)) {
+            postings.computeIfAbsent(token, k -> new IntList()).addIfLast(rowId);
+        }
+        setStatus(rowId, null, record.getStatus());
+        size = Math.max(size, rowId + 1);
+    }
+
+    void setStatus(int rowId, String oldStatus, String newStatus) {
+        if (oldStatus != null) {
+            BitSet bits = statusBits.get(oldStatus.toLowerCase());
+            if (bits != null) bits.clear(rowId);
+        }
+        if (newStatus != null) {
+            statusBits.computeIfAbsent(newStatus.toLowerCase(), k -> new BitSet()).set(rowId);
+        }
+    }
+
+    /**
+     * Row ids matching every query token (each as a prefix of some field token), newest first,
+     * skipping the first {@code offset} matches and returning at most {@code limit}.
+     */
+    int[] search(String query, int offset, int limit) {
+        BitSet matches = match(query);
+        if (matches == null || limit <= 0) return new int[0];
+
+        int[] page = new int[Math.min(limit, matches.cardinality())];
+        int found = 0;
+        int skipped = 0;
+        for (int id = matches.previousSetBit(size - 1); id >= 0 && found < page.length; id = matches.previousSetBit(id - 1)) {
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page[found++] = id;
+            }
+        }
+        return found == page.length ? page : Arrays.copyOf(page, found);
+    }
+
+    int count(String query) {
+        BitSet matches = match(query);
+        return matches == null ? 0 : matches.cardinality();
+    }
+
+    private BitSet match(String query) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) return null;
+
+        BitSet result = null;
+        for (String token : queryTokens) {
+            BitSet tokenMatches = new BitSet(size);
+            for (IntList list : postings.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                list.setBits(tokenMatches);
+            }
+            for (Map.Entry<String, BitSet> status : statusBits.entrySet()) {
+                if (status.getKey().startsWith(token)) {
+                    tokenMatches.or(status.getValue());
+                }
+            }
+            if (result == null) {
+                result = tokenMatches;
+            } else {
+                result.and(tokenMatches);
+            }
+            if (result.isEmpty()) return null;
+        }
+        return result;
+    }
+
+    /**
+     * Replace the index with one built from the rows, tokenising chunks in parallel and
+     * merging the per-chunk postings in row order so every list stays sorted.
+     */
+    void rebuild(List<RentalHistoryRecord> rows) {
+        postings.clear();
+        statusBits.clear();
+        size = 0;
+
+        int chunks = (rows.size() + REBUILD_CHUNK - 1) / REBUILD_CHUNK;
+        List<Map<String, IntList>> partials = IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> {
+                    Map<String, IntList> local = new HashMap<>();
+                    int end = Math.min(rows.size(), (c + 1) * REBUILD_CHUNK);
+                    for (int id = c * REBUILD_CHUNK; id < end; id++) {
+                        for (String token : tokens(rows.get(id))) {
+                            local.computeIfAbsent(token, k -> new IntList()).addIfLast(id);
+                        }
+                    }
+                    return local;
+                })
+                .toList();
+
+        for (Map<String, IntList> partial : partials) {
+            partial.forEach((token, ids) -> postings.computeIfAbsent(token, k -> new IntList()).addAll(ids));
+        }
+        for (int id = 0; id < rows.size(); id++) {
+            setStatus(id, null, rows.get(id).getStatus());
+        }
+        size = rows.size();
+    }
+
+    int getTokenCount() {
+        return postings.size();
+    }
+
+    // ================= TOKENISING =================
+    private static Set<String> tokens(RentalHistoryRecord record) {
+        Set<String> tokens = new HashSet<>();
+        addTokens(tokens, record.getRentalId());
+        addTokens(tokens, record.getCustomerName());
+        addTokens(tokens, record.getVesselModel());
+        addTokens(tokens, record.getVesselType());
+        addTokens(tokens, record.getPaymentMethod());
+        return tokens;
+    }
+
+    private static void addTokens(Set<String> tokens, String field) {
+        if (field == null) return;
+        tokens.addAll(tokenize(field));
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean letterOrDigit = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /** Growable sorted int array; ids are appended in increasing order. */
+    private static final class IntList {
+        private int[] ids = new int[4];
+        private int length;
+
+        void addIfLast(int id) {
+            if (length > 0 && ids[length - 1] >= id) return;
+            if (length == ids.length) ids = Arrays.copyOf(ids, length * 2);
+            ids[length++] = id;
+        }
+
+        void addAll(IntList other) {
+            if (length + other.length > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(ids.length * 2, length + other.length));
+            }
+            System.arraycopy(other.ids, 0, ids, length, other.length);
+            length += other.length;
+        }
+
+        void setBits(BitSet bits) {
+            for (int i = 0; i < length; i++) {
+                bits.set(ids[i]);
+            }
+        }
+    }
+}
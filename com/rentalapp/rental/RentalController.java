@@ -4,9 +4,13 @@ import com.rentalapp.auth.Customer;
 import com.rentalapp.auth.MemberCustomer;
 import com.rentalapp.loyalty.LoyaltyAccount;
 import com.rentalapp.loyalty.LoyaltyPointManager;
+import com.rentalapp.payment.Money;
 import com.rentalapp.payment.PaymentManager;
+import com.rentalapp.payment.PriceQuote;
+import com.rentalapp.payment.PricingRules;
 import com.rentalapp.payment.Receipt;
 import com.rentalapp.vessel.Vessel;
+import com.rentalapp.vessel.VesselCategory;
 import com.rentalapp.vessel.VesselManager;
 import com.rentalapp.payment.PaymentCalculator;
 
@@ -228,119 +232,196 @@ public class RentalController {
             System.out.println("\nStep 2: Rental Details");
             System.out.println("═".repeat(50));
             
-            RentalRequest request = createRentalRequest(vesselId, customer);
+            // One key per submission, reused by every retry below. A failed attempt has not
+            // reserved the vessel, so a retry starts clean; once one succeeds, the same key
+            // returns that booking instead of making a second one
+            String idempotencyKey = java.util.UUID.randomUUID().toString();
+            RentalRequest request = createRentalRequest(vesselId, customer, idempotencyKey);
             if (request == null) {
                 return; // User cancelled or invalid input
             }
             
-            // Step 3: Calculate and show cost breakdown
-            System.out.println("\nStep 3: Cost Calculation");
-            System.out.println("═".repeat(50));
-            
-            double totalAmount = showRentalCostBreakdown(request, selectedVessel, customer);
-            request.setTotalCost(totalAmount);
+            bookRequest(request, selectedVessel, customer, true);
+        } catch (Exception e) {
+            System.out.println("An error occurred while processing your rental: " + e.getMessage());
+        }
+        
+        pauseForUser();
+    }
 
-            System.out.print("\nProceed with this rental? (y/n): ");
-            String confirm = scanner.nextLine().trim().toLowerCase();
-            
-            if (!confirm.equals("y") && !confirm.equals("yes")) {
-                System.out.println("Rental cancelled.");
-                pauseForUser();
-                return;
+    /**
+     * Steps 3-8 of a booking: show the quote, confirm, create the rental, take payment
+     * and award points. Returns the paid rental, or null if the customer stopped or
+     * anything failed.
+     */
+    private RentalRecord bookRequest(RentalRequest request, Vessel selectedVessel, Customer customer,
+                                     boolean waitlistIfUnavailable) {
+        // Step 3: Calculate and show cost breakdown
+        System.out.println("\nStep 3: Cost Calculation");
+        System.out.println("═".repeat(50));
+        
+        double totalAmount = showRentalCostBreakdown(request, selectedVessel, customer);
+        request.setTotalCost(totalAmount);
+
+        System.out.print("\nProceed with this rental? (y/n): ");
+        String confirm = scanner.nextLine().trim().toLowerCase();
+        
+        if (!confirm.equals("y") && !confirm.equals("yes")) {
+            System.out.println("Rental cancelled.");
+            return null;
+        }
+        
+        // Step 4: Process the rental
+        System.out.println("\nStep 4: Processing Rental");
+        System.out.println("═".repeat(50));
+        
+        showLoadingMessage("Creating rental record");
+        
+        RentalRecord rental = null;
+        while (true) {
+            try {
+                rental = rentalService.processRental(request, customer, waitlistIfUnavailable);
+                break;
+            } catch (RuntimeException e) {
+                System.err.println("Error creating rental: " + e.getMessage());
+                System.out.print("Retry this booking? (y/n): ");
+                String retry = scanner.nextLine().trim().toLowerCase();
+                if (!retry.equals("y") && !retry.equals("yes")) {
+                    break;
+                }
+                showLoadingMessage("Retrying rental");
             }
-            
-            // Step 4: Process the rental
-            System.out.println("\nStep 4: Processing Rental");
-            System.out.println("═".repeat(50));
-            
-            showLoadingMessage("Creating rental record");
-            
-            RentalRecord rental = rentalService.processRental(request, customer);
-            if (rental == null) {
+        }
+        if (rental == null) {
+            boolean waitlisted = rentalService.getWaitlist().getCustomerEntries(customer.getCustomerId()).stream()
+                    .anyMatch(e -> e.getRequest() == request && e.getState() == Waitlist.State.WAITING);
+            if (!waitlisted) {
                 System.out.println("Failed to process rental. Please try again.");
-                pauseForUser();
-                return;
             }
+            return null;
+        }
 
-            // Step 5: Process payment
-            System.out.println("\nStep 5: Payment Processing");
-            System.out.println("═".repeat(50));
-
-            PaymentInput paymentInput = collectPaymentInput(rental.getTotalCost());
-            Receipt receipt = paymentManager.processPayment(
-            rental,
-            customer,
-            paymentInput.paymentMethod(),
-            paymentInput.maskedCard(),      // pass null if E-Wallet
-            paymentInput.eWalletPhone()     // pass null if card
-            );
+        // Step 5: Process payment
+        System.out.println("\nStep 5: Payment Processing");
+        System.out.println("═".repeat(50));
+
+        PaymentInput paymentInput = collectPaymentInput(rental.getTotalCost());
+        Receipt receipt = paymentManager.processPayment(
+        rental,
+        customer,
+        paymentInput.paymentMethod(),
+        paymentInput.maskedCard(),      // pass null if E-Wallet
+        paymentInput.eWalletPhone()     // pass null if card
+        );
 
-            if (receipt == null) {
-                rentalService.cancelRental(rental);
-                System.out.println("Payment failed. Rental has been cancelled.");
-                pauseForUser();
-                return;
-            }
-            
-             rental.setPaymentMethod(paymentInput.paymentMethod());
+        if (receipt == null) {
+            rentalService.cancelRental(rental);
+            System.out.println("Payment failed. Rental has been cancelled.");
+            return null;
+        }
+        
+         rental.setPaymentMethod(paymentInput.paymentMethod());
 
-            
-            // Step 6: Update customer rental history
-            customer.addRentalRecord(rental.getRentalId());
-            
-            // Step 7: Apply loyalty points for member customers
-            if (customer instanceof MemberCustomer memberCustomer) {
-            LoyaltyAccount account = loyaltyPointManager.getLoyaltyAccount(memberCustomer.getCustomerId());
-            if (account == null) {
-            account = loyaltyPointManager.createLoyaltyAccount(
-            memberCustomer.getCustomerId(),
-            memberCustomer.getName()
-        );
-    }
+        
+        // Step 6: Update customer rental history
+        customer.addRentalRecord(rental.getRentalId());
+        
+        // Step 7: Apply loyalty points for member customers
+        if (customer instanceof MemberCustomer memberCustomer) {
+        LoyaltyAccount account = loyaltyPointManager.getLoyaltyAccount(memberCustomer.getCustomerId());
+        if (account == null) {
+        account = loyaltyPointManager.createLoyaltyAccount(
+        memberCustomer.getCustomerId(),
+        memberCustomer.getName()
+    );
+}
 
-            int pointsEarned = loyaltyPointManager.getPointsForVessel(selectedVessel.getVesselCategory());
+        int pointsEarned = loyaltyPointManager.getPointsForVessel(selectedVessel.getVesselCategory());
 
-            if (account.isVipMember()) {
-                pointsEarned = (int) Math.round(pointsEarned * 1.15);
-            }
+        if (account.isVipMember()) {
+            pointsEarned = (int) Math.round(pointsEarned * 1.15);
+        }
 
-           loyaltyPointManager.addPoints(
-           memberCustomer.getCustomerId(),
-           pointsEarned,
-           "RENTAL_POINTS",
-           "Points earned from renting " + selectedVessel.getVesselType()
-         );
+       loyaltyPointManager.addPoints(
+       memberCustomer.getCustomerId(),
+       pointsEarned,
+       "RENTAL_POINTS",
+       "Points earned from renting " + selectedVessel.getVesselType()
+     );
 
-            account.incrementRentalCount();
+        account.incrementRentalCount();
 
-           System.out.println("\nLoyalty Points Earned: " + pointsEarned);
-           System.out.println("Total Loyalty Points: " + account.getCurrentPoints());
+       System.out.println("\nLoyalty Points Earned: " + pointsEarned);
+       System.out.println("Total Loyalty Points: " + account.getCurrentPoints());
 }
-            
-            // Step 8: Show rental confirmation
-            System.out.println("\nVESSEL RENTAL CONFIRMED");
-            System.out.println("═".repeat(50));
-            
-            DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-
-            System.out.println("Rental ID: " + rental.getRentalId());
-            System.out.println("Vessel: " + selectedVessel.getVesselType());
-            System.out.println("Location: " + selectedVessel.getLocation());
-            System.out.println("Schedule: " + rental.getScheduledStart().format(dtf) + " to " + rental.getScheduledEnd().format(dtf));
-            // Show duration from RentalRecord (hours/minutes)
-            long dh = rental.getDuration().toHours();
-            long dm = rental.getDuration().toMinutesPart();
-            System.out.println("Duration: " + dh + "h " + dm + "m");
-            System.out.println("Total Cost: RM" + String.format("%.2f", rental.getTotalCost()));
-            System.out.println("Payment Processed Successfully!");
         
-            System.out.println("\nPlease save your rental ID for future reference.");
-            System.out.println("Receipt has been generated for your records.");
-            
-        } catch (Exception e) {
-            System.out.println("An error occurred while processing your rental: " + e.getMessage());
-        }
+        // Step 8: Show rental confirmation
+        System.out.println("\nVESSEL RENTAL CONFIRMED");
+        System.out.println("═".repeat(50));
         
+        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+        System.out.println("Rental ID: " + rental.getRentalId());
+        System.out.println("Vessel: " + selectedVessel.getVesselType());
+        System.out.println("Location: " + selectedVessel.getLocation());
+        System.out.println("Schedule: " + rental.getScheduledStart().format(dtf) + " to " + rental.getScheduledEnd().format(dtf));
+        // Show duration from RentalRecord (hours/minutes)
+        long dh = rental.getDuration().toHours();
+        long dm = rental.getDuration().toMinutesPart();
+        System.out.println("Duration: " + dh + "h " + dm + "m");
+        System.out.println("Total Cost: RM" + String.format("%.2f", rental.getTotalCost()));
+        System.out.println("Payment Processed Successfully!");
+    
+        System.out.println("\nPlease save your rental ID for future reference.");
+        System.out.println("Receipt has been generated for your records.");
+        return rental;
+    }
+
+    /**
+     * Vessels released for the customer's waitlisted requests. Nothing is reserved:
+     * each offer shows the vessel and its current price, and the customer books it
+     * through the normal confirm-and-pay steps or leaves the waitlist.
+     */
+    public void reviewWaitlistOffers(Customer customer) {
+        List<Waitlist.Entry> offers = rentalService.getWaitlistOffers(customer.getCustomerId());
+        if (offers.isEmpty()) return;
+
+        clearScreen();
+        showHeader("WAITLIST OFFERS");
+        DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        for (Waitlist.Entry entry : offers) {
+            RentalRequest original = entry.getRequest();
+            Vessel vessel = vesselManager.getVesselById(entry.getOfferedVesselId());
+            System.out.println("\nWaitlist " + entry.getEntryId() + ": a " + entry.getCategory() + " at "
+                    + entry.getLocation() + " is free for " + original.getScheduledStart().format(dtf) + ".");
+            if (vessel == null || !vessel.isAvailable()) {
+                System.out.println("It was booked before you could confirm. You keep your place in line.");
+                rentalService.returnWaitlistOffer(entry);
+                continue;
+            }
+            if (!vessel.getId().equals(original.getVesselId())) {
+                System.out.println("Offered vessel: " + vessel.getVesselType() + " (" + vessel.getId()
+                        + "), not the " + original.getVesselId() + " you originally asked for.");
+            }
+            System.out.print("Book it now at today's price? (y = book / n = leave the waitlist): ");
+            String answer = scanner.nextLine().trim().toLowerCase();
+            if (!answer.equals("y") && !answer.equals("yes")) {
+                rentalService.declineWaitlistOffer(entry);
+                System.out.println("You have left the waitlist for " + entry.getCategory() + " at " + entry.getLocation() + ".");
+                continue;
+            }
+
+            RentalRequest request = new RentalRequest(customer.getCustomerId(), vessel.getId(), vessel.getLocation(),
+                    original.getScheduledStart(), original.getScheduledEnd(), original.getDuration());
+            request.setAddOns(original.getAddOns());
+            request.setIdempotencyKey(java.util.UUID.randomUUID().toString());
+            if (bookRequest(request, vessel, customer, false) != null) {
+                rentalService.acceptWaitlistOffer(entry);
+            } else {
+                rentalService.returnWaitlistOffer(entry);
+                System.out.println("Your waitlist request " + entry.getEntryId() + " is still open.");
+            }
+        }
         pauseForUser();
     }
     
@@ -413,20 +494,20 @@ public void processVesselReturn(Customer customer) {
 
         rental.setActualEnd(actualReturn);
 
-        double extensionFee = 0.0;
-        double additionalFee = 0.0;
+        long extensionFee = 0;
+        long additionalFee = 0;
         String paymentMethod = rental.getPaymentMethod();
 
         // === Step 2: Handle overdue/extended rental ===
         if (actualReturn.isAfter(rental.getScheduledEnd())) {
             Duration overdueDuration = Duration.between(rental.getScheduledEnd(), actualReturn);
-            extensionFee = paymentCalculator.calculateExtensionCost(rental.getVesselCategory(), overdueDuration);
+            extensionFee = paymentCalculator.calculateExtensionCents(rental.getVesselCategory(), overdueDuration.toHours());
 
             System.out.println("\n LATE RETURN DETECTED!");
             System.out.println("Scheduled End: " + rental.getScheduledEnd().format(formatter));
             System.out.println("Actual Return: " + actualReturn.format(formatter));
             System.out.println("Overdue by: " + overdueDuration.toHours() + " hours " + (overdueDuration.toMinutes() % 60) + " minutes");
-            System.out.println("Late Return Fee: RM" + String.format("%.2f", extensionFee));
+            System.out.println("Late Return Fee: " + Money.format(extensionFee));
 
         } else if (actualReturn.isBefore(rental.getScheduledEnd())) {
             System.out.println("\n EARLY RETURN");
@@ -443,23 +524,23 @@ public void processVesselReturn(Customer customer) {
         String hasAdditionalCharges = scanner.nextLine().trim().toLowerCase();
 
         if (hasAdditionalCharges.equals("y") || hasAdditionalCharges.equals("yes")) {
-            additionalFee = selectDamageFee();
+            additionalFee = Money.toCents(selectDamageFee());
             
             if (additionalFee > 0) {
-                System.out.printf("\nSelected damage fee: RM%.2f\n", additionalFee);
+                System.out.println("\nSelected damage fee: " + Money.format(additionalFee));
         }
     }
          // === Step 4: Final Payment (Combined) === 
-        double totalPayment = extensionFee + additionalFee;
+        long totalPayment = extensionFee + additionalFee;
 
         if (totalPayment > 0) {
             System.out.println("\n" + "═".repeat(50));
             System.out.println("PAYMENT SUMMARY");
             System.out.println("═".repeat(50));
-            if (extensionFee > 0) System.out.printf("Late Return Fee : RM%.2f\n", extensionFee);
-            if (additionalFee > 0) System.out.printf("Damage Fee      : RM%.2f\n", additionalFee);
+            if (extensionFee > 0) System.out.println("Late Return Fee : " + Money.format(extensionFee));
+            if (additionalFee > 0) System.out.println("Damage Fee      : " + Money.format(additionalFee));
                 System.out.println("----------------------------------------");
-                System.out.printf("TOTAL PAYMENT   : RM%.2f\n", totalPayment);
+                System.out.println("TOTAL PAYMENT   : " + Money.format(totalPayment));
                 System.out.println("═".repeat(50));
 
         System.out.print("Proceed with payment? (y/n): ");
@@ -470,11 +551,11 @@ public void processVesselReturn(Customer customer) {
             return;
         }
 
-        PaymentInput paymentInput = collectPaymentInput(totalPayment);
+        PaymentInput paymentInput = collectPaymentInput(Money.toAmount(totalPayment));
         Receipt receipt = paymentManager.processCustomPayment(
             rental,
             customer,
-            totalPayment,
+            Money.toAmount(totalPayment),
             paymentInput.paymentMethod(),
             paymentInput.maskedCard(),
             paymentInput.eWalletPhone()
@@ -490,10 +571,10 @@ public void processVesselReturn(Customer customer) {
         rental.setPaymentMethod(paymentMethod);
 
          if (extensionFee > 0) {
-            rental.addExtensionFee(extensionFee);
+            rental.addExtensionFeeCents(extensionFee);
     }
         if (additionalFee > 0) {
-            rental.setDamageFee(additionalFee); 
+            rental.setDamageFeeCents(additionalFee); 
     }
 
     rental.recalculateTotalCost();
@@ -627,9 +708,9 @@ public void processVesselReturn(Customer customer) {
         }
         
         String vesselCategory = rental.getVesselCategory();
-        double extensionCost = paymentCalculator.calculateExtensionCost(vesselCategory, extensionDuration);
+        long extensionCost = paymentCalculator.calculateExtensionCents(vesselCategory, additionalHours);
 
-        System.out.println("\nExtension Cost: RM" + String.format("%.2f", extensionCost));
+        System.out.println("\nExtension Cost: " + Money.format(extensionCost));
         System.out.print("Proceed with extension? (y/n): ");
 
         String confirm = scanner.nextLine().trim().toLowerCase();
@@ -640,7 +721,7 @@ public void processVesselReturn(Customer customer) {
         }
 
         // Ask payment method
-        PaymentInput paymentInput = collectPaymentInput(extensionCost);
+        PaymentInput paymentInput = collectPaymentInput(Money.toAmount(extensionCost));
 
         Receipt extensionReceipt = paymentManager.processExtensionPayment(
                 rental,
@@ -660,12 +741,12 @@ public void processVesselReturn(Customer customer) {
 
         // ✅ Extend rental if payment succeeds
         if (rentalService.extendRental(rental.getRentalId(), extensionDuration)) {
-            rental.addExtensionFee(extensionCost);
+            rental.addExtensionFeeCents(extensionCost);
             rental.recalculateTotalCost();
             System.out.println("\nRental Extension payment processed successfully!");
             System.out.println("Additional duration: " + additionalHours + " hours");
-            System.out.println("Additional cost: RM" + extensionCost);
-            System.out.println("New total cost: RM" + rental.getTotalCost());
+            System.out.println("Additional cost: " + Money.format(extensionCost));
+            System.out.println("New total cost: " + Money.format(rental.getTotalCostCents()));
         } else {
            System.out.println("Failed to extend rental. Please contact support.");
         }
@@ -824,32 +905,23 @@ private double selectDamageFee() {
     System.out.println("DAMAGE FEE SELECTION");
     System.out.println("═".repeat(50));
     
-    // Define damage categories and severities
-    String[][] damageOptions = {
-        {"MINOR", "LIGHT", "Minor Damage - Light", "200.00"},
-        {"MINOR", "MODERATE", "Minor Damage - Moderate", "300.00"},
-        {"MINOR", "SEVERE", "Minor Damage - Severe", "400.00"},
-        {"MAJOR", "LIGHT", "Major Damage - Light", "5000.00"},
-        {"MAJOR", "MODERATE", "Major Damage - Moderate", "7500.00"},
-        {"MAJOR", "SEVERE", "Major Damage - Severe", "10000.00"},
-        {"CLEANING", "LIGHT", "Cleaning Fee - Light", "200.00"},
-        {"CLEANING", "MODERATE", "Cleaning Fee - Moderate", "300.00"},
-        {"CLEANING", "SEVERE", "Cleaning Fee - Severe", "400.00"},
-        {"LOST_EQUIPMENT", "LIGHT", "Lost Equipment - Light", "150.00"},
-        {"LOST_EQUIPMENT", "MODERATE", "Lost Equipment - Moderate", "225.00"},
-        {"LOST_EQUIPMENT", "SEVERE", "Lost Equipment - Severe", "300.00"}
-    };
-    
+    // Damage type x severity, priced from the pricing rules
+    PricingRules.DamageType[] types = PricingRules.DamageType.values();
+    PricingRules.Severity[] severities = PricingRules.Severity.values();
+    int optionCount = types.length * severities.length;
+
     System.out.println("Select damage type and severity:");
-    for (int i = 0; i < damageOptions.length; i++) {
-        System.out.printf("%2d. %-25s - RM%s\n", 
-            i + 1, 
-            damageOptions[i][2], 
-            damageOptions[i][3]);
+    for (int i = 0; i < optionCount; i++) {
+        PricingRules.DamageType type = types[i / severities.length];
+        PricingRules.Severity severity = severities[i % severities.length];
+        System.out.printf("%2d. %-25s - %s\n",
+            i + 1,
+            type.getLabel() + " - " + severity.getLabel(),
+            Money.format(paymentCalculator.getRules().damageFeeCents(type, severity)));
     }
     System.out.println(" 0. No damage charges");
     
-    System.out.print("\nEnter your choice (0-" + damageOptions.length + "): ");
+    System.out.print("\nEnter your choice (0-" + optionCount + "): ");
     
     try {
         int choice = Integer.parseInt(scanner.nextLine().trim());
@@ -858,18 +930,17 @@ private double selectDamageFee() {
             return 0.0;
         }
         
-        if (choice < 1 || choice > damageOptions.length) {
+        if (choice < 1 || choice > optionCount) {
             System.out.println("Invalid selection.");
             return 0.0;
         }
         
-        String damageType = damageOptions[choice - 1][0];
-        String severity = damageOptions[choice - 1][1];
+        PricingRules.DamageType damageType = types[(choice - 1) / severities.length];
+        PricingRules.Severity severity = severities[(choice - 1) % severities.length];
         
-        // Calculate fee using PaymentCalculator
-        double calculatedFee = paymentCalculator.calculateDamageFee(damageType, severity);
+        double calculatedFee = Money.toAmount(paymentCalculator.getRules().damageFeeCents(damageType, severity));
         
-        System.out.println("\nSelected: " + damageOptions[choice - 1][2]);
+        System.out.println("\nSelected: " + damageType.getLabel() + " - " + severity.getLabel());
         System.out.println("Damage Type: " + damageType + " | Severity: " + severity);
         
         return calculatedFee;
@@ -1001,7 +1072,7 @@ private record PaymentInput(String paymentMethod, String maskedCard, String eWal
     
  
     // Helper methods
-    private RentalRequest createRentalRequest(String vesselId, Customer customer) {
+    private RentalRequest createRentalRequest(String vesselId, Customer customer, String idempotencyKey) {
         Vessel vessel = vesselManager.getVesselById(vesselId);
         
         System.out.println("Selected Vessel: " + vessel.getVesselType());
@@ -1064,6 +1135,7 @@ private record PaymentInput(String paymentMethod, String maskedCard, String eWal
         scheduledStart, scheduledEnd, duration
     );
     request.setAddOns(selectedAddOns);
+    request.setIdempotencyKey(idempotencyKey);
     return request;
     }
 
@@ -1079,39 +1151,43 @@ private record PaymentInput(String paymentMethod, String maskedCard, String eWal
         long m = dur.toMinutesPart();
         System.out.println("Duration: " + h + "h " + m + "m");
                       
-        System.out.println("Base Rate: RM" + String.format("%.2f", vessel.getBasePrice()));
-        
-        double baseAmount = vessel.getBasePrice();
-        System.out.println("Base Amount: RM" + String.format("%.2f", baseAmount));
-        
+        // The same quote RentalService charges when the booking is created
+        List<AddOn> addOns = request.getAddOns();
+        PriceQuote quote = paymentCalculator.quote(vessel, customer, request.getScheduledStart(), request.getDuration(), addOns);
+        int discountRate = paymentCalculator.getRules().discountBasisPoints(
+                VesselCategory.fromLabel(vessel.getVesselCategory()), PaymentCalculator.tierOf(customer));
+
+        System.out.println("Base Rate: " + Money.format(quote.getListPriceCents()));
+        if (quote.getAdjustmentCents() != 0) {
+            int multiplier = paymentCalculator.calendarMultiplier(vessel, request.getScheduledStart());
+            System.out.println((quote.getAdjustmentCents() > 0 ? "Peak Pricing" : "Off-Peak Pricing")
+                    + " (" + String.format("%.0f%%", multiplier / 100.0) + " on "
+                    + request.getScheduledStart().toLocalDate() + "): "
+                    + (quote.getAdjustmentCents() > 0 ? "+" : "") + Money.format(quote.getAdjustmentCents()));
+        }
+        System.out.println("Base Amount: " + Money.format(quote.getBaseCents()));
+
         // Show member discount if applicable
-        if (customer instanceof MemberCustomer) {
-            MemberCustomer memberCustomer = (MemberCustomer) customer;
-            double discount = baseAmount * memberCustomer.getDiscountRate();
-            System.out.println("Member Discount (" + String.format("%.0f%%", memberCustomer.getDiscountRate() * 100) + "): -RM" + String.format("%.2f", discount));
-            baseAmount -= discount;
+        if (quote.getDiscountCents() > 0) {
+            System.out.println("Member Discount (" + String.format("%.0f%%", discountRate / 100.0) + "): -" + Money.format(quote.getDiscountCents()));
         }
-        
-        double tax = baseAmount * 0.06; // 6% tax
-        System.out.println("Tax (6%): RM" + String.format("%.2f", tax));
-        
-        double totalAmount = baseAmount + tax;
-        // Add-on costs
-        List<AddOn> addOns = request.getAddOns();
+
+        System.out.println("Tax (" + String.format("%.0f%%", paymentCalculator.getRules().getTaxBasisPoints() / 100.0) + "): "
+                + Money.format(quote.getTaxCents()));
+
        if (addOns != null && !addOns.isEmpty()) {
            System.out.println("\nSelected Add-Ons:");
            for (AddOn addon : addOns) {
-             System.out.printf("%s - RM%.2f x %d = RM%.2f\n", 
-                addon.getName(), addon.getPrice(), addon.getCount(), addon.getTotalPrice());
-              totalAmount += addon.getTotalPrice();
+             System.out.println(addon.getName() + " - " + Money.format(addon.getPriceCents()) + " x " + addon.getCount()
+                     + " = " + Money.format(addon.getTotalPriceCents()));
         }
     }
 
         System.out.println("═".repeat(30));
-        System.out.println("TOTAL AMOUNT: RM" + String.format("%.2f", totalAmount));
+        System.out.println("TOTAL AMOUNT: " + Money.format(quote.getTotalCents()));
         System.out.println("═".repeat(30));
 
-        return totalAmount;
+        return Money.toAmount(quote.getTotalCents());
     }
     
     /**
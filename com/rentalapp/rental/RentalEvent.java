@@ -0,0 +1,30 @@
+package com.rentalapp.rental;
+
+import java.time.LocalDateTime;
+
+/**
+ * Domain events published on the rental EventBus. Side effects that do not need to
+ * finish before the customer sees a result (history, loyalty, maintenance) subscribe to these.
+ */
+public sealed interface RentalEvent {
+
+    String rentalId();
+
+    /** A rental was returned or closed by RentalService. */
+    record Completed(String rentalId, String vesselId, RentalStatus status, LocalDateTime completedAt)
+            implements RentalEvent {}
+
+    /** A rental was cancelled and its vessel released. */
+    record Cancelled(String rentalId, String vesselId, LocalDateTime cancelledAt) implements RentalEvent {}
+
+    /** A history row is ready to be stored. */
+    record HistoryRecorded(RentalHistoryRecord record) implements RentalEvent {
+        public String rentalId() { return record.getRentalId(); }
+    }
+
+    /** The history status of a rental changed (RETURNED, CANCELLED, ...). */
+    record StatusChanged(String rentalId, String newStatus) implements RentalEvent {}
+
+    /** Loyalty points were earned for a rental payment. */
+    record PointsEarned(String rentalId, String customerId, int points) implements RentalEvent {}
+}
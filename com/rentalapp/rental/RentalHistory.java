@@ -1,61 +1,338 @@
 package com.rentalapp.rental;
 
+import com.rentalapp.report.AnalyticsSketches;
+import com.rentalapp.report.HistoryColumnStore;
+import com.rentalapp.report.RentalRollup;
+import com.rentalapp.utils.BatchIterator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.time.Duration;
 
-public class RentalHistory {
+/**
+ * Stores rental history rows. Written by the rental-history event subscriber and read
+ * from the console thread, so every access goes through this object's lock.
+ *
+ * With a {@link HistoryLog} every row and status change is also appended to disk, and a
+ * failed append is thrown to the caller before memory is touched. Rows from earlier runs
+ * are loaded into memory (hydrated) on a background thread that replays the log without
+ * holding this object's lock. Until it finishes, writes go straight to the log and are
+ * applied in memory afterwards, customer history is read from the log's offset index,
+ * and only queries over the whole history wait for the load.
+ */
+public class RentalHistory implements AutoCloseable {
     private List<RentalHistoryRecord> historyRecords;
     private Map<String, List<RentalHistoryRecord>> customerHistoryMap;
+    // rentalId -> row positions in historyRecords; a rental can have several rows (payment, cancellation, extension)
+    private Map<String, List<Integer>> rentalHistoryMap;
+    // Rows by scheduled start, so date-range queries only visit rows inside the range
+    private NavigableMap<LocalDateTime, List<RentalHistoryRecord>> startTimeIndex;
+    private final RentalRollup rollup = new RentalRollup();
+    private final HistorySearchIndex searchIndex = new HistorySearchIndex();
+    private final CustomerAggregates customerAggregates = new CustomerAggregates();
+    // Same rows in columnar form (row ids match historyRecords) for group-by reports
+    private final HistoryColumnStore columnStore = new HistoryColumnStore();
+    private final AnalyticsSketches sketches = new AnalyticsSketches();
+    private final HistoryLog historyLog; // null = in-memory only
+    private final long storedEnd;        // log position where earlier runs stopped writing
+    private volatile boolean hydrated;
+    private boolean hydrating;
+    // Writes made before hydration finished, applied in order once the stored rows are in
+    private List<Runnable> pendingWrites = new ArrayList<>();
     
 
     public RentalHistory() {
+        this(null);
+    }
+
+    public RentalHistory(HistoryLog historyLog) {
         this.historyRecords = new ArrayList<>();
         this.customerHistoryMap = new HashMap<>();
+        this.rentalHistoryMap = new HashMap<>();
+        this.startTimeIndex = new TreeMap<>();
+        this.historyLog = historyLog;
+        this.storedEnd = historyLog == null ? 0 : historyLog.endPosition();
+        this.hydrated = historyLog == null;
+    }
+
+    /** Start loading rows persisted by earlier runs without blocking the caller. */
+    public synchronized void hydrateInBackground() {
+        if (hydrated || hydrating) return;
+        hydrating = true;
+        Thread loader = new Thread(this::hydrate, "history-hydrate");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void hydrate() {
+        List<RentalHistoryRecord> stored;
+        try {
+            stored = historyLog.readAll(storedEnd); // the slow part, outside this object's lock
+        } catch (RuntimeException e) {
+            System.err.println("Could not load stored rental history: " + e.getMessage());
+            stored = Collections.emptyList();
+        }
+        synchronized (this) {
+            for (RentalHistoryRecord record : stored) {
+                int rowId = historyRecords.size();
+                historyRecords.add(record);
+                indexRecord(rowId, record);
+            }
+            searchIndex.rebuild(historyRecords);
+            for (Runnable write : pendingWrites) {
+                write.run();
+            }
+            pendingWrites = null;
+            hydrated = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wait for the stored rows to be loaded. Waiting releases this object's lock, so a
+     * caller already holding it does not block the loader.
+     */
+    private void ensureHydrated() {
+        if (hydrated) return;
+        synchronized (this) {
+            hydrateInBackground();
+            boolean interrupted = false;
+            while (!hydrated) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Record a row. Throws {@link UncheckedIOException} if it cannot be persisted; the
+     * row is then not recorded at all.
+     */
+    public synchronized void addRentalRecord(RentalHistoryRecord record) {
+        if (historyLog != null) {
+            try {
+                historyLog.appendRow(record);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to persist history for rental " + record.getRentalId(), e);
+            }
+        }
+        if (hydrated) {
+            applyRow(record);
+        } else {
+            pendingWrites.add(() -> applyRow(record));
+        }
     }
 
-    public void addRentalRecord(RentalHistoryRecord record) {
+    private void applyRow(RentalHistoryRecord record) {
+        int rowId = historyRecords.size();
         historyRecords.add(record);
+        indexRecord(rowId, record);
+        searchIndex.add(rowId, record);
+    }
+
+    private void indexRecord(int rowId, RentalHistoryRecord record) {
         customerHistoryMap.computeIfAbsent(record.getCustomerId(), k -> new ArrayList<>()).add(record);
+        rentalHistoryMap.computeIfAbsent(record.getRentalId(), k -> new ArrayList<>(2)).add(rowId);
+        if (record.getScheduledStart() != null) { // unscheduled rows cannot match a date range
+            startTimeIndex.computeIfAbsent(record.getScheduledStart(), k -> new ArrayList<>(1)).add(record);
+        }
+        rollup.onRecordAdded(record);
+        customerAggregates.onHistoryAdded(record);
+        columnStore.append(record);
+        Duration duration = record.getDuration();
+        sketches.record(record.getScheduledStart(), record.getCustomerId(), record.getVesselModel(),
+                duration == null ? null : duration.toMinutes(), record.getTotalAmount());
+    }
+
+    /**
+     * Apply a status transition to every history row of the rental. Returns false if the
+     * rental has no rows; throws {@link UncheckedIOException} if the change cannot be
+     * persisted, in which case it is not applied.
+     */
+    public synchronized boolean updateStatus(String rentalId, String newStatus) {
+        boolean known = hydrated ? rentalHistoryMap.containsKey(rentalId)
+                                 : historyLog.containsRental(rentalId);
+        if (!known) return false;
+        if (historyLog != null) {
+            try {
+                historyLog.appendStatus(rentalId, newStatus);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to persist status of rental " + rentalId, e);
+            }
+        }
+        if (hydrated) {
+            applyStatus(rentalId, newStatus);
+        } else {
+            pendingWrites.add(() -> applyStatus(rentalId, newStatus));
+        }
+        return true;
     }
 
-    public boolean updateStatus(String rentalId, String newStatus) {
-    for (RentalHistoryRecord record : historyRecords) {
-        if (record.getRentalId().equals(rentalId)) {
+    private void applyStatus(String rentalId, String newStatus) {
+        for (int rowId : rentalHistoryMap.getOrDefault(rentalId, Collections.emptyList())) {
+            RentalHistoryRecord record = historyRecords.get(rowId);
+            String oldStatus = record.getStatus();
             record.setStatus(newStatus);
-            return true;
+            rollup.onStatusChanged(oldStatus, record.getStatus());
+            searchIndex.setStatus(rowId, oldStatus, record.getStatus());
+            customerAggregates.onStatusChanged(record, oldStatus);
+            columnStore.setStatus(rowId, record.getStatus());
         }
     }
-    return false;
-}
+
+    /** Force the log to disk and close it; later writes fail. */
+    @Override
+    public void close() throws IOException {
+        if (historyLog != null) historyLog.close();
+    }
+
+    /** Aggregates maintained on every insert and status change; safe to read without the lock. */
+    public RentalRollup getRollup() {
+        ensureHydrated();
+        return rollup;
+    }
+
+    /** Per-customer totals kept in step with every insert and status change. */
+    public CustomerAggregates getCustomerAggregates() {
+        ensureHydrated();
+        return customerAggregates;
+    }
+
+    /** Columnar copy of the history for filtered group-by scans; safe to read without the lock. */
+    public HistoryColumnStore getColumnStore() {
+        ensureHydrated();
+        return columnStore;
+    }
+
+    /** Fixed-size approximate statistics (distinct customers, top vessels, quantiles). */
+    public AnalyticsSketches getSketches() {
+        ensureHydrated();
+        return sketches;
+    }
+
+    public synchronized List<RentalHistoryRecord> getRentalRecords(String rentalId) {
+        ensureHydrated();
+        List<RentalHistoryRecord> records = new ArrayList<>();
+        for (int rowId : rentalHistoryMap.getOrDefault(rentalId, Collections.emptyList())) {
+            records.add(historyRecords.get(rowId));
+        }
+        return records;
+    }
 
 
     public List<RentalHistoryRecord> getCustomerHistory(String customerId) {
-        return customerHistoryMap.getOrDefault(customerId, new ArrayList<>());
+        if (!hydrated) {
+            // Served from the log's offset index while the full history is still loading
+            return historyLog.readCustomer(customerId);
+        }
+        synchronized (this) {
+            return new ArrayList<>(customerHistoryMap.getOrDefault(customerId, Collections.emptyList()));
+        }
     }
 
-    public List<RentalHistoryRecord> getCustomerHistoryByDateRange(String customerId,
+    /**
+     * Customer rentals that start and end inside the range, in chronological order.
+     * Walks whichever is smaller, the customer's rows or the time slice of all rows,
+     * and filters it by the other: the slice is abandoned as soon as it holds more
+     * rows than the customer has.
+     */
+    public synchronized List<RentalHistoryRecord> getCustomerHistoryByDateRange(String customerId,
                                                                    LocalDateTime start,
                                                                    LocalDateTime end) {
-        return getCustomerHistory(customerId).stream()
-                .filter(record -> !record.getScheduledStart().isBefore(start) &&
-                                  !record.getScheduledEnd().isAfter(end))
-                .collect(Collectors.toList());
+        ensureHydrated();
+        List<RentalHistoryRecord> result = new ArrayList<>();
+        List<RentalHistoryRecord> customerRecords = customerHistoryMap.get(customerId);
+        if (customerRecords == null || start == null || end == null || start.isAfter(end)) return result;
+
+        int visited = 0;
+        for (List<RentalHistoryRecord> bucket : startTimeIndex.subMap(start, true, end, true).values()) {
+            visited += bucket.size();
+            if (visited > customerRecords.size()) {
+                return customerRecordsWithin(customerRecords, start, end);
+            }
+            for (RentalHistoryRecord record : bucket) {
+                if (record.getCustomerId().equals(customerId)
+                        && record.getScheduledEnd() != null && !record.getScheduledEnd().isAfter(end)) {
+                    result.add(record);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<RentalHistoryRecord> customerRecordsWithin(List<RentalHistoryRecord> customerRecords,
+                                                                   LocalDateTime start, LocalDateTime end) {
+        List<RentalHistoryRecord> result = new ArrayList<>();
+        for (RentalHistoryRecord record : customerRecords) {
+            if (record.getScheduledStart() != null && !record.getScheduledStart().isBefore(start)
+                    && record.getScheduledEnd() != null && !record.getScheduledEnd().isAfter(end)) {
+                result.add(record);
+            }
+        }
+        result.sort(Comparator.comparing(RentalHistoryRecord::getScheduledStart)); // stable: ties keep insertion order
+        return result;
+    }
+
+    /**
+     * Rows whose scheduled start and end both fall inside [start, end], ordered by start.
+     * Only the slice of the time index between start and end is visited.
+     */
+    public synchronized List<RentalHistoryRecord> getHistoryByDateRange(LocalDateTime start, LocalDateTime end) {
+        ensureHydrated();
+        return recordsWithin(start, end);
+    }
+
+    private List<RentalHistoryRecord> recordsWithin(LocalDateTime start, LocalDateTime end) {
+        List<RentalHistoryRecord> result = new ArrayList<>();
+        if (start == null || end == null || start.isAfter(end)) return result;
+
+        // A row that ends by 'end' must also start by 'end'
+        for (List<RentalHistoryRecord> bucket : startTimeIndex.subMap(start, true, end, true).values()) {
+            for (RentalHistoryRecord record : bucket) {
+                if (record.getScheduledEnd() != null && !record.getScheduledEnd().isAfter(end)) {
+                    result.add(record);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Iterate every row without copying the whole history; rows are copied 1024 at a time
+     * under the lock. Used by exports.
+     */
+    public Iterator<RentalHistoryRecord> iterateHistory() {
+        ensureHydrated();
+        return new BatchIterator<>(this::fetchRows, 1024);
+    }
+
+    private synchronized List<RentalHistoryRecord> fetchRows(int from, int max) {
+        if (from >= historyRecords.size()) return Collections.emptyList();
+        return new ArrayList<>(historyRecords.subList(from, Math.min(historyRecords.size(), from + max)));
     }
 
-    public List<RentalHistoryRecord> getAllHistory() {
+    public synchronized List<RentalHistoryRecord> getAllHistory() {
+        ensureHydrated();
         return new ArrayList<>(historyRecords);
     }
 
-    public List<RentalHistoryRecord> getHistoryByVesselType(String vesselType) {
+    public synchronized List<RentalHistoryRecord> getHistoryByVesselType(String vesselType) {
+        ensureHydrated();
         return historyRecords.stream()
                 .filter(record -> record.getVesselType().equalsIgnoreCase(vesselType))
                 .collect(Collectors.toList());
     }
 
-    public List<RentalHistoryRecord> getHistoryByStatus(String status) {
+    public synchronized List<RentalHistoryRecord> getHistoryByStatus(String status) {
+        ensureHydrated();
         return historyRecords.stream()
                 .filter(record -> record.getStatus().equalsIgnoreCase(status))
                 .collect(Collectors.toList());
@@ -110,25 +387,21 @@ public class RentalHistory {
     }
 
 
+    // Cancelled rentals are excluded from spend
     public double getCustomerTotalSpent(String customerId) {
-    return getCustomerHistory(customerId).stream()
-            .filter(record -> !record.getStatus().equalsIgnoreCase("CANCELLED")) // ✅ exclude cancelled
-            .mapToDouble(RentalHistoryRecord::getTotalAmount)
-            .sum();
-}
+        ensureHydrated();
+        return customerAggregates.get(customerId).getTotalSpent();
+    }
 
     public int getCustomerTotalLoyaltyPoints(String customerId) {
-        return getCustomerHistory(customerId).stream()
-                .mapToInt(RentalHistoryRecord::getLoyaltyPointsEarned)
-                .sum();
+        ensureHydrated();
+        return (int) customerAggregates.get(customerId).getLoyaltyPoints();
     }
 
 
-    public void generateHistoryReport(LocalDateTime start, LocalDateTime end) {
-        List<RentalHistoryRecord> filteredRecords = historyRecords.stream()
-                .filter(record -> !record.getScheduledStart().isBefore(start) &&
-                                  !record.getScheduledEnd().isAfter(end))
-                .collect(Collectors.toList());
+    public synchronized void generateHistoryReport(LocalDateTime start, LocalDateTime end) {
+        ensureHydrated();
+        List<RentalHistoryRecord> filteredRecords = recordsWithin(start, end);
 
         System.out.println("\n============= RENTAL HISTORY REPORT =============");
         System.out.println("Period: " + start + " to " + end);
@@ -148,15 +421,31 @@ public class RentalHistory {
         System.out.println("=================================================\n");
     }
 
+    /**
+     * Rows where every word of the keyword starts a word in the rental id, customer name,
+     * vessel, payment method or status. Newest first.
+     */
     public List<RentalHistoryRecord> searchHistory(String keyword) {
-        String lowerKeyword = keyword.toLowerCase();
-        return historyRecords.stream()
-                .filter(record -> record.getRentalId().toLowerCase().contains(lowerKeyword) ||
-                                  record.getCustomerName().toLowerCase().contains(lowerKeyword) ||
-                                  record.getVesselModel().toLowerCase().contains(lowerKeyword) ||
-                                  record.getVesselType().toLowerCase().contains(lowerKeyword) ||
-                                  record.getStatus().toLowerCase().contains(lowerKeyword) ||
-                                  record.getPaymentMethod().toLowerCase().contains(lowerKeyword)) 
-                .collect(Collectors.toList());
+        return searchHistory(keyword, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * One page of {@link #searchHistory(String)} results (page numbers start at 0).
+     */
+    public synchronized List<RentalHistoryRecord> searchHistory(String keyword, int page, int pageSize) {
+        ensureHydrated();
+        List<RentalHistoryRecord> results = new ArrayList<>();
+        if (page < 0 || pageSize <= 0) return results;
+
+        long offset = (long) page * pageSize;
+        for (int rowId : searchIndex.search(keyword, (int) Math.min(offset, Integer.MAX_VALUE), pageSize)) {
+            results.add(historyRecords.get(rowId));
+        }
+        return results;
+    }
+
+    public synchronized int countSearchResults(String keyword) {
+        ensureHydrated();
+        return searchIndex.count(keyword);
     }
 }
@@ -2,23 +2,30 @@ package com.rentalapp.rental;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import com.rentalapp.payment.Money;
+import com.rentalapp.utils.EpochTime;
+import com.rentalapp.utils.StringDictionary;
 
 public class RentalHistoryRecord {
+    private static final int NO_DURATION = Integer.MIN_VALUE;
+
+    // Same compact layout as RentalRecord: dictionary codes for low-cardinality strings
+    // (type, location, payment method, status), epoch seconds for timestamps and cents for money.
     private String rentalId;
     private String customerId;
     private String customerName;
     private String vesselId;
     private String vesselModel;
-    private String vesselType;
-    private String location;
-    private LocalDateTime scheduledStart;
-    private LocalDateTime scheduledEnd;
-    private Duration duration;
-    private double totalAmount;
-    private String paymentMethod;   
-    private String status;
+    private int vesselTypeCode;
+    private int locationCode;
+    private long scheduledStartEpoch;
+    private long scheduledEndEpoch;
+    private int durationSeconds;
+    private long totalAmountCents;
+    private int paymentMethodCode;
+    private int statusCode;
     private int loyaltyPointsEarned;
-    private LocalDateTime actualEnd;
+    private long actualEndEpoch;
 
 
     public RentalHistoryRecord(
@@ -43,15 +50,15 @@ public class RentalHistoryRecord {
     this.customerName = customerName;
     this.vesselId = vesselId;
     this.vesselModel = vesselModel;
-    this.vesselType = vesselType;
-    this.location = location;
-    this.scheduledStart = scheduledStart;
-    this.scheduledEnd = scheduledEnd;
-    this.actualEnd = actualEnd;             
-    this.duration = duration;
-    this.totalAmount = totalAmount;
-    this.paymentMethod = paymentMethod;
-    this.status = status;
+    this.vesselTypeCode = StringDictionary.encode(vesselType);
+    this.locationCode = StringDictionary.encode(location);
+    this.scheduledStartEpoch = EpochTime.toEpochSecond(scheduledStart);
+    this.scheduledEndEpoch = EpochTime.toEpochSecond(scheduledEnd);
+    this.actualEndEpoch = EpochTime.toEpochSecond(actualEnd);
+    setDuration(duration);
+    this.totalAmountCents = Money.toCents(totalAmount);
+    this.paymentMethodCode = StringDictionary.encode(paymentMethod);
+    setStatus(status);
     this.loyaltyPointsEarned = loyaltyPointsEarned;
 }
 
@@ -61,16 +68,16 @@ public class RentalHistoryRecord {
     public String getCustomerName() { return customerName; }
     public String getVesselId() { return vesselId; }
     public String getVesselModel() { return vesselModel; }
-    public String getVesselType() { return vesselType; }
-    public String getLocation() { return location; }
-    public LocalDateTime getScheduledStart() { return scheduledStart; }
-    public LocalDateTime getScheduledEnd() { return scheduledEnd; }
-    public Duration getDuration() { return duration; }
-    public double getTotalAmount() { return totalAmount; }
-    public String getPaymentMethod() { return paymentMethod; }   
-    public String getStatus() { return status; }
+    public String getVesselType() { return StringDictionary.decode(vesselTypeCode); }
+    public String getLocation() { return StringDictionary.decode(locationCode); }
+    public LocalDateTime getScheduledStart() { return EpochTime.fromEpochSecond(scheduledStartEpoch); }
+    public LocalDateTime getScheduledEnd() { return EpochTime.fromEpochSecond(scheduledEndEpoch); }
+    public Duration getDuration() { return durationSeconds == NO_DURATION ? null : Duration.ofSeconds(durationSeconds); }
+    public double getTotalAmount() { return Money.toAmount(totalAmountCents); }
+    public String getPaymentMethod() { return StringDictionary.decode(paymentMethodCode); }   
+    public String getStatus() { return StringDictionary.decode(statusCode); }
     public int getLoyaltyPointsEarned() { return loyaltyPointsEarned; }
-    public LocalDateTime getActualEnd() { return actualEnd; }
+    public LocalDateTime getActualEnd() { return EpochTime.fromEpochSecond(actualEndEpoch); }
 
     // ===== Setters =====
     public void setRentalId(String rentalId) { this.rentalId = rentalId; }
@@ -78,13 +85,23 @@ public class RentalHistoryRecord {
     public void setCustomerName(String customerName) { this.customerName = customerName; }
     public void setVesselId(String vesselId) { this.vesselId = vesselId; }
     public void setVesselModel(String vesselModel) { this.vesselModel = vesselModel; }
-    public void setVesselType(String vesselType) { this.vesselType = vesselType; }
-    public void setLocation(String location) { this.location = location; }
-    public void setScheduledStart(LocalDateTime scheduledStart) { this.scheduledStart = scheduledStart; }
-    public void setScheduledEnd(LocalDateTime scheduledEnd) { this.scheduledEnd = scheduledEnd; }
-    public void setDuration(Duration duration) { this.duration = duration; }
-    public void setTotalAmount(double totalAmount) { this.totalAmount = totalAmount; }
-    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }   
-    public void setStatus(String status) { this.status = status; }
+    public void setVesselType(String vesselType) { this.vesselTypeCode = StringDictionary.encode(vesselType); }
+    public void setLocation(String location) { this.locationCode = StringDictionary.encode(location); }
+    public void setScheduledStart(LocalDateTime scheduledStart) { this.scheduledStartEpoch = EpochTime.toEpochSecond(scheduledStart); }
+    public void setScheduledEnd(LocalDateTime scheduledEnd) { this.scheduledEndEpoch = EpochTime.toEpochSecond(scheduledEnd); }
+    public void setDuration(Duration duration) { this.durationSeconds = duration != null ? Math.toIntExact(duration.getSeconds()) : NO_DURATION; }
+    public void setTotalAmount(double totalAmount) { this.totalAmountCents = Money.toCents(totalAmount); }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethodCode = StringDictionary.encode(paymentMethod); }   
+    public void setStatus(String status) { this.statusCode = StringDictionary.encode(normalizeStatus(status)); }
     public void setLoyaltyPointsEarned(int loyaltyPointsEarned) { this.loyaltyPointsEarned = loyaltyPointsEarned; }
+
+    // Known statuses are stored by their RentalStatus name; legacy or unknown ones as written
+    private static String normalizeStatus(String status) {
+        if (status == null) return null;
+        String name = status.trim().toUpperCase();
+        for (RentalStatus known : RentalStatus.values()) {
+            if (known.name().equals(name)) return known.name();
+        }
+        return status;
+    }
 }
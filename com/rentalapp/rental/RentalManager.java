@@ -4,6 +4,11 @@ import com.rentalapp.payment.PaymentManager;
 import com.rentalapp.payment.Receipt;
 import com.rentalapp.loyalty.LoyaltyPointManager;
 import com.rentalapp.payment.PaymentCalculator;
+import com.rentalapp.report.ConsoleReportRenderer;
+import com.rentalapp.report.HistoryColumnStore;
+import com.rentalapp.report.RentalRollup;
+import com.rentalapp.report.Report;
+import com.rentalapp.report.RollupCube;
 
 
 import java.time.LocalDateTime;
@@ -32,6 +37,9 @@ public class RentalManager {
         this.paymentManager = paymentManager;
         this.loyaltyPointManager = loyaltyPointManager;
         this.customerDatabase = new HashMap<>();
+
+        rentalService.getEventBus().subscribe("loyalty", RentalEvent.PointsEarned.class,
+                event -> loyaltyPointManager.addPoints(event.customerId(), event.points()));
     }
 
 
@@ -98,6 +106,7 @@ public class RentalManager {
     );
 
     if (receipt != null) {
+        rental.setPaymentMethod(paymentMethod);
         addToRentalHistory(rental, customer, paymentMethod, receipt.getLoyaltyPointsEarned());
         System.out.println("Payment processed successfully!");
         paymentManager.printReceipt(receipt.getReceiptId());
@@ -220,36 +229,12 @@ public class RentalManager {
 }
 
     public List<AddOn> showAddOnMenu(String vesselCategory) {
-        List<AddOn> availableAddOns = new ArrayList<>();
-        availableAddOns.add(new AddOn("Custom Décor", "Event themes, balloons, floral, LED lights", 800, List.of("Yacht", "Pontoon")));
-        availableAddOns.add(new AddOn("Catering Service", "Buffet, plated meals, BBQ grill, seafood platters",  150, "pax", 1, List.of("Yacht", "Pontoon")));
-        availableAddOns.add(new AddOn("Snorkel Sets", "Mask, fins, snorkel tube, life vest", 40, "set", 1, List.of("Boat", "Yacht")));
-        availableAddOns.add(new AddOn("Fishing Gear", "Rods, reels, tackle, bait", 120, "pax", 1, List.of("Fishing Charter")));
-        availableAddOns.add(new AddOn("Photo/Video Drone", "Professional drone photography & videography", 800, List.of("Yacht", "Jet Ski")));
-        availableAddOns.add(new AddOn("Underwater GoPro", "Waterproof camera with memory card",200, List.of("Boat", "Jet Ski", "Snorkeler")));
-        availableAddOns.add(new AddOn("Live Music/DJ", "Live band or DJ performance", 2000, List.of("Yacht", "Pontoon")));
-        availableAddOns.add(new AddOn("Water Toys", "Floating mats, paddleboards, inflatables", 500, List.of("Yacht", "Pontoon")));
-
-       // normalize category matching (ignore case)
-    String cat = vesselCategory == null ? "" : vesselCategory.trim().toLowerCase();
-
-    // filter by suitability
-    List<AddOn> filtered = new ArrayList<>();
-    for (AddOn a : availableAddOns) {
-        if (a.getSuitableFor() != null) {
-            for (String s : a.getSuitableFor()) {
-                if (s != null && s.trim().equalsIgnoreCase(cat)) {
-                    filtered.add(a);
-                    break;
-                }
-            }
-        }
-    }
+    List<AddOn> filtered = rentalService.getAddOnsFor(vesselCategory);
 
     System.out.println("\n=== Available Add-Ons for " + vesselCategory + " ===");
     if (filtered.isEmpty()) {
         System.out.println("No add-ons available for this vessel type.");
-        return new ArrayList<>();
+        return Collections.emptyList();
     }
 
     for (int i = 0; i < filtered.size(); i++) {
@@ -263,7 +248,7 @@ public class RentalManager {
 
     System.out.print("Enter add-on numbers separated by commas (or leave blank for none): ");
     String input = scanner.nextLine().trim();
-    if (input.isEmpty()) return new ArrayList<>();
+    if (input.isEmpty()) return Collections.emptyList();
 
     List<AddOn> selected = new ArrayList<>();
     String[] parts = input.split(",");
@@ -283,7 +268,7 @@ public class RentalManager {
                                 System.out.println("Quantity must be >= 1.");
                                 continue;
                             }
-                            chosen.setCount(qty);
+                            chosen = chosen.withCount(qty); // line item; catalog entry stays untouched
                             break;
                         } catch (NumberFormatException ex) {
                             System.out.println("Please enter a valid integer quantity.");
@@ -362,10 +347,11 @@ public class RentalManager {
             loyaltyPoints
     );
 
-    rentalHistory.addRentalRecord(historyRecord);
+    rentalService.getEventBus().publish(new RentalEvent.HistoryRecorded(historyRecord));
+    rentalService.getEventBus().publish(
+            new RentalEvent.PointsEarned(rental.getRentalId(), rental.getCustomerId(), loyaltyPoints));
 
-    loyaltyPointManager.addPoints(rental.getCustomerId(), loyaltyPoints);
-    System.out.println("Rental added to history successfully.");
+    System.out.println("Rental queued for history.");
     System.out.println("Loyalty points earned: " + loyaltyPoints);
 }
     private void displayRentalSummary(String rentalId) {
@@ -376,62 +362,58 @@ public class RentalManager {
 }
 
     private void updateRentalHistoryStatus(String rentalId, String newStatus) {
-        rentalHistory.updateStatus(rentalId, newStatus);
+        rentalService.getEventBus().publish(new RentalEvent.StatusChanged(rentalId, newStatus));
     }
 
     public void generateRentalReport() {
-
-    System.out.println("\n==================== RENTAL REPORT ====================");
-
-    List<RentalHistoryRecord> allRentals = rentalHistory.getAllHistory();
-    if (allRentals.isEmpty()) {
-        System.out.println("No rental records found.");
+    if (rentalHistory.getRollup().getCube().total(null, null).count() == 0) {
+        System.out.println("\nNo rental records found.");
         return;
     }
-    System.out.println("Total Rentals: " + allRentals.size());
-
-    // Total revenue
-    double totalRevenue = allRentals.stream()
-            .mapToDouble(RentalHistoryRecord::getTotalAmount)
-            .sum();
-    System.out.println("Total Revenue: RM " + String.format("%.2f", totalRevenue));
-
-    // Status breakdown
-    Map<String, Long> statusCount = new HashMap<>();
-    for (RentalHistoryRecord record : allRentals) {
-        statusCount.put(record.getStatus(), statusCount.getOrDefault(record.getStatus(), 0L) + 1);
+    System.out.print(new ConsoleReportRenderer().render(buildRentalReport()));
+}
+
+    /**
+     * Rental report read from the aggregates RentalHistory maintains on insert, so no
+     * pass over the history is needed at all.
+     */
+    public Report buildRentalReport() {
+    RentalRollup rollup = rentalHistory.getRollup();
+    RollupCube.Totals totals = rollup.getCube().total(null, null);
+
+    Report report = new Report("Rental Report");
+    Report.Section summary = report.metrics(null)
+          .row("Total Rentals", totals.count())
+          .row("Total Revenue (RM)", totals.amount());
+    long unscheduled = rollup.getCube().unscheduledTotal().count();
+    if (unscheduled > 0) {
+        summary.row("Without Scheduled Start (included above)", unscheduled);
     }
 
-    System.out.println("\nStatus Breakdown:");
-    statusCount.forEach((status, count) -> System.out.println("- " + status + ": " + count));
+    Report.Section status = report.table("Status Breakdown", "Status", "Rentals");
+    rollup.getStatusCounts().forEach(status::row);
 
-    // Revenue per customer
-    Map<String, Double> revenuePerCustomer = new HashMap<>();
-    for (RentalHistoryRecord record : allRentals) {
-        revenuePerCustomer.put(record.getCustomerName(),
-                revenuePerCustomer.getOrDefault(record.getCustomerName(), 0.0) + record.getTotalAmount());
-    }
+    Report.Section customers = report.table("Top Customers by Revenue", "Customer", "Revenue (RM)");
+    rollup.getTopCustomersByRevenue(5).forEach(e -> customers.row(e.getKey(), e.getValue()));
 
-    System.out.println("\nTop Customers by Revenue:");
-    revenuePerCustomer.entrySet().stream()
-            .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-            .limit(5)
-            .forEach(entry -> System.out.println("- " + entry.getKey() + ": RM " + String.format("%.2f", entry.getValue())));
-
-    // Top rented vessels
-    Map<String, Long> vesselCount = new HashMap<>();
-    for (RentalHistoryRecord record : allRentals) {
-        vesselCount.put(record.getVesselType(),
-                vesselCount.getOrDefault(record.getVesselType(), 0L) + 1);
-    }
+    Report.Section vessels = report.table("Top Rented Vessels", "Vessel", "Rentals");
+    rollup.getTopVesselTypes(5).forEach(e -> vessels.row(e.getKey(), e.getValue()));
 
-    System.out.println("\nTop Rented Vessels:");
-    vesselCount.entrySet().stream()
-            .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-            .limit(5)
-            .forEach(entry -> System.out.println("- " + entry.getKey() + ": " + entry.getValue() + " rentals"));
+    Report.Section locations = report.table("Rentals by Location", "Location", "Rentals", "Revenue (RM)");
+    rentalHistory.getColumnStore().groupBy(HistoryColumnStore.Dimension.LOCATION, null)
+            .forEach((location, t) -> locations.row(location, t.count(), t.amount()));
+    return report;
+}
 
-    System.out.println("=======================================================\n");
+    /**
+     * Dashboard figures from the fixed-size sketches kept by the history and the payment
+     * manager: distinct customers, top vessels and duration/amount percentiles.
+     */
+    public Report buildAnalyticsReport() {
+    Report report = new Report("Rental Analytics (approximate)");
+    rentalHistory.getSketches().appendTo(report, "Rental History", "Vessel");
+    paymentManager.getReceiptSketches().appendTo(report, "Paid Receipts", "Vessel");
+    return report;
 }
 
 }
@@ -4,31 +4,41 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import com.rentalapp.payment.Money;
 import com.rentalapp.review.Review;
+import com.rentalapp.utils.EpochTime;
+import com.rentalapp.utils.StringDictionary;
 
 public class RentalRecord {
+    // Low-cardinality values (locations, types, categories, payment methods) are stored as
+    // StringDictionary codes, timestamps as epoch seconds and money as cents to keep each
+    // rental small on the heap. Ids and names stay plain strings: the dictionary never forgets.
     private String rentalId;
     private String customerId;
     private String vesselId;
-    private String pickupLocation;
+    private int pickupLocationCode;
     private RentalStatus status;
-    private String vesselType;
-    private String vesselCategory; 
+    private int vesselTypeCode;
+    private int vesselCategoryCode;
     private String customerName;
+    private int paymentMethodCode = StringDictionary.NULL_CODE;
 
-    private LocalDateTime scheduledStart;   
-    private LocalDateTime scheduledEnd;     
-    private LocalDateTime actualEnd;        
+    private long scheduledStartEpoch;
+    private long scheduledEndEpoch;
+    private long actualEndEpoch = EpochTime.NONE;
 
-    private Duration duration;              
-    private double basePrice;
-    private double totalCost;               
-    private double taxAmount;               
-    private List<AddOn> addOns = new ArrayList<>();
-    private Review review;  
-    private double damageFee;
-    private String paymentMethod;
+    private int durationSeconds;
+    private long basePriceCents;
+    private long totalCostCents;
+    private long taxAmountCents;
+    private long damageFeeCents;
+    private List<AddOn> addOns;          // allocated on first add-on
+    private Review review;
+    private long[] extensionFeeCents;    // allocated on first extension
+    private int extensionFeeCount;
 
 
 
@@ -38,16 +48,16 @@ public class RentalRecord {
         this.rentalId = rentalId;
         this.customerId = customerId;
         this.vesselId = vesselId;
-        this.pickupLocation = pickupLocation;
-        this.scheduledStart = scheduledStart;
-        this.scheduledEnd = scheduledEnd;
-        this.duration = duration;
-        this.basePrice = basePrice;
-        this.totalCost = totalCost;
-        this.taxAmount = 0.0; 
+        this.pickupLocationCode = StringDictionary.encode(pickupLocation);
+        this.scheduledStartEpoch = EpochTime.toEpochSecond(scheduledStart);
+        this.scheduledEndEpoch = EpochTime.toEpochSecond(scheduledEnd);
+        this.durationSeconds = Math.toIntExact(duration.getSeconds());
+        this.basePriceCents = Money.toCents(basePrice);
+        this.totalCostCents = Money.toCents(totalCost);
+        this.taxAmountCents = 0;
         this.status = RentalStatus.ACTIVE;
-        this.vesselType = vesselType;
-        this.vesselCategory = vesselCategory;
+        this.vesselTypeCode = StringDictionary.encode(vesselType);
+        this.vesselCategoryCode = StringDictionary.encode(vesselCategory);
         this.customerName = customerName;
     }
 
@@ -55,111 +65,149 @@ public class RentalRecord {
     public String getRentalId() { return rentalId; }
     public String getCustomerId() { return customerId; }
     public String getVesselId() { return vesselId; }
-    public String getPickupLocation() { return pickupLocation; }
-    public LocalDateTime getScheduledStart() { return scheduledStart; }
-    public LocalDateTime getScheduledEnd() { return scheduledEnd; }
-    public LocalDateTime getActualEnd() { return actualEnd; }
-    public Duration getDuration() { return duration; }
-    public double getBasePrice() { return basePrice; }
-    public double getTotalCost() { return totalCost; }
-    public double getTaxAmount() { return taxAmount; }
+    public String getPickupLocation() { return StringDictionary.decode(pickupLocationCode); }
+    public LocalDateTime getScheduledStart() { return EpochTime.fromEpochSecond(scheduledStartEpoch); }
+    public LocalDateTime getScheduledEnd() { return EpochTime.fromEpochSecond(scheduledEndEpoch); }
+    public LocalDateTime getActualEnd() { return EpochTime.fromEpochSecond(actualEndEpoch); }
+    public Duration getDuration() { return Duration.ofSeconds(durationSeconds); }
+    public double getBasePrice() { return Money.toAmount(basePriceCents); }
+    public double getTotalCost() { return Money.toAmount(totalCostCents); }
+    public double getTaxAmount() { return Money.toAmount(taxAmountCents); }
     public RentalStatus getStatus() { return status; }
-    public String getVesselType() { return vesselType; }
-    public String getVesselCategory() { return vesselCategory; }
+    public String getVesselType() { return StringDictionary.decode(vesselTypeCode); }
+    public String getVesselCategory() { return StringDictionary.decode(vesselCategoryCode); }
     public String getCustomerName() { return customerName; }
-    public List<AddOn> getAddOns() { return addOns; }
+    public List<AddOn> getAddOns() { return addOns != null ? addOns : Collections.emptyList(); }
     public Review getReview() { return review; }
-    public double getDamageFee() { return damageFee;}
-    public String getPaymentMethod() { return paymentMethod; }
+    public double getDamageFee() { return Money.toAmount(damageFeeCents); }
+    public long getBasePriceCents() { return basePriceCents; }
+    public long getTotalCostCents() { return totalCostCents; }
+    public long getTaxAmountCents() { return taxAmountCents; }
+    public long getDamageFeeCents() { return damageFeeCents; }
+    public String getPaymentMethod() { return StringDictionary.decode(paymentMethodCode); }
 
     // ================= Setters =================
     public void setRentalId(String rentalId) { this.rentalId = rentalId; }
     public void setCustomerId(String customerId) { this.customerId = customerId; }
     public void setVesselId(String vesselId) { this.vesselId = vesselId; }
-    public void setPickupLocation(String pickupLocation) { this.pickupLocation = pickupLocation; }
-    public void setScheduledStart(LocalDateTime scheduledStart) { this.scheduledStart = scheduledStart; }
-    public void setScheduledEnd(LocalDateTime scheduledEnd) { this.scheduledEnd = scheduledEnd; }
-    public void setDuration(Duration duration) { this.duration = duration; }
-    public void setBasePrice(double basePrice) { this.basePrice = basePrice; }
-    public void setTotalCost(double totalCost) { this.totalCost = totalCost; }
-    public void setTaxAmount(double taxAmount) { this.taxAmount = taxAmount; }
+    public void setPickupLocation(String pickupLocation) { this.pickupLocationCode = StringDictionary.encode(pickupLocation); }
+    public void setScheduledStart(LocalDateTime scheduledStart) { this.scheduledStartEpoch = EpochTime.toEpochSecond(scheduledStart); }
+    public void setScheduledEnd(LocalDateTime scheduledEnd) { this.scheduledEndEpoch = EpochTime.toEpochSecond(scheduledEnd); }
+    public void setDuration(Duration duration) { this.durationSeconds = Math.toIntExact(duration.getSeconds()); }
+    public void setBasePrice(double basePrice) { this.basePriceCents = Money.toCents(basePrice); }
+    public void setTotalCost(double totalCost) { this.totalCostCents = Money.toCents(totalCost); }
+    public void setTaxAmount(double taxAmount) { this.taxAmountCents = Money.toCents(taxAmount); }
     public void setStatus(RentalStatus status) { this.status = status; }
-    public void setVesselType(String vesselType) { this.vesselType = vesselType; }
-    public void setVesselCategory(String vesselCategory) { this.vesselCategory = vesselCategory; }
+    public void setVesselType(String vesselType) { this.vesselTypeCode = StringDictionary.encode(vesselType); }
+    public void setVesselCategory(String vesselCategory) { this.vesselCategoryCode = StringDictionary.encode(vesselCategory); }
     public void setCustomerName(String customerName) { this.customerName = customerName; }
     public void setReview(Review review) { this.review = review; }
-    public void setDamageFee(double damageFee) { this.damageFee = damageFee; }
-    public void setPaymentMethod(String paymentMethod) { this.paymentMethod = paymentMethod; }
+    public void setDamageFee(double damageFee) { this.damageFeeCents = Money.toCents(damageFee); }
+    public void setBasePriceCents(long basePriceCents) { this.basePriceCents = basePriceCents; }
+    public void setTotalCostCents(long totalCostCents) { this.totalCostCents = totalCostCents; }
+    public void setTaxAmountCents(long taxAmountCents) { this.taxAmountCents = taxAmountCents; }
+    public void setDamageFeeCents(long damageFeeCents) { this.damageFeeCents = damageFeeCents; }
+    public void setPaymentMethod(String paymentMethod) { this.paymentMethodCode = StringDictionary.encode(paymentMethod); }
     public void setActualEnd(LocalDateTime actualEnd) {
-    this.actualEnd = actualEnd;
+    this.actualEndEpoch = EpochTime.toEpochSecond(actualEnd);
 
-    if (scheduledStart != null && actualEnd != null) {
-        this.duration = Duration.between(scheduledStart, actualEnd);
+    if (scheduledStartEpoch != EpochTime.NONE && actualEnd != null) {
+        this.durationSeconds = Math.toIntExact(actualEndEpoch - scheduledStartEpoch);
     }
 }
 
     // ================= Utility Methods =================
     public void addAddOn(AddOn addOn) {
+        if (addOns == null) {
+            addOns = new ArrayList<>(2);
+        }
         this.addOns.add(addOn);
     }
 
     public double getTotalAddOnsCost() {
-        return addOns.stream().mapToDouble(AddOn::getPrice).sum();
+        return Money.toAmount(getTotalAddOnsCostCents());
     }
 
-    private List<Double> extensionFees = new ArrayList<>();
+    public long getTotalAddOnsCostCents() {
+        if (addOns == null) return 0;
+        long total = 0;
+        for (int i = 0; i < addOns.size(); i++) {
+            total += addOns.get(i).getTotalPriceCents();
+        }
+        return total;
+    }
 
     public void addExtensionFee(double fee) {
-        extensionFees.add(fee);
+        addExtensionFeeCents(Money.toCents(fee));
+    }
+
+    public void addExtensionFeeCents(long feeCents) {
+        if (extensionFeeCents == null) {
+            extensionFeeCents = new long[2];
+        } else if (extensionFeeCount == extensionFeeCents.length) {
+            extensionFeeCents = Arrays.copyOf(extensionFeeCents, extensionFeeCount * 2);
+        }
+        extensionFeeCents[extensionFeeCount++] = feeCents;
     }
 
     public double getTotalExtensionFee() {
-        return extensionFees.stream().mapToDouble(Double::doubleValue).sum();
+        return Money.toAmount(getTotalExtensionFeeCents());
+    }
+
+    public long getTotalExtensionFeeCents() {
+        long total = 0;
+        for (int i = 0; i < extensionFeeCount; i++) {
+            total += extensionFeeCents[i];
+        }
+        return total;
     }
 
 
     // Updated to include tax in calculation
-    private double calculateTotalCost() {
-        return basePrice + taxAmount  + getTotalAddOnsCost() + getTotalExtensionFee() + damageFee;
+    private long calculateTotalCostCents() {
+        return basePriceCents + taxAmountCents + getTotalAddOnsCostCents() + getTotalExtensionFeeCents() + damageFeeCents;
     }
 
     // Method to recalculate total cost 
     public void recalculateTotalCost() {
-        this.totalCost = calculateTotalCost();
+        this.totalCostCents = calculateTotalCostCents();
     }
 
 
     @Override
     public String toString() {
+        Duration duration = getDuration();
         long hours = duration.toHours();
         long minutes = duration.toMinutesPart();
         return String.format(
                 "Rental ID: %s | Customer: %s | Vessel: %s %s | Location: %s | Duration: %dh %dm | Cost: RM%.2f | Status: %s",
-                rentalId, customerName, vesselCategory, vesselType, pickupLocation,
-                hours, minutes, totalCost, status);
+                rentalId, getCustomerName(), getVesselCategory(), getVesselType(), getPickupLocation(),
+                hours, minutes, getTotalCost(), status);
     }
 
    public void printDetails() {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        Duration duration = getDuration();
+        LocalDateTime actualEnd = getActualEnd();
         long hours = duration.toHours();
         long minutes = duration.toMinutesPart();
 
         System.out.println("\n==================== VESSEL RENTAL DETAILS ====================");
         System.out.println("Rental ID: " + rentalId);
-        System.out.println("Customer: " + customerName + " (" + customerId + ")");
-        System.out.println("Vessel Category: " + vesselCategory);
-        System.out.println("Vessel Type: " + vesselType + " (" + vesselId + ")");
-        System.out.println("Pickup Location: " + pickupLocation);
-        System.out.println("Scheduled Start: " + scheduledStart.format(formatter));
-        System.out.println("Scheduled End:   " + scheduledEnd.format(formatter));
+        System.out.println("Customer: " + getCustomerName() + " (" + getCustomerId() + ")");
+        System.out.println("Vessel Category: " + getVesselCategory());
+        System.out.println("Vessel Type: " + getVesselType() + " (" + getVesselId() + ")");
+        System.out.println("Pickup Location: " + getPickupLocation());
+        System.out.println("Scheduled Start: " + getScheduledStart().format(formatter));
+        System.out.println("Scheduled End:   " + getScheduledEnd().format(formatter));
         if (actualEnd != null) {
             System.out.println("Actual End:      " + actualEnd.format(formatter));
         }
         System.out.println("Duration: " + hours + "h " + minutes + "m");
-        System.out.println("Base Price: RM " + String.format("%.2f", basePrice));
-        System.out.println("Tax (6%): RM " + String.format("%.2f", taxAmount));
+        System.out.println("Base Price: RM " + String.format("%.2f", getBasePrice()));
+        System.out.println("Tax (6%): RM " + String.format("%.2f", getTaxAmount()));
         System.out.println("Add-Ons:");
-        if (addOns.isEmpty()) {
+        if (addOns == null || addOns.isEmpty()) {
             System.out.println("  None");
         } else {
             for (AddOn addOn : addOns) {
@@ -167,10 +215,10 @@ public class RentalRecord {
             }
         }
         System.out.println("Total Amount (Before Fees): RM " +
-        String.format("%.2f", basePrice + taxAmount + getTotalAddOnsCost()));
+        String.format("%.2f", getBasePrice() + getTaxAmount() + getTotalAddOnsCost()));
         System.out.println("Extension Fee: RM " + String.format("%.2f", getTotalExtensionFee()));
-        System.out.println("Damage Fee: RM " + String.format("%.2f", damageFee));
-        System.out.println("Total Cost: RM " + String.format("%.2f", totalCost));
+        System.out.println("Damage Fee: RM " + String.format("%.2f", getDamageFee()));
+        System.out.println("Total Cost: RM " + String.format("%.2f", getTotalCost()));
         System.out.println("Status: " + status);
 
         if (review != null) {
@@ -184,12 +232,12 @@ public class RentalRecord {
     }
 
     public boolean isOverdue() {
-        return LocalDateTime.now().isAfter(scheduledEnd) && status == RentalStatus.ACTIVE;
+        return EpochTime.toEpochSecond(LocalDateTime.now()) > scheduledEndEpoch && status == RentalStatus.ACTIVE;
     }
 
     public long getHoursOverdue() {
         if (isOverdue()) {
-            return Duration.between(scheduledEnd, LocalDateTime.now()).toHours();
+            return Duration.between(getScheduledEnd(), LocalDateTime.now()).toHours();
         }
         return 0;
     }
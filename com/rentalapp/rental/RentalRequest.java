@@ -14,6 +14,7 @@ public class RentalRequest {
     private Duration duration;              
     private List<AddOn> addOns; 
     private double totalCost; 
+    private String idempotencyKey;   // client-supplied, so retries return the original rental
 
     // ================= Constructor =================
     public RentalRequest(String customerId, String vesselId, String pickupLocation,
@@ -48,6 +49,7 @@ public class RentalRequest {
     public Duration getDuration() { return duration; }
     public List<AddOn> getAddOns() { return addOns; }
     public double getTotalCost() { return totalCost; }
+    public String getIdempotencyKey() { return idempotencyKey; }
     
     // ================= Setters =================
     public void setCustomerId(String customerId) { this.customerId = customerId; }
@@ -58,6 +60,7 @@ public class RentalRequest {
     public void setDuration(Duration duration) { this.duration = duration; }
     public void setAddOns(List<AddOn> addOns) { this.addOns = addOns; }
     public void setTotalCost(double totalCost) { this.totalCost = totalCost; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
 
     public double getTotalAddOnsCost() {
     return addOns.stream().mapToDouble(AddOn::getPrice).sum();
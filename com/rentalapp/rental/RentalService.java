@@ -2,26 +2,36 @@ package com.rentalapp.rental;
 
 import com.rentalapp.vessel.*;
 import com.rentalapp.auth.Customer;
-import com.rentalapp.auth.MemberCustomer;
 import com.rentalapp.maintenance.MaintenanceManager;
 import com.rentalapp.maintenance.MaintenanceType;
+import com.rentalapp.payment.Money;
 import com.rentalapp.payment.PaymentCalculator;
+import com.rentalapp.payment.PriceQuote;
+import com.rentalapp.payment.PricingCalendar;
+import com.rentalapp.utils.EventBus;
+import com.rentalapp.utils.IdGenerator;
+import com.rentalapp.utils.IdempotencyCache;
 
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class RentalService {
     private final VesselManager vesselManager;
     private final MaintenanceManager maintenanceManager;
     private final PaymentCalculator paymentCalculator;
 
-    private final List<RentalRecord> activeRentals = new ArrayList<>();
-    private final List<RentalRecord> completedRentals = new ArrayList<>();
-    private List<AddOn> availableAddOns = new ArrayList<>();
-    private int rentalIdCounter = 1000;
+    // Written from the console and from the waitlist/hold threads
+    private final List<RentalRecord> activeRentals = new CopyOnWriteArrayList<>();
+    private final List<RentalRecord> completedRentals = new CopyOnWriteArrayList<>();
+    private volatile AddOnCatalog addOnCatalog = AddOnCatalog.empty();
+    private final IdempotencyCache<RentalRecord> processedRequests = new IdempotencyCache<>(10_000, 24 * 60 * 60 * 1000L);
     private final RentalHistory rentalHistory;
+    private final EventBus eventBus;
+
+    private final Waitlist waitlist = new Waitlist();
 
     // Maintenance thresholds per vessel category
     private static final Map<String, Integer> MAINTENANCE_THRESHOLDS = Map.of(
@@ -33,39 +43,89 @@ public class RentalService {
     );
 
     public RentalService(VesselManager vesselManager, MaintenanceManager maintenanceManager, RentalHistory rentalHistory) {
+        this(vesselManager, maintenanceManager, rentalHistory, new EventBus());
+    }
+
+    public RentalService(VesselManager vesselManager, MaintenanceManager maintenanceManager,
+                         RentalHistory rentalHistory, EventBus eventBus) {
+        this(vesselManager, maintenanceManager, rentalHistory, eventBus, new PaymentCalculator());
+    }
+
+    /** {@code paymentCalculator} is shared with the booking preview so both use one quote cache. */
+    public RentalService(VesselManager vesselManager, MaintenanceManager maintenanceManager,
+                         RentalHistory rentalHistory, EventBus eventBus, PaymentCalculator paymentCalculator) {
         this.vesselManager = vesselManager;
         this.maintenanceManager = maintenanceManager;
-        this.paymentCalculator = new PaymentCalculator();
+        this.paymentCalculator = paymentCalculator;
         this.rentalHistory = rentalHistory;
+        this.eventBus = eventBus;
+
+        // History rows and status changes share one subscriber so they apply in publish order
+        eventBus.subscribe("rental-history", RentalEvent.class, this::applyToHistory);
+        eventBus.subscribe("maintenance", RentalEvent.Completed.class, this::onRentalCompleted);
+        eventBus.subscribe("waitlist", VesselReleased.class, this::onVesselReleased);
+    }
+
+    public EventBus getEventBus() {
+        return eventBus;
     }
 
-    
 
     // ================= ADD-ONS =================
     public void loadAvailableAddOns(List<AddOn> addOns) {
-        this.availableAddOns = new ArrayList<>(addOns);
+        this.addOnCatalog = new AddOnCatalog(addOns);
     }
 
     public List<AddOn> getAvailableAddOns() {
-        return new ArrayList<>(availableAddOns);
+        return addOnCatalog.getAll();
+    }
+
+    public List<AddOn> getAddOnsFor(String vesselCategory) {
+        return addOnCatalog.getAddOnsFor(vesselCategory);
     }
 
     public void addAddOnToRental(RentalRecord rental, AddOn addOn) {
         rental.addAddOn(addOn);
-        rental.setTotalCost(rental.getBasePrice() + rental.getTotalAddOnsCost());
+        rental.recalculateTotalCost();
     }
 
     // ================= RENTAL PROCESSING =================
     public RentalRecord processRental(RentalRequest request, Customer customer) {
+        return processRental(request, customer, true);
+    }
+
+    /** With {@code waitlistIfUnavailable} false a sold-out vessel just fails the request (waitlist offers). */
+    RentalRecord processRental(RentalRequest request, Customer customer, boolean waitlistIfUnavailable) {
+        if (request == null || request.getIdempotencyKey() == null || request.getIdempotencyKey().isBlank()) {
+            return createRental(request, customer, waitlistIfUnavailable);
+        }
+
+        // Keys are scoped per customer so two kiosks cannot collide on the same client key
+        String key = customer.getCustomerId() + ":" + request.getIdempotencyKey();
+        boolean[] created = {false};
+        RentalRecord rental = processedRequests.getOrCompute(key, () -> {
+            created[0] = true;
+            return createRental(request, customer, waitlistIfUnavailable);
+        });
+        if (rental != null && !created[0]) {
+            System.out.println("Duplicate request detected. Returning existing rental " + rental.getRentalId() + ".");
+        }
+        return rental;
+    }
+
+    private synchronized RentalRecord createRental(RentalRequest request, Customer customer, boolean waitlistIfUnavailable) {
         if (!validateRentalRequest(request)) return null;
 
         Vessel vessel = vesselManager.getVesselById(request.getVesselId());
         if (vessel == null || !vessel.isAvailable()) {
             System.out.println("Vessel is not available for rental.");
+            if (vessel != null && waitlistIfUnavailable) {
+                addToWaitlist(request, customer, vessel);
+            }
             return null;
         }
 
-        String rentalId = "V" + (++rentalIdCounter);
+        String rentalId = IdGenerator.shared().next("V");
         double calculatedTotalCost = request.getTotalCost();
 
         RentalRecord rental = new RentalRecord(
@@ -83,34 +143,42 @@ public class RentalService {
             customer.getName()
         );
 
-        // Calculate base price
-        double basePrice = vessel.getBasePrice();
-        if (customer instanceof MemberCustomer member) {
-        basePrice -= basePrice * (member.getDiscountRate() / 100.0);
-        }
-        double tax = basePrice * 0.06;
-
         // Add-ons
-        double addOnTotal = 0.0;
         if (request.getAddOns() != null) {
             for (AddOn addon : request.getAddOns()) {
                 rental.addAddOn(addon);
-                addOnTotal += addon.getTotalPrice();
             }
         }
 
-        double totalCost = basePrice + tax  + addOnTotal;
-        rental.setBasePrice(basePrice);
-        rental.setTaxAmount(tax);
-        rental.setTotalCost(totalCost);
+        // Same quote the booking preview showed: calendar-adjusted base, member discount, then tax
+        PriceQuote quote = paymentCalculator.quote(vessel, customer, request.getScheduledStart(),
+                request.getDuration(), request.getAddOns());
+        rental.setBasePriceCents(quote.getDiscountedBaseCents());
+        rental.setTaxAmountCents(quote.getTaxCents());
+        rental.setTotalCostCents(quote.getTotalCents());
 
-        if (vesselManager.rentVessel(request.getVesselId())) {
-            activeRentals.add(rental);
-            System.out.println("Vessel rental processed successfully!");
-            System.out.println("Note: All rentals come with a certified captain for safety and navigation.");
-            return rental;
+        // Reserving the vessel is the last step that can fail: once it is taken the rental
+        // is returned, so an idempotent retry finds this booking instead of a rented vessel
+        if (!vesselManager.rentVessel(request.getVesselId())) {
+            return null;
+        }
+        activeRentals.add(rental);
+        recordInCalendar(rental, vessel);
+        System.out.println("Vessel rental processed successfully!");
+        System.out.println("Note: All rentals come with a certified captain for safety and navigation.");
+        return rental;
+    }
+
+    // Utilisation only steers surge pricing, so a failure here must not undo the booking
+    private void recordInCalendar(RentalRecord rental, Vessel vessel) {
+        PricingCalendar calendar = paymentCalculator.getCalendar();
+        if (calendar == null) return;
+        try {
+            calendar.recordBooking(rental.getRentalId(), vessel, rental.getScheduledStart(), rental.getScheduledEnd());
+        } catch (RuntimeException e) {
+            System.err.println("Pricing calendar: rental " + rental.getRentalId() + " not counted towards utilisation: "
+                    + e.getMessage());
         }
-        return null;
     }
 
     public boolean extendRental(String rentalId, Duration additionalDuration) {
@@ -121,8 +189,10 @@ public class RentalService {
         }
         rental.setScheduledEnd(rental.getScheduledEnd().plus(additionalDuration));
         rental.setDuration(rental.getDuration().plus(additionalDuration));
-        double additionalCost = paymentCalculator.calculateExtensionCost(rental.getVesselCategory(), additionalDuration);
-        rental.setTotalCost(rental.getTotalCost() + additionalCost);
+        PricingCalendar calendar = paymentCalculator.getCalendar();
+        if (calendar != null) calendar.rescheduleBooking(rentalId, rental.getScheduledEnd());
+        long additionalCost = paymentCalculator.calculateExtensionCents(rental.getVesselCategory(), additionalDuration.toHours());
+        rental.setTotalCostCents(rental.getTotalCostCents() + additionalCost);
         return true;
     }
 
@@ -140,6 +210,9 @@ public class RentalService {
 
         activeRentals.remove(rental);
         completedRentals.add(rental); // keep in history as "cancelled"
+        releaseFromCalendar(rental);
+        eventBus.publish(new RentalEvent.Cancelled(rental.getRentalId(), rental.getVesselId(), rental.getActualEnd()));
+        eventBus.publish(new VesselReleased(rental.getVesselId(), "cancelled"));
 
        addToRentalHistory(
         rental,
@@ -168,22 +241,29 @@ public class RentalService {
             }
             rental.setStatus(finalStatus);
 
-            Vessel vessel = vesselManager.getVesselById(rental.getVesselId());
-            if (vessel != null && finalStatus == RentalStatus.COMPLETED) {
-                vessel.incrementRentalCount();
-                checkAndScheduleMaintenance(vessel);
-            }
-
             activeRentals.remove(rental);
             if (finalStatus == RentalStatus.COMPLETED || finalStatus == RentalStatus.CANCELLED) {
                 completedRentals.add(rental);
             }
+            if (finalStatus == RentalStatus.COMPLETED) {
+                rentalHistory.getCustomerAggregates().onRentalCompleted(rental.getCustomerId());
+            }
+            releaseFromCalendar(rental);
+            // Rental counts and maintenance checks run off the customer's path
+            eventBus.publish(new RentalEvent.Completed(rentalId, rental.getVesselId(), finalStatus, rental.getActualEnd()));
+            eventBus.publish(new VesselReleased(rental.getVesselId(), "returned"));
             System.out.println("Rental " + rentalId + " marked as " + finalStatus);
             return true;
         }
         return false;
     }
 
+    // Days after the rental ended no longer count towards its class's utilisation
+    private void releaseFromCalendar(RentalRecord rental) {
+        PricingCalendar calendar = paymentCalculator.getCalendar();
+        if (calendar != null) calendar.releaseBooking(rental.getRentalId(), rental.getActualEnd());
+    }
+
     public void addToRentalHistory(RentalRecord rental, Customer customer,
                                String paymentMethod, int loyaltyPoints) {
     // Pick actualEnd if available, otherwise fall back to scheduledEnd
@@ -212,10 +292,72 @@ public class RentalService {
             loyaltyPoints
     );
 
-    rentalHistory.addRentalRecord(historyRecord);
+    eventBus.publish(new RentalEvent.HistoryRecorded(historyRecord));
 
 }
 
+    // ================= WAITLIST =================
+    public Waitlist getWaitlist() {
+        return waitlist;
+    }
+
+    /**
+     * Vessels currently offered to the customer's waitlisted requests. Offers whose
+     * requested start has passed are expired here and their vessel offered onwards.
+     */
+    public List<Waitlist.Entry> getWaitlistOffers(String customerId) {
+        List<Waitlist.Entry> offers = waitlist.getCustomerOffers(customerId);
+        offers.removeIf(entry -> {
+            if (!entry.getRequest().getScheduledStart().isBefore(LocalDateTime.now())) return false;
+            waitlist.markExpired(entry);
+            offerOnwards(entry.getOfferedVesselId());
+            return true;
+        });
+        return offers;
+    }
+
+    /** The customer booked the vessel offered to {@code entry}. */
+    public void acceptWaitlistOffer(Waitlist.Entry entry) {
+        waitlist.markFulfilled(entry);
+    }
+
+    /**
+     * The offered vessel could not be booked (someone else took it first); the request
+     * keeps its place at the head of the lane.
+     */
+    public void returnWaitlistOffer(Waitlist.Entry entry) {
+        String vesselId = entry.getOfferedVesselId();
+        waitlist.requeue(entry);
+        offerOnwards(vesselId);
+    }
+
+    /** The customer turned the offer down and left the waitlist; the next request gets the vessel. */
+    public void declineWaitlistOffer(Waitlist.Entry entry) {
+        String vesselId = entry.getOfferedVesselId();
+        if (waitlist.cancel(entry.getEntryId())) {
+            offerOnwards(vesselId);
+        }
+    }
+
+    private void offerOnwards(String vesselId) {
+        Vessel vessel = vesselId == null ? null : vesselManager.getVesselById(vesselId);
+        if (vessel != null && vessel.isAvailable()) {
+            eventBus.publish(new VesselReleased(vesselId, "waitlist offer passed on"));
+        }
+    }
+
+    private void addToWaitlist(RentalRequest request, Customer customer, Vessel vessel) {
+        Waitlist.Entry entry = waitlist.enqueue(request, customer, vessel.getVesselCategory(), vessel.getLocation());
+        if (entry == null) {
+            System.out.println("You are already on the waitlist for " + vessel.getVesselCategory()
+                    + " at " + vessel.getLocation() + ".");
+            return;
+        }
+        System.out.println("Added to the waitlist for " + vessel.getVesselCategory() + " at " + vessel.getLocation()
+                + " (reference " + entry.getEntryId() + ", position " + entry.getPosition() + ").");
+        System.out.println("When one is released it will be offered to you under Rental Operations.");
+    }
+
     // ================= QUERIES =================
     public List<RentalRecord> getActiveRentals() {
         return new ArrayList<>(activeRentals);
@@ -225,12 +367,27 @@ public class RentalService {
         return new ArrayList<>(completedRentals);
     }
 
+    // Only finished rentals count, not cancelled ones
     public int getCompletedRentalsCount(String customerId) {
-    return (int) completedRentals.stream()
-            .filter(r -> r.getCustomerId().equals(customerId))
-            .filter(r -> r.getStatus() == RentalStatus.COMPLETED) // only count finished rentals, not cancelled
-            .count();
+        return rentalHistory.getCustomerAggregates().get(customerId).getCompletedRentals();
+    }
+
+    /**
+     * Rebuild the per-customer totals from the raw history rows and rental records and
+     * compare. Any mismatch is reported and the rebuilt totals replace the running ones.
+     * Run from the admin Report Generation menu, ideally while no rentals are being written.
+     */
+    public int verifyCustomerAggregates() {
+        CustomerAggregates running = rentalHistory.getCustomerAggregates();
+        CustomerAggregates rebuilt = CustomerAggregates.rebuild(rentalHistory.iterateHistory(), completedRentals);
+        List<String> mismatched = running.verifyAgainst(rebuilt);
+        if (!mismatched.isEmpty()) {
+            System.err.println("Customer totals out of step for " + mismatched.size()
+                    + " customer(s): " + mismatched + ". Rebuilt from history.");
+            running.replaceWith(rebuilt);
         }
+        return mismatched.size();
+    }
 
     public List<RentalRecord> getAllRentals() {
         List<RentalRecord> all = new ArrayList<>(activeRentals);
@@ -260,7 +417,11 @@ public class RentalService {
     }
 
     public double getTotalRevenue() {
-        return activeRentals.stream().mapToDouble(RentalRecord::getTotalCost).sum();
+        long total = 0;
+        for (RentalRecord rental : activeRentals) {
+            total += rental.getTotalCostCents();
+        }
+        return Money.toAmount(total);
     }
 
     public RentalHistory getRentalHistory() {
@@ -315,6 +476,48 @@ public class RentalService {
         return results;
     }
 
+    // ================= EVENT HANDLERS =================
+    private void applyToHistory(RentalEvent event) {
+        if (event instanceof RentalEvent.HistoryRecorded recorded) {
+            rentalHistory.addRentalRecord(recorded.record());
+        } else if (event instanceof RentalEvent.StatusChanged changed) {
+            rentalHistory.updateStatus(changed.rentalId(), changed.newStatus());
+        }
+    }
+
+    private void onRentalCompleted(RentalEvent.Completed event) {
+        if (event.status() != RentalStatus.COMPLETED) return;
+
+        // Guard against a concurrent rentVessel on the console thread
+        synchronized (vesselManager) {
+            Vessel vessel = vesselManager.getVesselById(event.vesselId());
+            if (vessel != null) {
+                vessel.incrementRentalCount();
+                checkAndScheduleMaintenance(vessel);
+            }
+        }
+    }
+
+    /**
+     * Offer a released vessel to the oldest request in its lane. Runs on the waitlist
+     * subscriber thread. The vessel stays free: the customer sees the offer in Rental
+     * Operations and books it at the current price. Requests whose start time has
+     * already passed are expired.
+     */
+    private void onVesselReleased(VesselReleased event) {
+        Vessel vessel = vesselManager.getVesselById(event.vesselId());
+        if (vessel == null || !vessel.isAvailable()) return;
+
+        Waitlist.Entry entry;
+        while ((entry = waitlist.offerNext(vessel.getVesselCategory(), vessel.getLocation(), vessel.getId())) != null) {
+            if (entry.getRequest().getScheduledStart().isBefore(LocalDateTime.now())) {
+                waitlist.markExpired(entry);
+                continue;
+            }
+            return;
+        }
+    }
+
     private void checkAndScheduleMaintenance(Vessel vessel) {
         int threshold = MAINTENANCE_THRESHOLDS.getOrDefault(vessel.getVesselCategory().toLowerCase(), 12);
         if (vessel.getRentalCount() >= threshold) {
@@ -5,5 +5,6 @@ public enum RentalStatus {
     COMPLETED,
     EXTENDED,
     CANCELLED,
-    OVERDUE
+    OVERDUE,
+    RETURNED
 }
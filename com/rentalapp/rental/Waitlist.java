@@ -0,0 +1,213 @@
+package com.rentalapp.rental;
+
+import com.rentalapp.auth.Customer;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Requests waiting for a sold-out vessel, kept in one FIFO lane per category and
+ * location. Lanes are lock-free queues, so enqueueing from the console and matching
+ * from the event thread never block each other. A released vessel is offered to the
+ * oldest waiting request; it is not reserved, and the customer books it through the
+ * normal confirm-and-pay flow. Entries are dropped once booked, expired or cancelled.
+ */
+public class Waitlist {
+
+    public enum State { WAITING, OFFERED, FULFILLED, EXPIRED, CANCELLED }
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final Map<String, Entry> entriesById = new ConcurrentHashMap<>(); // WAITING and OFFERED only
+    private final AtomicInteger idCounter = new AtomicInteger(1000);
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder fulfilled = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+
+    /**
+     * Queue a request. Returns null if the customer is already waiting in this lane.
+     */
+    public Entry enqueue(RentalRequest request, Customer customer, String category, String location) {
+        Lane lane = lanes.computeIfAbsent(laneKey(category, location), k -> new Lane(category, location));
+        if (!lane.waitingCustomers.add(customer.getCustomerId())) {
+            return null;
+        }
+
+        Entry entry = new Entry("W" + idCounter.incrementAndGet(), request, customer, lane);
+        entriesById.put(entry.entryId, entry);
+        lane.queue.add(entry);
+        entry.position = lane.waiting.incrementAndGet();
+        enqueued.increment();
+        return entry;
+    }
+
+    /**
+     * Offer {@code vesselId} to the oldest waiting entry of the lane and return it, or
+     * null if nobody is waiting.
+     */
+    Entry offerNext(String category, String location, String vesselId) {
+        Lane lane = lanes.get(laneKey(category, location));
+        if (lane == null) return null;
+
+        Entry entry;
+        while ((entry = lane.queue.poll()) != null) {
+            entry.offeredVesselId = vesselId;
+            if (entry.transition(State.WAITING, State.OFFERED)) {
+                offered.increment();
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Put an offered entry back at the head of its lane (the vessel was taken before
+     * the customer could book it).
+     */
+    void requeue(Entry entry) {
+        if (entry.transition(State.OFFERED, State.WAITING)) {
+            entry.offeredVesselId = null;
+            entry.lane.queue.addFirst(entry);
+        }
+    }
+
+    public boolean cancel(String entryId) {
+        Entry entry = entriesById.get(entryId);
+        return entry != null && (entry.transition(State.WAITING, State.CANCELLED)
+                || entry.transition(State.OFFERED, State.CANCELLED));
+    }
+
+    /** The customer booked the offered vessel. */
+    void markFulfilled(Entry entry) {
+        if (entry.transition(State.OFFERED, State.FULFILLED)) {
+            fulfilled.increment();
+        }
+    }
+
+    void markExpired(Entry entry) {
+        if (entry.transition(State.OFFERED, State.EXPIRED) || entry.transition(State.WAITING, State.EXPIRED)) {
+            expired.increment();
+        }
+    }
+
+    public Entry getEntry(String entryId) {
+        return entriesById.get(entryId);
+    }
+
+    public List<Entry> getCustomerEntries(String customerId) {
+        List<Entry> result = new ArrayList<>();
+        for (Entry entry : entriesById.values()) {
+            if (entry.customer.getCustomerId().equals(customerId)) {
+                result.add(entry);
+            }
+        }
+        result.sort(Comparator.comparing(Entry::getEnqueuedAt));
+        return result;
+    }
+
+    /** Entries of the customer that have a vessel on offer, oldest first. */
+    public List<Entry> getCustomerOffers(String customerId) {
+        List<Entry> result = getCustomerEntries(customerId);
+        result.removeIf(entry -> entry.getState() != State.OFFERED);
+        return result;
+    }
+
+    public int getWaitingCount(String category, String location) {
+        Lane lane = lanes.get(laneKey(category, location));
+        return lane == null ? 0 : lane.waiting.get();
+    }
+
+    public void printStatus() {
+        System.out.println("\n==================== RENTAL WAITLIST ====================");
+        System.out.printf("%-18s %-30s %8s%n", "Category", "Location", "Waiting");
+        System.out.println("-".repeat(58));
+        List<Lane> sorted = new ArrayList<>(lanes.values());
+        sorted.sort(Comparator.comparing((Lane l) -> l.category).thenComparing(l -> l.location));
+        for (Lane lane : sorted) {
+            System.out.printf("%-18s %-30s %8d%n", lane.category, lane.location, lane.waiting.get());
+        }
+        if (sorted.isEmpty()) {
+            System.out.println("No requests have been waitlisted.");
+        }
+        System.out.println("-".repeat(58));
+        System.out.printf("Enqueued: %d | Offered: %d | Booked: %d | Expired: %d%n",
+                enqueued.sum(), offered.sum(), fulfilled.sum(), expired.sum());
+        System.out.println("=========================================================\n");
+    }
+
+    private static String laneKey(String category, String location) {
+        return (category == null ? "" : category.trim().toLowerCase()) + "|"
+             + (location == null ? "" : location.trim().toLowerCase());
+    }
+
+    // ================= LANE / ENTRY =================
+    private static final class Lane {
+        private final String category;
+        private final String location;
+        private final Deque<Entry> queue = new ConcurrentLinkedDeque<>();
+        private final Set<String> waitingCustomers = ConcurrentHashMap.newKeySet();
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        Lane(String category, String location) {
+            this.category = category;
+            this.location = location;
+        }
+    }
+
+    /**
+     * One waitlisted request: WAITING -> OFFERED -> FULFILLED/EXPIRED/CANCELLED, or
+     * WAITING -> CANCELLED/EXPIRED. An OFFERED entry goes back to WAITING if its vessel
+     * was taken before the customer could book it.
+     */
+    public final class Entry {
+        private final String entryId;
+        private final RentalRequest request;
+        private final Customer customer;
+        private final Lane lane;
+        private final LocalDateTime enqueuedAt = LocalDateTime.now();
+        private final AtomicReference<State> state = new AtomicReference<>(State.WAITING);
+        private volatile String offeredVesselId;
+        private int position;
+
+        private Entry(String entryId, RentalRequest request, Customer customer, Lane lane) {
+            this.entryId = entryId;
+            this.request = request;
+            this.customer = customer;
+            this.lane = lane;
+        }
+
+        private boolean transition(State from, State to) {
+            if (!state.compareAndSet(from, to)) return false;
+            if (from == State.WAITING) {
+                lane.waiting.decrementAndGet();
+                lane.waitingCustomers.remove(customer.getCustomerId());
+                if (to != State.OFFERED) lane.queue.remove(this); // cancelled or expired while queued
+            } else if (to == State.WAITING) {
+                lane.waiting.incrementAndGet();
+                lane.waitingCustomers.add(customer.getCustomerId());
+            }
+            if (to == State.FULFILLED || to == State.EXPIRED || to == State.CANCELLED) {
+                entriesById.remove(entryId, this);
+            }
+            return true;
+        }
+
+        public String getEntryId() { return entryId; }
+        public RentalRequest getRequest() { return request; }
+        public Customer getCustomer() { return customer; }
+        public String getCategory() { return lane.category; }
+        public String getLocation() { return lane.location; }
+        public LocalDateTime getEnqueuedAt() { return enqueuedAt; }
+        public State getState() { return state.get(); }
+        /** The vessel on offer while OFFERED; it may differ from the one originally requested. */
+        public String getOfferedVesselId() { return offeredVesselId; }
+        /** Position in the lane when the request was queued (1 = next in line). */
+        public int getPosition() { return position; }
+    }
+}
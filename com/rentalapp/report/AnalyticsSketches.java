@@ -0,0 +1,128 @@
+package com.rentalapp.report;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * Approximate dashboard statistics kept on insert: distinct customers (all time and
+ * per month), heavy-hitter items and duration/amount quantiles. Memory is fixed per
+ * sketch (about 4 KB per month of distinct counts, a few KB for the rest) whatever the
+ * number of rows. Monthly counts are kept for the {@link #MONTHS_KEPT} months up to the
+ * latest one seen; older months are dropped (the all-time count still includes them).
+ * Written by one event thread and read from the console, so every
+ * access goes through this object's lock.
+ */
+public class AnalyticsSketches {
+    private static final int TOP_ITEM_CAPACITY = 128;
+    public static final int MONTHS_KEPT = 24;
+
+    private final HyperLogLog customers = new HyperLogLog();
+    private final NavigableMap<YearMonth, HyperLogLog> customersByMonth = new TreeMap<>();
+    private final SpaceSaving topItems = new SpaceSaving(TOP_ITEM_CAPACITY);
+    private final QuantileSketch durationMinutes = new QuantileSketch();
+    private final QuantileSketch amounts = new QuantileSketch();
+    private long rows;
+
+    /**
+     * Record one row. {@code at} places the customer in a month (skipped if null); a
+     * null duration or item is simply not sampled.
+     */
+    public synchronized void record(LocalDateTime at, String customerId, String item,
+                                    Long durationMinutes, double amount) {
+        rows++;
+        customers.add(customerId);
+        if (at != null) {
+            YearMonth month = YearMonth.from(at);
+            if (customersByMonth.isEmpty() || month.isAfter(customersByMonth.lastKey().minusMonths(MONTHS_KEPT))) {
+                customersByMonth.computeIfAbsent(month, m -> new HyperLogLog()).add(customerId);
+                dropExpiredMonths();
+            }
+        }
+        topItems.add(item);
+        if (durationMinutes != null) {
+            this.durationMinutes.add(durationMinutes);
+        }
+        amounts.add(amount);
+    }
+
+    private void dropExpiredMonths() {
+        customersByMonth.headMap(customersByMonth.lastKey().minusMonths(MONTHS_KEPT), true).clear();
+    }
+
+    public synchronized long getRowCount() { return rows; }
+
+    public synchronized long estimateDistinctCustomers() {
+        return customers.estimate();
+    }
+
+    /** 0 for months with no rows and months older than the retained window. */
+    public synchronized long estimateDistinctCustomers(YearMonth month) {
+        HyperLogLog sketch = customersByMonth.get(month);
+        return sketch == null ? 0 : sketch.estimate();
+    }
+
+    /** Estimated distinct customers per month, oldest first. */
+    public synchronized Map<YearMonth, Long> estimateDistinctCustomersByMonth() {
+        Map<YearMonth, Long> result = new LinkedHashMap<>();
+        customersByMonth.forEach((month, sketch) -> result.put(month, sketch.estimate()));
+        return result;
+    }
+
+    public synchronized List<SpaceSaving.Item> getTopItems(int k) {
+        return new ArrayList<>(topItems.top(k));
+    }
+
+    public synchronized double getDurationQuantile(double q) {
+        return durationMinutes.quantile(q);
+    }
+
+    public synchronized double getAmountQuantile(double q) {
+        return amounts.quantile(q);
+    }
+
+    /** Fold another instance (e.g. from another shard or a replayed log) into this one. */
+    public void merge(AnalyticsSketches other) {
+        if (other == this) return;
+        // Lock in a fixed order so two concurrent merges in opposite directions cannot deadlock
+        AnalyticsSketches first = System.identityHashCode(this) <= System.identityHashCode(other) ? this : other;
+        AnalyticsSketches second = first == this ? other : this;
+        synchronized (first) {
+            synchronized (second) {
+                rows += other.rows;
+                customers.merge(other.customers);
+                other.customersByMonth.forEach((month, sketch) ->
+                        customersByMonth.computeIfAbsent(month, m -> new HyperLogLog()).merge(sketch));
+                if (!customersByMonth.isEmpty()) dropExpiredMonths();
+                topItems.merge(other.topItems);
+                durationMinutes.merge(other.durationMinutes);
+                amounts.merge(other.amounts);
+            }
+        }
+    }
+
+    /** Add these figures to the report as sections whose titles start with {@code prefix}. */
+    public synchronized void appendTo(Report report, String prefix, String itemLabel) {
+        report.metrics(prefix + " (approximate)")
+              .row("Rows", rows)
+              .row("Distinct Customers", customers.estimate())
+              .row("Median Duration (min)", quantileOrNone(durationMinutes, 0.5))
+              .row("P90 Duration (min)", quantileOrNone(durationMinutes, 0.9))
+              .row("P99 Duration (min)", quantileOrNone(durationMinutes, 0.99))
+              .row("Median Amount (RM)", quantileOrNone(amounts, 0.5))
+              .row("P90 Amount (RM)", quantileOrNone(amounts, 0.9))
+              .row("P99 Amount (RM)", quantileOrNone(amounts, 0.99));
+
+        Report.Section months = report.table(prefix + " - Distinct Customers by Month", "Month", "Customers");
+        customersByMonth.forEach((month, sketch) -> months.row(month.toString(), sketch.estimate()));
+
+        Report.Section items = report.table(prefix + " - Top " + itemLabel, itemLabel, "Count", "Max Overcount");
+        for (SpaceSaving.Item item : topItems.top(5)) {
+            items.row(item.value(), item.count(), item.error());
+        }
+    }
+
+    private static Object quantileOrNone(QuantileSketch sketch, double q) {
+        return sketch.getCount() == 0 ? "n/a" : sketch.quantile(q);
+    }
+}
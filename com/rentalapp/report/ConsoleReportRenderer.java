@@ -0,0 +1,78 @@
+package com.rentalapp.report;
+
+import java.util.List;
+
+/**
+ * Prints reports in the same banner-and-bullets layout the console menus use.
+ */
+public class ConsoleReportRenderer implements ReportRenderer {
+    private static final int WIDTH = 63;
+
+    @Override
+    public String render(Report report) {
+        StringBuilder sb = new StringBuilder();
+        String title = " " + report.getTitle().toUpperCase() + " ";
+        int side = Math.max(4, (WIDTH - title.length()) / 2);
+        sb.append('\n').append("=".repeat(side)).append(title).append("=".repeat(side)).append('\n');
+
+        boolean first = true;
+        for (Report.Section section : report.getSections()) {
+            if (!first || section.getTitle() != null) {
+                sb.append('\n');
+            }
+            if (section.getTitle() != null) {
+                sb.append(section.getTitle()).append(":\n");
+            }
+            if (section.getRows().isEmpty()) {
+                sb.append("- none\n");
+            } else if (section.isMetrics()) {
+                for (List<Object> row : section.getRows()) {
+                    sb.append(ReportRenderer.format(row.get(0))).append(": ")
+                      .append(ReportRenderer.format(row.get(1))).append('\n');
+                }
+            } else {
+                appendTable(sb, section);
+            }
+            first = false;
+        }
+        sb.append("=".repeat(side * 2 + title.length())).append('\n');
+        return sb.toString();
+    }
+
+    private void appendTable(StringBuilder sb, Report.Section section) {
+        List<String> columns = section.getColumns();
+        int[] widths = new int[columns.size()];
+        for (int c = 0; c < columns.size(); c++) {
+            widths[c] = columns.get(c).length();
+        }
+        for (List<Object> row : section.getRows()) {
+            for (int c = 0; c < row.size(); c++) {
+                widths[c] = Math.max(widths[c], ReportRenderer.format(row.get(c)).length());
+            }
+        }
+
+        appendRow(sb, columns, widths, "  ");
+        sb.append("  ").append("-".repeat(sumWidths(widths))).append('\n');
+        for (List<Object> row : section.getRows()) {
+            appendRow(sb, row, widths, "- ");
+        }
+    }
+
+    private void appendRow(StringBuilder sb, List<?> values, int[] widths, String prefix) {
+        sb.append(prefix);
+        for (int c = 0; c < values.size(); c++) {
+            Object value = values.get(c);
+            String text = ReportRenderer.format(value);
+            String format = value instanceof Number ? "%" + widths[c] + "s" : "%-" + widths[c] + "s";
+            sb.append(String.format(format, text));
+            if (c < values.size() - 1) sb.append("  ");
+        }
+        sb.append('\n');
+    }
+
+    private int sumWidths(int[] widths) {
+        int total = 0;
+        for (int w : widths) total += w;
+        return total + (widths.length - 1) * 2;
+    }
+}
@@ -0,0 +1,41 @@
+package com.rentalapp.report;
+
+import java.util.List;
+
+/**
+ * One CSV block per section: a "# section" line, the header row, then the rows.
+ */
+public class CsvReportRenderer implements ReportRenderer {
+
+    @Override
+    public String render(Report report) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(report.getTitle()).append('\n');
+        for (Report.Section section : report.getSections()) {
+            sb.append('\n');
+            if (section.getTitle() != null) {
+                sb.append("# ").append(section.getTitle()).append('\n');
+            }
+            appendLine(sb, section.getColumns());
+            for (List<Object> row : section.getRows()) {
+                appendLine(sb, row);
+            }
+        }
+        return sb.toString();
+    }
+
+    private void appendLine(StringBuilder sb, List<?> values) {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(escape(ReportRenderer.format(values.get(i))));
+        }
+        sb.append('\n');
+    }
+
+    static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,12 @@
+package com.rentalapp.report;
+
+/**
+ * How an exporter lays out one value per column for a row type.
+ */
+public interface ExportFormat<T> {
+
+    String[] columns();
+
+    /** Column values for one row, in {@link #columns()} order. Numbers stay numbers for JSON. */
+    Object[] values(T row);
+}
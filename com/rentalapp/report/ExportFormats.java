@@ -0,0 +1,60 @@
+package com.rentalapp.report;
+
+import com.rentalapp.payment.Receipt;
+import com.rentalapp.rental.RentalHistoryRecord;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Column layouts for the data the accountants export.
+ */
+public final class ExportFormats {
+    private ExportFormats() {}
+
+    public static final ExportFormat<RentalHistoryRecord> RENTAL_HISTORY = new ExportFormat<>() {
+        private final String[] columns = {
+            "rentalId", "customerId", "customerName", "vesselId", "vesselModel", "vesselType", "location",
+            "scheduledStart", "scheduledEnd", "actualEnd", "durationMinutes", "totalAmount",
+            "paymentMethod", "status", "loyaltyPoints"
+        };
+
+        public String[] columns() { return columns; }
+
+        public Object[] values(RentalHistoryRecord r) {
+            return new Object[] {
+                r.getRentalId(), r.getCustomerId(), r.getCustomerName(), r.getVesselId(), r.getVesselModel(),
+                r.getVesselType(), r.getLocation(), text(r.getScheduledStart()), text(r.getScheduledEnd()),
+                text(r.getActualEnd()), minutes(r.getDuration()), r.getTotalAmount(),
+                r.getPaymentMethod(), r.getStatus(), r.getLoyaltyPointsEarned()
+            };
+        }
+    };
+
+    public static final ExportFormat<Receipt> RECEIPTS = new ExportFormat<>() {
+        private final String[] columns = {
+            "receiptId", "rentalId", "customerId", "customerName", "vesselId", "vesselType", "vesselCategory",
+            "durationMinutes", "baseAmount", "addOnsAmount", "memberDiscount", "finalAmount",
+            "paymentMethod", "paymentDateTime", "loyaltyPoints"
+        };
+
+        public String[] columns() { return columns; }
+
+        public Object[] values(Receipt r) {
+            return new Object[] {
+                r.getReceiptId(), r.getRentalId(), r.getCustomerId(), r.getCustomerName(), r.getVesselId(),
+                r.getVesselType(), r.getVesselCategory(), minutes(r.getDuration()), r.getBaseAmount(),
+                r.getAddOnsAmount(), r.getMemberDiscount(), r.getFinalAmount(), r.getPaymentMethod(),
+                text(r.getPaymentDateTime()), r.getLoyaltyPointsEarned()
+            };
+        }
+    };
+
+    private static String text(LocalDateTime time) {
+        return time == null ? null : time.toString();
+    }
+
+    private static Long minutes(Duration duration) {
+        return duration == null ? null : duration.toMinutes();
+    }
+}
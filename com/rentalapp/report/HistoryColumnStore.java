@@ -0,0 +1,341 @@
+package com.rentalapp.report;
+
+import com.rentalapp.payment.Money;
+import com.rentalapp.rental.RentalHistoryRecord;
+import com.rentalapp.utils.EpochTime;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Column-oriented copy of the rental history for analytics. Rows are appended in the
+ * same order as RentalHistory, into chunks of up to 65,536 rows of primitive arrays:
+ * dictionary codes for the low-cardinality text columns, epoch seconds for times and
+ * cents for amounts. Filters produce one bitmap per chunk, and group-by scans run
+ * chunk by chunk across the common fork-join pool. A chunk's arrays start small and
+ * double as rows arrive, so a short history does not pay for a full chunk.
+ *
+ * One writer (RentalHistory, under its lock) and any number of readers: a chunk's
+ * row count is published after its cells are written, so readers only see whole rows.
+ * Status codes of published rows can still change while a scan runs, so a scan copes
+ * with codes added after it started.
+ */
+public class HistoryColumnStore {
+
+    /** Text columns that can be filtered and grouped on. */
+    public enum Dimension { VESSEL_TYPE, CATEGORY, LOCATION, STATUS, PAYMENT_METHOD }
+
+    static final int CHUNK_SHIFT = 16;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;     // 65,536 rows per chunk
+    private static final int INITIAL_CHUNK_CAPACITY = 1024;
+
+    private final ColumnDictionary[] dictionaries = new ColumnDictionary[Dimension.values().length];
+    private volatile Chunk[] chunks = new Chunk[0];
+    private int rowCount; // writer only
+
+    public HistoryColumnStore() {
+        for (int i = 0; i < dictionaries.length; i++) {
+            dictionaries[i] = new ColumnDictionary();
+        }
+    }
+
+    // ================= WRITES =================
+    /** Append a row; returns its row id (same position as in RentalHistory). */
+    public synchronized int append(RentalHistoryRecord record) {
+        int rowId = rowCount;
+        Chunk chunk = chunkForAppend(rowId >>> CHUNK_SHIFT);
+        int i = rowId & (CHUNK_SIZE - 1);
+        chunk.ensureCapacity(i + 1);
+
+        chunk.codes[Dimension.VESSEL_TYPE.ordinal()][i] = encode(Dimension.VESSEL_TYPE, record.getVesselModel());
+        chunk.codes[Dimension.CATEGORY.ordinal()][i] = encode(Dimension.CATEGORY, record.getVesselType());
+        chunk.codes[Dimension.LOCATION.ordinal()][i] = encode(Dimension.LOCATION, record.getLocation());
+        chunk.codes[Dimension.STATUS.ordinal()][i] = encode(Dimension.STATUS, record.getStatus());
+        chunk.codes[Dimension.PAYMENT_METHOD.ordinal()][i] = encode(Dimension.PAYMENT_METHOD, record.getPaymentMethod());
+        chunk.startEpoch[i] = EpochTime.toEpochSecond(record.getScheduledStart());
+        chunk.actualEndEpoch[i] = EpochTime.toEpochSecond(record.getActualEnd());
+        chunk.amountCents[i] = Money.toCents(record.getTotalAmount());
+        chunk.loyaltyPoints[i] = record.getLoyaltyPointsEarned();
+
+        chunk.size = i + 1; // publish the row
+        rowCount = rowId + 1;
+        return rowId;
+    }
+
+    public synchronized void setStatus(int rowId, String status) {
+        if (rowId < 0 || rowId >= rowCount) return;
+        Chunk chunk = chunks[rowId >>> CHUNK_SHIFT];
+        chunk.codes[Dimension.STATUS.ordinal()][rowId & (CHUNK_SIZE - 1)] = encode(Dimension.STATUS, status);
+    }
+
+    private char encode(Dimension dimension, String value) {
+        return dictionaries[dimension.ordinal()].encode(value);
+    }
+
+    private Chunk chunkForAppend(int index) {
+        Chunk[] current = chunks;
+        if (index < current.length) return current[index];
+        Chunk[] grown = Arrays.copyOf(current, index + 1);
+        grown[index] = new Chunk();
+        chunks = grown;
+        return grown[index];
+    }
+
+    // ================= QUERIES =================
+    public int size() {
+        int total = 0;
+        for (Chunk chunk : chunks) total += chunk.size;
+        return total;
+    }
+
+    public Filter filter() {
+        return new Filter();
+    }
+
+    /**
+     * Count, amount and loyalty points per value of the dimension for rows passing the
+     * filter (null = all rows). Chunks are scanned in parallel when {@code parallel} is set.
+     */
+    public Map<String, GroupTotals> groupBy(Dimension dimension, Filter filter, boolean parallel) {
+        ColumnDictionary dictionary = dictionaries[dimension.ordinal()];
+        Chunk[] snapshot;
+        int[] sizes;
+        int groups;
+        synchronized (this) { // rows and dictionary as of one instant; the scan itself runs unlocked
+            snapshot = chunks;
+            sizes = new int[snapshot.length];
+            for (int c = 0; c < snapshot.length; c++) sizes[c] = snapshot[c].size;
+            groups = dictionary.size();
+        }
+
+        IntStream chunkIndexes = IntStream.range(0, snapshot.length);
+        if (parallel) chunkIndexes = chunkIndexes.parallel();
+        Partial total = chunkIndexes
+                .mapToObj(c -> scanChunk(snapshot[c], sizes[c], dimension, filter, groups))
+                .reduce(Partial::merge) // merge mutates, so no shared identity
+                .orElseGet(() -> new Partial(groups));
+
+        Map<String, GroupTotals> result = new TreeMap<>();
+        for (int code = 0; code < total.counts.length; code++) {
+            if (total.counts[code] > 0) {
+                result.put(dictionary.decode(code),
+                        new GroupTotals(total.counts[code], total.amountCents[code], total.points[code]));
+            }
+        }
+        return result;
+    }
+
+    public Map<String, GroupTotals> groupBy(Dimension dimension, Filter filter) {
+        return groupBy(dimension, filter, true);
+    }
+
+    private Partial scanChunk(Chunk chunk, int size, Dimension dimension, Filter filter, int groups) {
+        Partial partial = new Partial(groups);
+        char[] keys = chunk.codes[dimension.ordinal()];
+        long[] amounts = chunk.amountCents;
+        int[] points = chunk.loyaltyPoints;
+        long[] counts = partial.counts;
+        long[] cents = partial.amountCents;
+        long[] pts = partial.points;
+
+        if (filter == null || filter.isEmpty()) {
+            for (int i = 0; i < size; i++) {
+                int key = keys[i];
+                if (key >= counts.length) { // status set to a new value after the snapshot
+                    partial.grow(key + 1);
+                    counts = partial.counts;
+                    cents = partial.amountCents;
+                    pts = partial.points;
+                }
+                counts[key]++;
+                cents[key] += amounts[i];
+                pts[key] += points[i];
+            }
+            return partial;
+        }
+
+        long[] bitmap = filter.bitmap(chunk, size);
+        for (int w = 0; w < bitmap.length; w++) {
+            long word = bitmap[w];
+            while (word != 0) {
+                int i = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                int key = keys[i];
+                if (key >= counts.length) {
+                    partial.grow(key + 1);
+                    counts = partial.counts;
+                    cents = partial.amountCents;
+                    pts = partial.points;
+                }
+                counts[key]++;
+                cents[key] += amounts[i];
+                pts[key] += points[i];
+            }
+        }
+        return partial;
+    }
+
+    /** Totals for one group. */
+    public record GroupTotals(long count, long amountCents, long loyaltyPoints) {
+        public double amount() { return Money.toAmount(amountCents); }
+    }
+
+    private static final class Partial {
+        long[] counts;
+        long[] amountCents;
+        long[] points;
+
+        Partial(int groups) {
+            counts = new long[groups];
+            amountCents = new long[groups];
+            points = new long[groups];
+        }
+
+        void grow(int groups) {
+            counts = Arrays.copyOf(counts, groups);
+            amountCents = Arrays.copyOf(amountCents, groups);
+            points = Arrays.copyOf(points, groups);
+        }
+
+        Partial merge(Partial other) {
+            if (other.counts.length > counts.length) grow(other.counts.length);
+            for (int g = 0; g < other.counts.length; g++) {
+                counts[g] += other.counts[g];
+                amountCents[g] += other.amountCents[g];
+                points[g] += other.points[g];
+            }
+            return this;
+        }
+    }
+
+    // ================= FILTERS =================
+    /**
+     * Row filter: equality on dimensions (several values of one dimension are ORed,
+     * different dimensions ANDed) and an optional scheduled-start range. Evaluated per
+     * chunk into a bitmap with one tight loop per condition.
+     */
+    public final class Filter {
+        private final Map<Dimension, BitSet> allowed = new EnumMap<>(Dimension.class);
+        private long fromEpoch = Long.MIN_VALUE;
+        private long toEpoch = Long.MAX_VALUE;
+        private boolean none;
+
+        private Filter() {}
+
+        public Filter where(Dimension dimension, String... values) {
+            BitSet codes = allowed.computeIfAbsent(dimension, d -> new BitSet());
+            for (String value : values) {
+                int code = dictionaries[dimension.ordinal()].lookup(value);
+                if (code >= 0) codes.set(code);
+            }
+            if (codes.isEmpty()) none = true; // no row can match an unknown value
+            return this;
+        }
+
+        /** Scheduled start within [from, to]; either end may be null. */
+        public Filter startingBetween(LocalDateTime from, LocalDateTime to) {
+            if (from != null) fromEpoch = EpochTime.toEpochSecond(from);
+            if (to != null) toEpoch = EpochTime.toEpochSecond(to);
+            return this;
+        }
+
+        boolean isEmpty() {
+            return !none && allowed.isEmpty() && fromEpoch == Long.MIN_VALUE && toEpoch == Long.MAX_VALUE;
+        }
+
+        long[] bitmap(Chunk chunk, int size) {
+            long[] bits = new long[(size + 63) >>> 6];
+            if (none || fromEpoch > toEpoch) return bits;
+
+            // Start with every published row set
+            int fullWords = size >>> 6;
+            Arrays.fill(bits, 0, fullWords, -1L);
+            if ((size & 63) != 0) bits[fullWords] = (1L << (size & 63)) - 1;
+
+            if (fromEpoch != Long.MIN_VALUE || toEpoch != Long.MAX_VALUE) {
+                long[] start = chunk.startEpoch;
+                for (int i = 0; i < size; i++) {
+                    long t = start[i];
+                    if (t < fromEpoch || t > toEpoch || t == EpochTime.NONE) {
+                        bits[i >>> 6] &= ~(1L << i);
+                    }
+                }
+            }
+            for (Map.Entry<Dimension, BitSet> condition : allowed.entrySet()) {
+                char[] codes = chunk.codes[condition.getKey().ordinal()];
+                BitSet accepted = condition.getValue();
+                for (int i = 0; i < size; i++) {
+                    if (!accepted.get(codes[i])) {
+                        bits[i >>> 6] &= ~(1L << i);
+                    }
+                }
+            }
+            return bits;
+        }
+    }
+
+    // ================= STORAGE =================
+    /**
+     * Up to CHUNK_SIZE rows. The writer replaces the arrays with doubled copies before
+     * publishing a row past their end; a reader holding the old arrays still finds every
+     * row it was told about.
+     */
+    private static final class Chunk {
+        private char[][] codes = new char[Dimension.values().length][INITIAL_CHUNK_CAPACITY];
+        private long[] startEpoch = new long[INITIAL_CHUNK_CAPACITY];
+        private long[] actualEndEpoch = new long[INITIAL_CHUNK_CAPACITY];
+        private long[] amountCents = new long[INITIAL_CHUNK_CAPACITY];
+        private int[] loyaltyPoints = new int[INITIAL_CHUNK_CAPACITY];
+        private volatile int size;
+
+        void ensureCapacity(int rows) {
+            int capacity = startEpoch.length;
+            if (rows <= capacity) return;
+            capacity = Math.min(CHUNK_SIZE, Math.max(rows, capacity * 2));
+            char[][] grownCodes = new char[codes.length][];
+            for (int d = 0; d < codes.length; d++) grownCodes[d] = Arrays.copyOf(codes[d], capacity);
+            codes = grownCodes;
+            startEpoch = Arrays.copyOf(startEpoch, capacity);
+            actualEndEpoch = Arrays.copyOf(actualEndEpoch, capacity);
+            amountCents = Arrays.copyOf(amountCents, capacity);
+            loyaltyPoints = Arrays.copyOf(loyaltyPoints, capacity);
+        }
+    }
+
+    /** Dense per-column dictionary; codes are 16-bit so a column holds up to 65,535 values. */
+    private static final class ColumnDictionary {
+        private final Map<String, Character> codes = new ConcurrentHashMap<>();
+        private volatile String[] values = new String[16];
+        private int size;
+
+        synchronized char encode(String value) {
+            String key = value == null ? "" : value;
+            Character code = codes.get(key);
+            if (code != null) return code;
+            if (size == Character.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct values for a column dictionary");
+            }
+            String[] current = values;
+            if (size == current.length) current = Arrays.copyOf(current, size * 2);
+            current[size] = key;
+            values = current;
+            codes.put(key, (char) size);
+            return (char) size++;
+        }
+
+        int lookup(String value) {
+            Character code = codes.get(value == null ? "" : value);
+            return code == null ? -1 : code;
+        }
+
+        String decode(int code) {
+            return values[code];
+        }
+
+        int size() {
+            return codes.size();
+        }
+    }
+}
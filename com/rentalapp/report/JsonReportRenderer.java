@@ -0,0 +1,70 @@
+package com.rentalapp.report;
+
+import java.util.List;
+
+/**
+ * Renders a report as a JSON object: {"title": ..., "sections": [{"title", "columns", "rows"}]}.
+ * Numbers stay numbers; everything else is a string.
+ */
+public class JsonReportRenderer implements ReportRenderer {
+
+    @Override
+    public String render(Report report) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n  \"title\": ").append(quote(report.getTitle())).append(",\n  \"sections\": [");
+        List<Report.Section> sections = report.getSections();
+        for (int s = 0; s < sections.size(); s++) {
+            Report.Section section = sections.get(s);
+            sb.append(s == 0 ? "\n" : ",\n");
+            sb.append("    {\"title\": ").append(section.getTitle() == null ? "null" : quote(section.getTitle()));
+            sb.append(", \"columns\": ");
+            appendArray(sb, section.getColumns());
+            sb.append(", \"rows\": [");
+            List<List<Object>> rows = section.getRows();
+            for (int r = 0; r < rows.size(); r++) {
+                sb.append(r == 0 ? "\n      " : ",\n      ");
+                appendArray(sb, rows.get(r));
+            }
+            sb.append(rows.isEmpty() ? "]}" : "\n    ]}");
+        }
+        sb.append(sections.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+        return sb.toString();
+    }
+
+    private void appendArray(StringBuilder sb, List<?> values) {
+        sb.append('[');
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(value(values.get(i)));
+        }
+        sb.append(']');
+    }
+
+    private String value(Object value) {
+        if (value == null) return "null";
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            return Double.isFinite(d) ? ReportRenderer.format(value) : "null";
+        }
+        if (value instanceof Number || value instanceof Boolean) return value.toString();
+        return quote(value.toString());
+    }
+
+    static String quote(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
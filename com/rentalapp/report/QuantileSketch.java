@@ -0,0 +1,74 @@
+package com.rentalapp.report;
+
+/**
+ * Quantiles with 1% relative error in fixed memory: positive values fall into
+ * logarithmic buckets (each bucket spans a factor of ~1.02), so a quantile is read by
+ * walking the cumulative counts. Values at or below zero are counted in one extra
+ * bucket; values outside [0.01, 1e10] are clamped to the end buckets. Sketches with the
+ * same accuracy merge by adding counts. Not thread-safe.
+ */
+public final class QuantileSketch {
+    private static final double RELATIVE_ACCURACY = 0.01;
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_VALUE = 0.01;
+    private static final double MAX_VALUE = 1e10;
+    private static final int MIN_INDEX = index(MIN_VALUE);
+    private static final int BUCKETS = index(MAX_VALUE) - MIN_INDEX + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long nonPositive;
+    private long count;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        if (value <= 0) {
+            nonPositive++;
+        } else {
+            double clamped = Math.min(Math.max(value, MIN_VALUE), MAX_VALUE);
+            counts[index(clamped) - MIN_INDEX]++;
+        }
+        count++;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /** Estimated value at quantile q in [0, 1], or NaN if the sketch is empty. */
+    public double quantile(double q) {
+        if (count == 0) return Double.NaN;
+        if (q <= 0) return min;
+        if (q >= 1) return max;
+
+        long rank = (long) Math.floor(q * (count - 1));
+        if (rank < nonPositive) return Math.min(0, max);
+        long seen = nonPositive;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts[b];
+            if (seen > rank) {
+                double estimate = 2 * Math.pow(GAMMA, b + MIN_INDEX) / (GAMMA + 1);
+                return Math.min(Math.max(estimate, min), max);
+            }
+        }
+        return max;
+    }
+
+    public long getCount() { return count; }
+    public double getMin() { return count == 0 ? Double.NaN : min; }
+    public double getMax() { return count == 0 ? Double.NaN : max; }
+
+    public void merge(QuantileSketch other) {
+        for (int b = 0; b < BUCKETS; b++) {
+            counts[b] += other.counts[b];
+        }
+        nonPositive += other.nonPositive;
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    private static int index(double value) {
+        return (int) Math.ceil(Math.log(value) / LOG_GAMMA);
+    }
+}
@@ -0,0 +1,65 @@
+package com.rentalapp.report;
+
+import com.rentalapp.payment.Money;
+import com.rentalapp.rental.RentalHistoryRecord;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rental history aggregates kept up to date by RentalHistory on every insert and
+ * status change, so the rental report never has to rescan the history.
+ */
+public class RentalRollup {
+    private final RollupCube cube = new RollupCube();
+    private final Map<String, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> revenueCentsByCustomer = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> rentalsByVesselType = new ConcurrentHashMap<>();
+
+    public void onRecordAdded(RentalHistoryRecord record) {
+        long cents = Money.toCents(record.getTotalAmount());
+        cube.add(record.getScheduledStart() != null ? record.getScheduledStart().toLocalDate() : null,
+                record.getVesselType(), record.getLocation(), record.getPaymentMethod(), 1, cents); // vesselType holds the category
+        counter(statusCounts, record.getStatus()).increment();
+        counter(revenueCentsByCustomer, record.getCustomerName()).add(cents);
+        counter(rentalsByVesselType, record.getVesselType()).increment();
+    }
+
+    public void onStatusChanged(String oldStatus, String newStatus) {
+        if (Objects.equals(oldStatus, newStatus)) return;
+        counter(statusCounts, oldStatus).decrement();
+        counter(statusCounts, newStatus).increment();
+    }
+
+    public RollupCube getCube() { return cube; }
+
+    public Map<String, Long> getStatusCounts() {
+        Map<String, Long> result = new TreeMap<>();
+        statusCounts.forEach((status, count) -> {
+            long value = count.sum();
+            if (value != 0) result.put(status, value);
+        });
+        return result;
+    }
+
+    /** Customers by revenue (RM), highest first. */
+    public List<Map.Entry<String, Double>> getTopCustomersByRevenue(int limit) {
+        List<Map.Entry<String, Double>> result = new ArrayList<>();
+        revenueCentsByCustomer.forEach((name, cents) -> result.add(Map.entry(name, Money.toAmount(cents.sum()))));
+        result.sort(Map.Entry.<String, Double>comparingByValue().reversed());
+        return result.subList(0, Math.min(limit, result.size()));
+    }
+
+    /** Vessel types by number of history rows, highest first. */
+    public List<Map.Entry<String, Long>> getTopVesselTypes(int limit) {
+        List<Map.Entry<String, Long>> result = new ArrayList<>();
+        rentalsByVesselType.forEach((type, count) -> result.add(Map.entry(type, count.sum())));
+        result.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return result.subList(0, Math.min(limit, result.size()));
+    }
+
+    private static LongAdder counter(Map<String, LongAdder> map, String key) {
+        return map.computeIfAbsent(key == null ? "" : key, k -> new LongAdder());
+    }
+}
@@ -0,0 +1,57 @@
+package com.rentalapp.report;
+
+import java.util.*;
+
+/**
+ * Computed report content, independent of how it is printed. A report is a title and
+ * an ordered list of sections; each section is a small table (metric sections are
+ * two-column tables of label and value). Renderers turn it into text, CSV or JSON.
+ */
+public final class Report {
+    private final String title;
+    private final List<Section> sections = new ArrayList<>();
+
+    public Report(String title) {
+        this.title = title;
+    }
+
+    /** Add a two-column "Metric / Value" section and return it for chaining. */
+    public Section metrics(String sectionTitle) {
+        return table(sectionTitle, "Metric", "Value");
+    }
+
+    public Section table(String sectionTitle, String... columns) {
+        Section section = new Section(sectionTitle, List.of(columns), columns.length == 2 && "Metric".equals(columns[0]));
+        sections.add(section);
+        return section;
+    }
+
+    public String getTitle() { return title; }
+    public List<Section> getSections() { return Collections.unmodifiableList(sections); }
+
+    public static final class Section {
+        private final String title;
+        private final List<String> columns;
+        private final boolean metrics;
+        private final List<List<Object>> rows = new ArrayList<>();
+
+        private Section(String title, List<String> columns, boolean metrics) {
+            this.title = title;
+            this.columns = columns;
+            this.metrics = metrics;
+        }
+
+        public Section row(Object... values) {
+            if (values.length != columns.size()) {
+                throw new IllegalArgumentException("Expected " + columns.size() + " values for section " + title);
+            }
+            rows.add(Arrays.asList(values));
+            return this;
+        }
+
+        public String getTitle() { return title; }
+        public List<String> getColumns() { return columns; }
+        public List<List<Object>> getRows() { return Collections.unmodifiableList(rows); }
+        public boolean isMetrics() { return metrics; }
+    }
+}
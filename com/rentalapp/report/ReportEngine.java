@@ -0,0 +1,63 @@
+package com.rentalapp.report;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collector;
+
+/**
+ * Runs a report's collector over its input in a single pass. Large inputs are split
+ * across the common fork-join pool and the partial aggregates merged with the
+ * collector's combiner; small inputs run on the caller's thread.
+ *
+ * Collectors used here should bundle every metric of a report into one accumulator
+ * (a composite), so the input is traversed exactly once.
+ */
+public final class ReportEngine {
+    static final int SPLIT_THRESHOLD = 8192;
+
+    private ReportEngine() {}
+
+    public static <T, A, R> R collect(List<? extends T> items, Collector<T, A, R> collector) {
+        A result = items.size() <= SPLIT_THRESHOLD
+                ? accumulate(items, 0, items.size(), collector)
+                : ForkJoinPool.commonPool().invoke(new Task<>(items, 0, items.size(), collector));
+        return collector.finisher().apply(result);
+    }
+
+    private static <T, A> A accumulate(List<? extends T> items, int from, int to, Collector<T, A, ?> collector) {
+        A container = collector.supplier().get();
+        for (int i = from; i < to; i++) {
+            collector.accumulator().accept(container, items.get(i));
+        }
+        return container;
+    }
+
+    private static final class Task<T, A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L; // tasks are never serialized
+
+        private final List<? extends T> items;
+        private final int from;
+        private final int to;
+        private final Collector<T, A, ?> collector;
+
+        Task(List<? extends T> items, int from, int to, Collector<T, A, ?> collector) {
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.collector = collector;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                return accumulate(items, from, to, collector);
+            }
+            int mid = (from + to) >>> 1;
+            Task<T, A> left = new Task<>(items, from, mid, collector);
+            left.fork();
+            A right = new Task<>(items, mid, to, collector).compute();
+            return collector.combiner().apply(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.rentalapp.report;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Turns a computed Report into output text.
+ */
+public interface ReportRenderer {
+
+    String render(Report report);
+
+    /** Renderer for a menu choice: "csv", "json", anything else prints for the console. */
+    static ReportRenderer forFormat(String format) {
+        if (format == null) return new ConsoleReportRenderer();
+        switch (format.trim().toLowerCase()) {
+            case "csv": return new CsvReportRenderer();
+            case "json": return new JsonReportRenderer();
+            default: return new ConsoleReportRenderer();
+        }
+    }
+
+    /**
+     * Shared value formatting: money-like doubles with two decimals, exactly as
+     * {@code %.2f} prints them. Like the Formatter, this rounds the shortest decimal form
+     * of the value half up (1.005 gives 1.01) and keeps the sign of a negative value
+     * that rounds to zero (-0.001 gives -0.00). It skips the Formatter cost, which
+     * matters because exports call this for every cell.
+     */
+    static String format(Object value) {
+        if (value == null) return "";
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (!Double.isFinite(d)) {
+                return String.format("%.2f", d);
+            }
+            String text = BigDecimal.valueOf(d).setScale(2, RoundingMode.HALF_UP).toPlainString();
+            return Math.copySign(1.0, d) < 0 && text.charAt(0) != '-' ? "-" + text : text;
+        }
+        return value.toString();
+    }
+}
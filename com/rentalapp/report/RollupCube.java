@@ -0,0 +1,138 @@
+package com.rentalapp.report;
+
+import com.rentalapp.payment.Money;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Pre-aggregated counts and amounts keyed by day x category x location x payment method.
+ * Cells are updated as rows are inserted, so a report over any date range and any
+ * combination of dimensions only sums the cells inside that range. Safe for
+ * concurrent writers and readers.
+ *
+ * Rows without a day are kept in an "unscheduled" bucket (cells with a null
+ * {@link Key#day()}). They belong to no date range, so they are counted only when
+ * both ends of the range are open, which keeps all-time totals equal to the raw rows.
+ */
+public class RollupCube {
+
+    /**
+     * One cell coordinate. Any dimension may be "" when the source has no value for it;
+     * {@code day} is null for unscheduled rows.
+     */
+    public record Key(LocalDate day, String category, String location, String paymentMethod) {}
+
+    /** Summed values for a set of cells. */
+    public record Totals(long count, long amountCents) {
+        public static final Totals EMPTY = new Totals(0, 0);
+
+        public double amount() { return Money.toAmount(amountCents); }
+
+        Totals plus(long count, long amountCents) {
+            return new Totals(this.count + count, this.amountCents + amountCents);
+        }
+    }
+
+    private static final class Cell {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder amountCents = new LongAdder();
+    }
+
+    // epoch day -> cells of that day
+    private final ConcurrentNavigableMap<Long, Map<Key, Cell>> days = new ConcurrentSkipListMap<>();
+    private final Map<Key, Cell> unscheduled = new ConcurrentHashMap<>();
+
+    public void add(LocalDate day, String category, String location, String paymentMethod,
+                    long count, long amountCents) {
+        Key key = new Key(day, normalize(category), normalize(location), normalize(paymentMethod));
+        Map<Key, Cell> cells = day == null ? unscheduled
+                                           : days.computeIfAbsent(day.toEpochDay(), d -> new ConcurrentHashMap<>());
+        Cell cell = cells.computeIfAbsent(key, k -> new Cell());
+        cell.count.add(count);
+        cell.amountCents.add(amountCents);
+    }
+
+    /**
+     * Totals over [from, to] (inclusive, either may be null for open-ended) for matching
+     * cells. Unscheduled rows are included only when both ends are null.
+     */
+    public Totals total(LocalDate from, LocalDate to, Predicate<Key> filter) {
+        long count = 0;
+        long cents = 0;
+        for (Map<Key, Cell> cells : slice(from, to)) {
+            for (Map.Entry<Key, Cell> e : cells.entrySet()) {
+                if (filter == null || filter.test(e.getKey())) {
+                    count += e.getValue().count.sum();
+                    cents += e.getValue().amountCents.sum();
+                }
+            }
+        }
+        return new Totals(count, cents);
+    }
+
+    public Totals total(LocalDate from, LocalDate to) {
+        return total(from, to, null);
+    }
+
+    /**
+     * Totals over [from, to] grouped by one dimension (e.g. Key::category, or
+     * k -> YearMonth.from(k.day()).toString() for a monthly roll-up). Groups come back
+     * sorted. With both ends open the unscheduled cells are included, so a dimension
+     * over the day must handle a null day.
+     */
+    public <G extends Comparable<G>> SortedMap<G, Totals> groupBy(LocalDate from, LocalDate to,
+                                                                  Function<Key, G> dimension) {
+        SortedMap<G, Totals> result = new TreeMap<>();
+        for (Map<Key, Cell> cells : slice(from, to)) {
+            for (Map.Entry<Key, Cell> e : cells.entrySet()) {
+                Cell cell = e.getValue();
+                result.merge(dimension.apply(e.getKey()),
+                        Totals.EMPTY.plus(cell.count.sum(), cell.amountCents.sum()),
+                        (a, b) -> a.plus(b.count(), b.amountCents()));
+            }
+        }
+        return result;
+    }
+
+    public int getCellCount() {
+        int cells = unscheduled.size();
+        for (Map<Key, Cell> day : days.values()) {
+            cells += day.size();
+        }
+        return cells;
+    }
+
+    /** Totals of the rows that had no day. */
+    public Totals unscheduledTotal() {
+        long count = 0;
+        long cents = 0;
+        for (Cell cell : unscheduled.values()) {
+            count += cell.count.sum();
+            cents += cell.amountCents.sum();
+        }
+        return new Totals(count, cents);
+    }
+
+    private Collection<Map<Key, Cell>> slice(LocalDate from, LocalDate to) {
+        if (from == null && to == null) {
+            List<Map<Key, Cell>> all = new ArrayList<>(days.values());
+            all.add(unscheduled);
+            return all;
+        }
+        if (from == null) return days.headMap(to.toEpochDay(), true).values();
+        if (to == null) return days.tailMap(from.toEpochDay(), true).values();
+        if (from.isAfter(to)) return Collections.emptyList();
+        return days.subMap(from.toEpochDay(), true, to.toEpochDay(), true).values();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value;
+    }
+}
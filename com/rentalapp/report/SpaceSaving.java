@@ -0,0 +1,97 @@
+package com.rentalapp.report;
+
+import java.util.*;
+
+/**
+ * Top-k heavy hitters in fixed memory (Space-Saving). At most {@code capacity} items are
+ * counted; a new item replaces the current minimum and inherits its count as the error
+ * bound, so any item whose true count exceeds total/capacity is guaranteed to be kept.
+ * Not thread-safe.
+ */
+public final class SpaceSaving {
+
+    /** An estimated count; the true count lies in [count - error, count]. */
+    public record Item(String value, long count, long error) {}
+
+    private final int capacity;
+    private final Map<String, long[]> counters; // value -> {count, error}
+
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    public void add(String value) {
+        add(value, 1);
+    }
+
+    public void add(String value, long weight) {
+        if (value == null || weight <= 0) return;
+        long[] counter = counters.get(value);
+        if (counter != null) {
+            counter[0] += weight;
+            return;
+        }
+        if (counters.size() < capacity) {
+            counters.put(value, new long[] { weight, 0 });
+            return;
+        }
+        Map.Entry<String, long[]> min = minEntry();
+        long minCount = min.getValue()[0];
+        counters.remove(min.getKey());
+        counters.put(value, new long[] { minCount + weight, minCount });
+    }
+
+    /** The k items with the highest estimated counts, highest first. */
+    public List<Item> top(int k) {
+        List<Item> items = new ArrayList<>(counters.size());
+        counters.forEach((value, c) -> items.add(new Item(value, c[0], c[1])));
+        items.sort(Comparator.comparingLong(Item::count).reversed().thenComparing(Item::value));
+        return items.subList(0, Math.min(k, items.size()));
+    }
+
+    /**
+     * Add the other sketch's counters, then keep the {@code capacity} largest. An item
+     * missing from a full sketch may still have occurred there up to that sketch's
+     * minimum count, so that minimum is added to both its count and its error; errors of
+     * items present in both sketches add up.
+     */
+    public void merge(SpaceSaving other) {
+        long missingHere = floor();
+        long missingThere = other.floor();
+        for (Map.Entry<String, long[]> e : counters.entrySet()) {
+            if (!other.counters.containsKey(e.getKey())) {
+                e.getValue()[0] += missingThere;
+                e.getValue()[1] += missingThere;
+            }
+        }
+        other.counters.forEach((value, c) -> {
+            long[] mine = counters.get(value);
+            if (mine == null) {
+                counters.put(value, new long[] { c[0] + missingHere, c[1] + missingHere });
+            } else {
+                mine[0] += c[0];
+                mine[1] += c[1];
+            }
+        });
+        while (counters.size() > capacity) {
+            counters.remove(minEntry().getKey());
+        }
+    }
+
+    // Upper bound on the count of an item this sketch does not hold
+    private long floor() {
+        return counters.size() < capacity ? 0 : minEntry().getValue()[0];
+    }
+
+    private Map.Entry<String, long[]> minEntry() {
+        Map.Entry<String, long[]> min = null;
+        for (Map.Entry<String, long[]> e : counters.entrySet()) {
+            if (min == null || e.getValue()[0] < min.getValue()[0]) {
+                min = e;
+            }
+        }
+        return min;
+    }
+}
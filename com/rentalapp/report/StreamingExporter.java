@@ -0,0 +1,189 @@
+package com.rentalapp.report;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes rows to a CSV or JSON Lines file as they are pulled from an iterator. Rows are
+ * encoded into one reusable direct buffer and flushed to a FileChannel (optionally
+ * through gzip), so memory use stays constant no matter how many rows are exported.
+ */
+public class StreamingExporter {
+
+    public enum Format { CSV, JSONL }
+
+    /** Called every {@code progressInterval} rows and once at the end. */
+    public interface ProgressListener {
+        void onProgress(long rows, long bytes, long elapsedNanos);
+    }
+
+    /** Final counts of an export. */
+    public record Result(long rows, long bytes, long elapsedNanos) {
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1_000_000_000.0 / elapsedNanos;
+        }
+
+        public double megabytesPerSecond() {
+            return elapsedNanos == 0 ? 0 : bytes / 1_048_576.0 * 1_000_000_000.0 / elapsedNanos;
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_PROGRESS_INTERVAL = 10_000;
+
+    private final Format format;
+    private final boolean gzip;
+    private int progressInterval = DEFAULT_PROGRESS_INTERVAL;
+    private ProgressListener progressListener;
+
+    public StreamingExporter(Format format, boolean gzip) {
+        this.format = format;
+        this.gzip = gzip;
+    }
+
+    public StreamingExporter onProgress(int everyRows, ProgressListener listener) {
+        if (everyRows <= 0) throw new IllegalArgumentException("Progress interval must be positive");
+        this.progressInterval = everyRows;
+        this.progressListener = listener;
+        return this;
+    }
+
+    /**
+     * Stream every row of the iterator to the file, replacing it if it exists.
+     * The byte count is what was written before compression.
+     */
+    public <T> Result export(Iterator<? extends T> rows, ExportFormat<T> rowFormat, Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+
+        long started = System.nanoTime();
+        try (FileChannel file = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Sink sink = new Sink(file, gzip)) {
+
+            String[] columns = rowFormat.columns();
+            StringBuilder line = new StringBuilder(256);
+            if (format == Format.CSV) {
+                appendCsv(line, columns);
+                sink.write(line);
+            }
+
+            long count = 0;
+            while (rows.hasNext()) {
+                line.setLength(0);
+                Object[] values = rowFormat.values(rows.next());
+                if (format == Format.CSV) {
+                    appendCsv(line, values);
+                } else {
+                    appendJson(line, columns, values);
+                }
+                sink.write(line);
+
+                if (++count % progressInterval == 0 && progressListener != null) {
+                    progressListener.onProgress(count, sink.bytes, System.nanoTime() - started);
+                }
+            }
+            sink.flush();
+
+            Result result = new Result(count, sink.bytes, System.nanoTime() - started);
+            if (progressListener != null) {
+                progressListener.onProgress(result.rows(), result.bytes(), result.elapsedNanos());
+            }
+            return result;
+        }
+    }
+
+    private static void appendCsv(StringBuilder line, Object[] values) {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            line.append(CsvReportRenderer.escape(ReportRenderer.format(values[i])));
+        }
+        line.append('\n');
+    }
+
+    private static void appendJson(StringBuilder line, String[] columns, Object[] values) {
+        line.append('{');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) line.append(',');
+            line.append(JsonReportRenderer.quote(columns[i])).append(':');
+            Object value = values[i];
+            if (value == null) {
+                line.append("null");
+            } else if (value instanceof Number || value instanceof Boolean) {
+                line.append(ReportRenderer.format(value));
+            } else {
+                line.append(JsonReportRenderer.quote(value.toString()));
+            }
+        }
+        line.append("}\n");
+    }
+
+    /** Encodes text into a reused buffer and drains it to the channel when full. */
+    private static final class Sink implements AutoCloseable {
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private final WritableByteChannel channel;
+        private final OutputStream gzipStream;
+        private long bytes;
+
+        Sink(FileChannel file, boolean gzip) throws IOException {
+            if (gzip) {
+                gzipStream = new GZIPOutputStream(Channels.newOutputStream(file), BUFFER_SIZE);
+                channel = Channels.newChannel(gzipStream);
+            } else {
+                gzipStream = null;
+                channel = file;
+            }
+        }
+
+        void write(CharSequence text) throws IOException {
+            CharBuffer chars = CharBuffer.wrap(text);
+            while (true) {
+                int before = buffer.position();
+                CoderResult result = encoder.encode(chars, buffer, true);
+                bytes += buffer.position() - before;
+                if (result.isOverflow()) {
+                    drain();
+                } else if (result.isUnderflow()) {
+                    break;
+                } else {
+                    result.throwException();
+                }
+            }
+            encoder.reset();
+        }
+
+        void flush() throws IOException {
+            drain();
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            drain();
+            if (gzipStream != null) {
+                gzipStream.close(); // writes the gzip trailer
+            }
+        }
+    }
+}
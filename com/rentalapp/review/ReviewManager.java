@@ -5,7 +5,12 @@ import com.rentalapp.auth.MemberCustomer;
 import com.rentalapp.loyalty.LoyaltyPointManager;
 import com.rentalapp.rental.RentalRecord;
 import com.rentalapp.rental.RentalStatus;
+import com.rentalapp.report.ConsoleReportRenderer;
+import com.rentalapp.report.Report;
+import com.rentalapp.report.ReportEngine;
 import java.util.*;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
 
 public class ReviewManager {
     private Map<String, Review> reviews = new HashMap<>();
@@ -159,55 +164,62 @@ public void displayAllReviews() {
      * Display aggregated reviews (for admin dashboard).
      */
     public void displayAggregatedReviews() {
-    Map<String, List<Review>> grouped = new HashMap<>();
-
-    // Group reviews by vessel type
-    for (Review r : reviews.values()) {
-        grouped.computeIfAbsent(r.getVesselType(), k -> new ArrayList<>()).add(r);
+        if (reviews.isEmpty()) {
+            System.out.println("No reviews available.");
+            return;
+        }
+        System.out.print(new ConsoleReportRenderer().render(buildAggregatedReviewReport()));
     }
 
-    if (grouped.isEmpty()) {
-        System.out.println("No reviews available.");
-        return;
+    /**
+     * Per vessel type: review count, average rating, best and worst comment, in one
+     * pass over the reviews. Highest average first.
+     */
+    public Report buildAggregatedReviewReport() {
+        List<Review> snapshot = new ArrayList<>(reviews.values());
+        Map<String, RatingTotals> byType = ReportEngine.collect(snapshot,
+                Collectors.groupingBy(Review::getVesselType,
+                        Collector.of(RatingTotals::new, RatingTotals::accept, RatingTotals::merge)));
+
+        List<Map.Entry<String, RatingTotals>> ranked = new ArrayList<>(byType.entrySet());
+        ranked.sort((a, b) -> Double.compare(b.getValue().average(), a.getValue().average()));
+
+        Report report = new Report("Aggregated Reviews (Admin)");
+        Report.Section section = report.table(null, "Vessel Type", "Average", "Stars", "Reviews", "Highlight", "Complaint");
+        for (Map.Entry<String, RatingTotals> entry : ranked) {
+            RatingTotals t = entry.getValue();
+            double avg = t.average();
+            section.row(entry.getKey(), avg, "*".repeat((int) Math.round(avg)), t.count,
+                    t.best.getComment(), t.worst != t.best ? t.worst.getComment() : "");
+        }
+        return report;
     }
 
-    System.out.println("\n" + "═".repeat(50));
-    System.out.println("              AGGREGATED REVIEWS (ADMIN)           ");
-    System.out.println("\n" + "═".repeat(50));
+    private static final class RatingTotals {
+        private long count;
+        private long sum;
+        private Review best;
+        private Review worst;
+
+        void accept(Review review) {
+            count++;
+            sum += review.getRating();
+            if (best == null || review.getRating() > best.getRating()) best = review;
+            if (worst == null || review.getRating() < worst.getRating()) worst = review;
+        }
 
-    // Sort by average rating (highest first)
-    grouped.entrySet().stream()
-        .sorted((a, b) -> {
-            double avgA = a.getValue().stream().mapToInt(Review::getRating).average().orElse(0);
-            double avgB = b.getValue().stream().mapToInt(Review::getRating).average().orElse(0);
-            return Double.compare(avgB, avgA);
-        })
-        .forEach(entry -> {
-            String vesselType = entry.getKey();
-            List<Review> vesselReviews = entry.getValue();
-
-            double avg = vesselReviews.stream().mapToInt(Review::getRating).average().orElse(0);
-            int count = vesselReviews.size();
-
-            // Build star visualization
-            int rounded = (int) Math.round(avg);
-            String stars = "*".repeat(rounded);
-
-            // Get a sample best & worst comment
-            Review best = vesselReviews.stream().max(Comparator.comparingInt(Review::getRating)).orElse(null);
-            Review worst = vesselReviews.stream().min(Comparator.comparingInt(Review::getRating)).orElse(null);
-
-            System.out.printf("\n-> %s%n", vesselType);
-            System.out.printf("   Average Rating : %.2f %s (%d reviews)%n", avg, stars, count);
-
-            if (best != null) {
-                System.out.printf("   Highlight   : \"%s\"%n", best.getComment());
-            }
-            if (worst != null && worst != best) {
-                System.out.printf("   Complaint   : \"%s\"%n", worst.getComment());
-            }
+        RatingTotals merge(RatingTotals other) {
+            if (other.count == 0) return this;
+            if (count == 0) return other;
+            count += other.count;
+            sum += other.sum;
+            if (other.best.getRating() > best.getRating()) best = other.best;
+            if (other.worst.getRating() < worst.getRating()) worst = other.worst;
+            return this;
+        }
 
-            System.out.println("------------------------------------------------------");
-        });
-}
+        double average() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package com.rentalapp.utils;
+
+import com.rentalapp.rental.AddOn;
+import java.util.*;
+
+public class AddOnDataLoader {
+    private static final String ADD_ON_FILE = "com/rentalapp/data/AddOns.csv";
+
+    public static List<AddOn> loadAllAddOns() {
+        return loadAddOnsFromCSV(ADD_ON_FILE);
+    }
+
+    // Columns: name,price,unit,suitableFor,description
+    // suitableFor is '|' separated; description is last so it may contain commas.
+    private static List<AddOn> loadAddOnsFromCSV(String filePath) {
+        List<AddOn> addOns = new ArrayList<>();
+        List<String[]> data = FileReader.readCSV(filePath);
+
+        for (String[] row : data) {
+            try {
+                String name = row[0].trim();
+                double price = Double.parseDouble(row[1].trim());
+                String unit = row[2].trim().isEmpty() ? null : row[2].trim();
+                List<String> suitableFor = List.of(row[3].trim().split("\\|"));
+                String description = String.join(",", Arrays.copyOfRange(row, 4, row.length)).trim();
+
+                addOns.add(new AddOn(name, description, price, unit, 1, suitableFor));
+            } catch (Exception e) {
+                System.err.println("Error parsing add-on data from " + filePath + ": " + e.getMessage());
+            }
+        }
+        return addOns;
+    }
+}
@@ -0,0 +1,50 @@
+package com.rentalapp.utils;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates an append-only store a batch at a time. Each batch is fetched by position,
+ * so the store only needs to be locked while one small batch is copied, and memory
+ * stays bounded by the batch size however large the store is. Rows appended while
+ * iterating are included.
+ */
+public class BatchIterator<T> implements Iterator<T> {
+
+    /** Returns up to {@code max} rows starting at position {@code from}; empty when past the end. */
+    public interface Fetcher<T> {
+        List<T> fetch(int from, int max);
+    }
+
+    private final Fetcher<T> fetcher;
+    private final int batchSize;
+    private List<T> batch = List.of();
+    private int indexInBatch;
+    private int nextPosition;
+    private boolean exhausted;
+
+    public BatchIterator(Fetcher<T> fetcher, int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive");
+        this.fetcher = fetcher;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (indexInBatch < batch.size()) return true;
+        if (exhausted) return false;
+
+        batch = fetcher.fetch(nextPosition, batchSize);
+        indexInBatch = 0;
+        nextPosition += batch.size();
+        if (batch.isEmpty()) exhausted = true;
+        return !batch.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return batch.get(indexInBatch++);
+    }
+}
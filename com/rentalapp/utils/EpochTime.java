@@ -0,0 +1,22 @@
+package com.rentalapp.utils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Packs a LocalDateTime into epoch seconds (wall-clock, second precision) so records
+ * can keep timestamps as primitive longs. NONE stands in for a null timestamp.
+ */
+public final class EpochTime {
+    public static final long NONE = Long.MIN_VALUE;
+
+    private EpochTime() {}
+
+    public static long toEpochSecond(LocalDateTime dateTime) {
+        return dateTime == null ? NONE : dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime fromEpochSecond(long epochSecond) {
+        return epochSecond == NONE ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
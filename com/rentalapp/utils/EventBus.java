@@ -0,0 +1,219 @@
+package com.rentalapp.utils;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * In-process publish/subscribe bus. Every subscriber owns a bounded queue and a
+ * worker thread, so slow side effects (history, loyalty, maintenance) never run
+ * on the publisher's thread. Events for one subscriber are handled in publish order:
+ * when a queue is full the publisher waits for room rather than running the handler
+ * itself, and after {@link #shutdown} late events are delivered inline only once the
+ * queue ahead of them has been drained.
+ */
+public class EventBus {
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+    private static final long POLL_MILLIS = 100;
+
+    private final List<Subscriber<?>> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<Class<?>, List<Subscriber<?>>> routeCache = new ConcurrentHashMap<>();
+    private volatile boolean running = true;
+
+    public <E> void subscribe(String name, Class<E> eventType, Consumer<? super E> handler) {
+        subscribe(name, eventType, handler, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public <E> void subscribe(String name, Class<E> eventType, Consumer<? super E> handler, int queueCapacity) {
+        Subscriber<E> subscriber = new Subscriber<>(name, eventType, handler, queueCapacity);
+        subscribers.add(subscriber);
+        routeCache.clear();
+        subscriber.start();
+    }
+
+    /**
+     * Hand the event to every matching subscriber. When a subscriber's queue is full
+     * the publisher blocks until there is room (back-pressure) instead of dropping
+     * the event or letting it overtake the ones already queued.
+     */
+    public void publish(Object event) {
+        if (event == null) return;
+
+        for (Subscriber<?> subscriber : route(event.getClass())) {
+            subscriber.metrics.published.increment();
+            subscriber.enqueue(event);
+        }
+    }
+
+    private List<Subscriber<?>> route(Class<?> eventClass) {
+        return routeCache.computeIfAbsent(eventClass, cls -> {
+            List<Subscriber<?>> matches = new ArrayList<>();
+            for (Subscriber<?> s : subscribers) {
+                if (s.eventType.isAssignableFrom(cls)) {
+                    matches.add(s);
+                }
+            }
+            return matches;
+        });
+    }
+
+    /**
+     * Let the workers drain what they hold and stop, waiting up to {@code timeoutMillis}.
+     * Events published afterwards are delivered on the publisher's thread.
+     */
+    public void shutdown(long timeoutMillis) {
+        running = false;
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (Subscriber<?> s : subscribers) {
+            try {
+                s.worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    public Map<String, SubscriberMetrics> getMetrics() {
+        Map<String, SubscriberMetrics> metrics = new LinkedHashMap<>();
+        for (Subscriber<?> s : subscribers) {
+            metrics.put(s.name, s.metrics);
+        }
+        return metrics;
+    }
+
+    public void printMetrics() {
+        System.out.println("\n==================== EVENT BUS METRICS ====================");
+        System.out.printf("%-18s %10s %10s %8s %10s %7s %7s %12s%n",
+                "Subscriber", "Published", "Delivered", "Failed", "Blocked", "Queue", "Peak", "Avg Lag(ms)");
+        System.out.println("-".repeat(90));
+        for (Subscriber<?> s : subscribers) {
+            SubscriberMetrics m = s.metrics;
+            System.out.printf("%-18s %10d %10d %8d %10d %7d %7d %12.3f%n",
+                    s.name, m.getPublished(), m.getDelivered(), m.getFailed(), m.getBlockedPublishes(),
+                    s.queue.size(), m.getPeakQueueDepth(), m.getAverageLagMillis());
+        }
+        System.out.println("===========================================================\n");
+    }
+
+    // ================= SUBSCRIBER =================
+    private record Envelope(Object event, long enqueuedAtNanos) {}
+
+    private final class Subscriber<E> implements Runnable {
+        private final String name;
+        private final Class<E> eventType;
+        private final Consumer<? super E> handler;
+        private final BlockingQueue<Envelope> queue;
+        private final SubscriberMetrics metrics = new SubscriberMetrics();
+        private final Thread worker;
+        private volatile boolean closed; // worker has exited; set under this subscriber's lock
+
+        Subscriber(String name, Class<E> eventType, Consumer<? super E> handler, int capacity) {
+            this.name = name;
+            this.eventType = eventType;
+            this.handler = handler;
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.worker = new Thread(this, "event-" + name);
+            this.worker.setDaemon(true);
+        }
+
+        void start() {
+            worker.start();
+        }
+
+        void enqueue(Object event) {
+            Envelope envelope = new Envelope(event, System.nanoTime());
+            if (!queue.offer(envelope)) {
+                metrics.blockedPublishes.increment();
+                boolean interrupted = false;
+                while (true) {
+                    try {
+                        queue.put(envelope);
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true; // never drop the event; restore the flag once queued
+                    }
+                }
+                if (interrupted) Thread.currentThread().interrupt();
+            }
+            metrics.recordDepth(queue.size());
+            if (closed) {
+                drainInline();
+            }
+        }
+
+        // The worker is gone: deliver what is queued, in order, on the publisher's thread
+        private synchronized void drainInline() {
+            Envelope envelope;
+            while ((envelope = queue.poll()) != null) {
+                deliver(envelope);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Envelope envelope;
+                try {
+                    envelope = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    continue; // only shutdown stops the worker, after draining
+                }
+                if (envelope != null) {
+                    deliver(envelope);
+                    continue;
+                }
+                if (!running) {
+                    // An event queued after this check is seen by its publisher through closed
+                    synchronized (this) {
+                        if (queue.isEmpty()) {
+                            closed = true;
+                            return;
+                        }
+                    }
+                }
+            }
+        }
+
+        void deliver(Envelope envelope) {
+            try {
+                handler.accept(eventType.cast(envelope.event()));
+                metrics.delivered.increment();
+                metrics.lagNanos.add(System.nanoTime() - envelope.enqueuedAtNanos());
+            } catch (RuntimeException e) {
+                metrics.failed.increment();
+                System.err.println("Event subscriber '" + name + "' failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Counters for one subscriber. All fields are safe to read from any thread.
+     */
+    public static class SubscriberMetrics {
+        private final LongAdder published = new LongAdder();
+        private final LongAdder delivered = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder blockedPublishes = new LongAdder();
+        private final LongAdder lagNanos = new LongAdder();
+        private final AtomicLong peakQueueDepth = new AtomicLong();
+
+        private void recordDepth(int depth) {
+            peakQueueDepth.accumulateAndGet(depth, Math::max);
+        }
+
+        public long getPublished() { return published.sum(); }
+        public long getDelivered() { return delivered.sum(); }
+        public long getFailed() { return failed.sum(); }
+        /** Publishes that found the queue full and had to wait for room. */
+        public long getBlockedPublishes() { return blockedPublishes.sum(); }
+        public long getPeakQueueDepth() { return peakQueueDepth.get(); }
+
+        public double getAverageLagMillis() {
+            long count = delivered.sum();
+            return count == 0 ? 0.0 : lagNanos.sum() / 1_000_000.0 / count;
+        }
+    }
+}
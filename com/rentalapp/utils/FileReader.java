@@ -6,7 +6,7 @@ import java.util.*;
 public class FileReader {
     public static List<String[]> readCSV(String filename) {
         List<String[]> data = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new java.io.FileReader(filename))) {
+        try (BufferedReader br = new BufferedReader(new java.io.FileReader(filename, java.nio.charset.StandardCharsets.UTF_8))) {
             String line;
             boolean isFirstLine = true;
             while ((line = br.readLine()) != null) {
@@ -24,7 +24,7 @@ public class FileReader {
 
     public static List<String> readTextFile(String filename) {
         List<String> lines = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new java.io.FileReader(filename))) {
+        try (BufferedReader br = new BufferedReader(new java.io.FileReader(filename, java.nio.charset.StandardCharsets.UTF_8))) {
             String line;
             while ((line = br.readLine()) != null) {
                 lines.add(line.trim());
@@ -0,0 +1,234 @@
+package com.rentalapp.utils;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style ids: 41 bits of milliseconds since 2024-01-01, a 10-bit node id and a
+ * 12-bit sequence, so ids are unique across nodes without coordination and sort by
+ * creation time. Rendered as 13 Crockford base-32 characters after a prefix
+ * ("V0CQ4M7R2X0G01"), fixed width so text order matches id order.
+ * <p>
+ * {@link #nextId()} is a single CAS on the last issued (time, sequence) pair. When more
+ * than 4096 ids are asked for in one millisecond, or the clock steps back, the time
+ * part runs ahead of the wall clock instead of waiting, so it never blocks or repeats.
+ * <p>
+ * To survive restarts, a generator with a lease directory records a lease: a time,
+ * a little ahead of the ids issued so far, below which this node may have issued
+ * ids. A restarted node starts above its last lease even if the clock went back or
+ * the previous run was running ahead. Extending the lease is the only write and
+ * happens once per lease period.
+ * <p>
+ * Node ids must be unique among running processes. A generator opened on a lease
+ * directory holds an OS lock on its node's lock file for the life of the process (the
+ * OS drops it if the process dies), so a second process configured with the same id
+ * fails instead of issuing colliding ids.
+ */
+public final class IdGenerator {
+    private static final long EPOCH_MILLIS = 1_704_067_200_000L; // 2024-01-01T00:00:00Z
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long LEASE_MILLIS = 30_000;
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private static volatile IdGenerator shared;
+
+    private final int nodeId;
+    private final AtomicLong last;   // (millis since epoch << SEQUENCE_BITS) | sequence of the last id
+    private final Path leaseFile;    // null: no lease
+    private volatile long leaseUntil;
+    private FileLock nodeLock;       // held for the life of the process; null without a lease
+
+    /** In-memory generator for this node; unique across restarts only as far as the clock is. */
+    public IdGenerator(int nodeId) {
+        this(nodeId, null, 0);
+    }
+
+    private IdGenerator(int nodeId, Path leaseFile, long leasedUntil) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.leaseFile = leaseFile;
+        this.leaseUntil = leaseFile == null ? Long.MAX_VALUE : leasedUntil;
+        long start = Math.max(currentMillis(), leasedUntil + 1);
+        this.last = new AtomicLong((start << SEQUENCE_BITS) - 1);
+    }
+
+    /**
+     * Generator for the node whose lease is kept in {@code directory}, resuming above its
+     * last lease. Throws IllegalStateException if another process holds the node id.
+     */
+    public static IdGenerator open(int nodeId, Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileLock nodeLock = lockNode(nodeId, directory);
+        if (nodeLock == null) {
+            throw new IllegalStateException("Node id " + nodeId + " is in use by another process");
+        }
+        return openLocked(nodeId, directory, nodeLock);
+    }
+
+    /** Generator for the lowest node id no running process holds in {@code directory}. */
+    public static IdGenerator openAnyNode(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (int nodeId = 0; nodeId <= MAX_NODE_ID; nodeId++) {
+            FileLock nodeLock = lockNode(nodeId, directory);
+            if (nodeLock != null) return openLocked(nodeId, directory, nodeLock);
+        }
+        throw new IllegalStateException("Every node id 0-" + MAX_NODE_ID + " is in use in " + directory);
+    }
+
+    // Resume the node's lease; the lock is released if that fails
+    private static IdGenerator openLocked(int nodeId, Path directory, FileLock nodeLock) throws IOException {
+        try {
+            Path leaseFile = directory.resolve("node-" + nodeId + ".lease");
+            long leasedUntil = 0;
+            if (Files.exists(leaseFile)) {
+                try {
+                    leasedUntil = Long.parseLong(Files.readString(leaseFile, StandardCharsets.UTF_8).trim());
+                } catch (NumberFormatException e) {
+                    // A damaged lease gives no guarantee; start a full lease period ahead of the clock
+                    System.err.println("Id generator: ignoring unreadable lease " + leaseFile.getFileName());
+                    leasedUntil = currentMillis() + LEASE_MILLIS;
+                }
+            }
+            IdGenerator generator = new IdGenerator(nodeId, leaseFile, leasedUntil);
+            generator.nodeLock = nodeLock;
+            generator.extendLease(generator.last.get() >>> SEQUENCE_BITS);
+            return generator;
+        } catch (IOException | RuntimeException e) {
+            nodeLock.channel().close();
+            throw e;
+        }
+    }
+
+    /**
+     * The generator shared by every manager, with its lease under {@code ids/}. The node
+     * id comes from the {@code rentalapp.node} system property or the
+     * {@code RENTALAPP_NODE_ID} environment variable; without either, the lowest free
+     * node id is taken from {@code ids/}. Throws IllegalStateException if the configured
+     * id is invalid or in use, or no node id can be taken, rather than risk duplicate ids.
+     */
+    public static IdGenerator shared() {
+        IdGenerator generator = shared;
+        if (generator == null) {
+            synchronized (IdGenerator.class) {
+                if (shared == null) {
+                    Path directory = Paths.get("ids");
+                    String configured = System.getProperty("rentalapp.node", System.getenv("RENTALAPP_NODE_ID"));
+                    try {
+                        shared = configured == null || configured.isBlank()
+                                ? openAnyNode(directory)
+                                : open(parseNodeId(configured), directory);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Id generator: cannot take a node id in " + directory.toAbsolutePath()
+                                + " (set rentalapp.node or RENTALAPP_NODE_ID to a unique 0-" + MAX_NODE_ID + "): "
+                                + e.getMessage(), e);
+                    }
+                }
+                generator = shared;
+            }
+        }
+        return generator;
+    }
+
+    // ================= IDS =================
+    public long nextId() {
+        while (true) {
+            long previous = last.get();
+            long next = Math.max(previous + 1, currentMillis() << SEQUENCE_BITS);
+            long millis = next >>> SEQUENCE_BITS;
+            if (millis > leaseUntil) {
+                extendLease(millis);
+                continue;
+            }
+            if (last.compareAndSet(previous, next)) {
+                return (millis << (NODE_BITS + SEQUENCE_BITS))
+                        | ((long) nodeId << SEQUENCE_BITS)
+                        | (next & ((1L << SEQUENCE_BITS) - 1));
+            }
+        }
+    }
+
+    /** {@code prefix} followed by the next id in fixed-width base 32, e.g. "REC0CQ4M7R2X0G01". */
+    public String next(String prefix) {
+        return prefix + encode(nextId());
+    }
+
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /** When the id was issued, as far as the issuing node's clock knew. */
+    public static Instant timestampOf(long id) {
+        return Instant.ofEpochMilli((id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS);
+    }
+
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+
+    // ================= LEASE =================
+    private synchronized void extendLease(long millis) {
+        if (millis <= leaseUntil) return;
+        long until = millis + LEASE_MILLIS;
+        try {
+            Path temp = leaseFile.resolveSibling(leaseFile.getFileName() + ".tmp");
+            Files.writeString(temp, Long.toString(until), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.SYNC);
+            Files.move(temp, leaseFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            leaseUntil = until;
+        } catch (IOException e) {
+            System.err.println("Id generator: cannot extend lease, ids rely on the clock across restarts: " + e.getMessage());
+            leaseUntil = Long.MAX_VALUE;
+        }
+    }
+
+    private static long currentMillis() {
+        return System.currentTimeMillis() - EPOCH_MILLIS;
+    }
+
+    private static int parseNodeId(String configured) {
+        try {
+            int nodeId = Integer.parseInt(configured.trim());
+            if (nodeId >= 0 && nodeId <= MAX_NODE_ID) return nodeId;
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalStateException("Id generator: node id must be 0-" + MAX_NODE_ID + ": " + configured);
+    }
+
+    // The lock on node-<id>.lock, or null if another process (or generator) holds it
+    private static FileLock lockNode(int nodeId, Path directory) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve("node-" + nodeId + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock != null) return lock;
+        } catch (OverlappingFileLockException e) {
+            // held by another generator in this process
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        channel.close();
+        return null;
+    }
+}
@@ -0,0 +1,120 @@
+package com.rentalapp.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the result of a request by its client-supplied key so retries get the
+ * original result instead of repeating the work. Concurrent retries of an in-flight
+ * key wait for the first attempt. Entries expire after a TTL and the cache never
+ * holds more than maxEntries keys (oldest evicted first). Null results and exceptions
+ * are not cached: a retry runs the action again, so an action that fails must leave
+ * nothing behind that a second run would trip over.
+ */
+public class IdempotencyCache<V> {
+    private final ConcurrentHashMap<String, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry<V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public IdempotencyCache(int maxEntries, long ttlMillis) {
+        if (maxEntries <= 0 || ttlMillis <= 0) {
+            throw new IllegalArgumentException("maxEntries and ttlMillis must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Return the cached result for the key, or run the action once and cache what it returns.
+     */
+    public V getOrCompute(String key, Supplier<V> action) {
+        while (true) {
+            long now = System.currentTimeMillis();
+            Entry<V> existing = entries.get(key);
+            if (existing != null) {
+                if (existing.isExpired(now, ttlMillis)) {
+                    entries.remove(key, existing);
+                    continue;
+                }
+                hits.increment();
+                return existing.result.join();
+            }
+
+            Entry<V> mine = new Entry<>(key, now);
+            if (entries.putIfAbsent(key, mine) != null) {
+                continue; // another thread won the race; wait on its result
+            }
+            misses.increment();
+            insertionOrder.add(mine);
+            evictIfNeeded(now);
+
+            V value;
+            try {
+                value = action.get();
+            } catch (RuntimeException e) {
+                entries.remove(key, mine);
+                mine.result.completeExceptionally(e);
+                throw e;
+            }
+            if (value == null) {
+                entries.remove(key, mine);
+            }
+            mine.result.complete(value);
+            return value;
+        }
+    }
+
+    public V getIfPresent(String key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.isExpired(System.currentTimeMillis(), ttlMillis) || !entry.result.isDone()) {
+            return null;
+        }
+        return entry.result.getNow(null);
+    }
+
+    private void evictIfNeeded(long now) {
+        while (entries.size() > maxEntries) {
+            Entry<V> oldest = insertionOrder.poll();
+            if (oldest == null) return;
+            if (entries.remove(oldest.key, oldest)) {
+                evictions.increment();
+            }
+        }
+        // Opportunistically drop expired keys at the head of the queue
+        Entry<V> head;
+        while ((head = insertionOrder.peek()) != null && head.isExpired(now, ttlMillis)) {
+            insertionOrder.poll();
+            if (entries.remove(head.key, head)) {
+                evictions.increment();
+            }
+        }
+    }
+
+    public int size() { return entries.size(); }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+
+    private static final class Entry<V> {
+        private final String key;
+        private final long createdAtMillis;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+
+        Entry(String key, long createdAtMillis) {
+            this.key = key;
+            this.createdAtMillis = createdAtMillis;
+        }
+
+        boolean isExpired(long now, long ttlMillis) {
+            return now - createdAtMillis > ttlMillis;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.rentalapp.utils;
+
+import com.rentalapp.payment.Money;
+import com.rentalapp.payment.PricingCalendar;
+import com.rentalapp.vessel.VesselCategory;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.util.*;
+
+public class PricingCalendarLoader {
+    private static final String CALENDAR_FILE = "com/rentalapp/data/PricingCalendar.csv";
+
+    public static PricingCalendar.Rules loadCalendarRules() {
+        return loadCalendarRules(CALENDAR_FILE);
+    }
+
+    // Columns: rule,category,location,key,value
+    // A category or location of '*' applies to all of them. Keys: WEEKDAY a day name
+    // ("SATURDAY"), HOLIDAY a date or range ("2027-02-06..2027-02-07"), SEASON a yearly
+    // month-day range ("11-01..03-15"), SURGE the booked share of the class ("70%").
+    // Values are multipliers as percentages of the base price ("115%"). Every row is
+    // checked; if any is malformed, loading fails with the offending lines.
+    public static PricingCalendar.Rules loadCalendarRules(String filePath) {
+        PricingCalendar.Rules.Builder rules = PricingCalendar.Rules.builder();
+        List<String[]> data = FileReader.readCSV(filePath);
+        List<String> errors = new ArrayList<>();
+
+        for (int i = 0; i < data.size(); i++) {
+            String[] row = data.get(i);
+            if (row.length == 1 && row[0].isBlank()) continue;
+            try {
+                String rule = row[0].trim().toUpperCase();
+                VesselCategory category = category(row[1].trim());
+                String location = row[2].trim().equals("*") ? null : row[2].trim();
+                String key = row[3].trim();
+                int value = parseRate(row[4].trim());
+
+                switch (rule) {
+                    case "WEEKDAY" -> rules.weekday(category, location, DayOfWeek.valueOf(key.toUpperCase()), value);
+                    case "HOLIDAY" -> {
+                        String[] range = range(key);
+                        rules.holiday(category, location, LocalDate.parse(range[0]), LocalDate.parse(range[1]), value);
+                    }
+                    case "SEASON" -> {
+                        String[] range = range(key);
+                        rules.season(category, location, MonthDay.parse("--" + range[0]), MonthDay.parse("--" + range[1]), value);
+                    }
+                    case "SURGE" -> rules.surge(category, location, parseRate(key), value);
+                    default -> throw new IllegalArgumentException("Unknown pricing calendar rule: " + rule);
+                }
+            } catch (RuntimeException e) {
+                // Header is line 1
+                errors.add("line " + (i + 2) + " (" + String.join(",", row) + "): " + e.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException("Invalid pricing calendar in " + filePath + ":\n  " + String.join("\n  ", errors));
+        }
+        return rules.build();
+    }
+
+    private static VesselCategory category(String label) {
+        if (label.equals("*")) return null;
+        VesselCategory category = VesselCategory.fromLabel(label);
+        if (category == null) {
+            throw new IllegalArgumentException("Unknown vessel category: " + label);
+        }
+        return category;
+    }
+
+    // "a..b", or a single "a" meaning a..a
+    private static String[] range(String key) {
+        int separator = key.indexOf("..");
+        if (separator < 0) return new String[] {key, key};
+        return new String[] {key.substring(0, separator).trim(), key.substring(separator + 2).trim()};
+    }
+
+    private static int parseRate(String value) {
+        if (!value.endsWith("%")) {
+            throw new IllegalArgumentException("Rate must be a percentage: " + value);
+        }
+        return Money.toBasisPoints(Double.parseDouble(value.substring(0, value.length() - 1).trim()) / 100.0);
+    }
+}
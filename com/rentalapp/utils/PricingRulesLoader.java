@@ -0,0 +1,87 @@
+package com.rentalapp.utils;
+
+import com.rentalapp.payment.Money;
+import com.rentalapp.payment.PricingRules;
+import com.rentalapp.vessel.VesselCategory;
+import java.util.*;
+
+public class PricingRulesLoader {
+    private static final String PRICING_FILE = "com/rentalapp/data/PricingRules.csv";
+
+    public static PricingRules loadPricingRules() {
+        return loadPricingRules(PRICING_FILE);
+    }
+
+    // Columns: rule,key,tier,value
+    // Amounts are RM ("500"), rates are percentages ("6%"). A MEMBER_DISCOUNT key of '*'
+    // applies to every category without its own row. Every row is checked; if any is
+    // malformed, or a required rule is missing, loading fails with the offending lines.
+    public static PricingRules loadPricingRules(String filePath) {
+        PricingRules.Builder rules = PricingRules.builder();
+        List<String[]> data = FileReader.readCSV(filePath);
+        List<String> errors = new ArrayList<>();
+
+        for (int i = 0; i < data.size(); i++) {
+            String[] row = data.get(i);
+            if (row.length == 1 && row[0].isBlank()) continue;
+            try {
+                String rule = row[0].trim().toUpperCase();
+                String key = row.length > 1 ? row[1].trim() : "";
+                String tier = row.length > 2 ? row[2].trim() : "";
+                String value = row.length > 3 ? row[3].trim() : "";
+
+                switch (rule) {
+                    case "TAX" -> rules.tax(parseRate(value));
+                    case "EXTENSION_HOURLY" -> rules.extensionHourly(category(key), parseAmount(value));
+                    case "MEMBER_DISCOUNT" -> rules.memberDiscount(key.equals("*") ? null : category(key),
+                            PricingRules.Tier.valueOf(tier.toUpperCase()), parseDiscount(value));
+                    case "DAMAGE_BASE" -> rules.damageBase(PricingRules.DamageType.valueOf(key.toUpperCase()), parseAmount(value));
+                    case "DAMAGE_SEVERITY" -> rules.damageSeverity(PricingRules.Severity.valueOf(key.toUpperCase()), parseRate(value));
+                    case "REFUND" -> rules.refund(Integer.parseInt(key), parseDiscount(value));
+                    default -> throw new IllegalArgumentException("Unknown pricing rule: " + rule);
+                }
+            } catch (RuntimeException e) {
+                // Header is line 1
+                errors.add("line " + (i + 2) + " (" + String.join(",", row) + "): " + e.getMessage());
+            }
+        }
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException("Invalid pricing rules in " + filePath + ":\n  " + String.join("\n  ", errors));
+        }
+        try {
+            return rules.build();
+        } catch (IllegalStateException e) {
+            throw new IllegalArgumentException("Invalid pricing rules in " + filePath + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static VesselCategory category(String label) {
+        VesselCategory category = VesselCategory.fromLabel(label);
+        if (category == null) {
+            throw new IllegalArgumentException("Unknown vessel category: " + label);
+        }
+        return category;
+    }
+
+    private static long parseAmount(String value) {
+        long cents = Money.toCents(Double.parseDouble(value));
+        if (cents < 0) throw new IllegalArgumentException("Amount cannot be negative: " + value);
+        return cents;
+    }
+
+    private static int parseRate(String value) {
+        if (!value.endsWith("%")) {
+            throw new IllegalArgumentException("Rate must be a percentage: " + value);
+        }
+        int basisPoints = Money.toBasisPoints(Double.parseDouble(value.substring(0, value.length() - 1).trim()) / 100.0);
+        if (basisPoints < 0) throw new IllegalArgumentException("Rate cannot be negative: " + value);
+        return basisPoints;
+    }
+
+    // Discounts and refunds are a share of the price, so at most 100%
+    private static int parseDiscount(String value) {
+        int basisPoints = parseRate(value);
+        if (basisPoints > Money.BASIS_POINTS) throw new IllegalArgumentException("Rate cannot exceed 100%: " + value);
+        return basisPoints;
+    }
+}
@@ -0,0 +1,49 @@
+package com.rentalapp.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dictionary that maps repeated values (categories, locations, vessel
+ * types, payment methods, statuses) to small int codes. Records store the code
+ * instead of a String reference so every row of the same value shares one entry.
+ * Codes are never released, so only encode values drawn from a small, bounded set;
+ * ids, names and other per-customer values must stay plain strings.
+ */
+public final class StringDictionary {
+    public static final int NULL_CODE = -1;
+
+    private static final ConcurrentHashMap<String, Integer> CODES = new ConcurrentHashMap<>();
+    private static volatile String[] values = new String[256];
+    private static int size = 0;
+
+    private StringDictionary() {}
+
+    public static int encode(String value) {
+        if (value == null) return NULL_CODE;
+        Integer code = CODES.get(value);
+        return code != null ? code : register(value);
+    }
+
+    public static String decode(int code) {
+        return code == NULL_CODE ? null : values[code];
+    }
+
+    public static int size() {
+        return CODES.size();
+    }
+
+    private static synchronized int register(String value) {
+        Integer code = CODES.get(value);
+        if (code != null) return code;
+
+        String[] current = values;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[size] = value;
+        values = current; // publish the array before the code becomes visible
+        CODES.put(value, size);
+        return size++;
+    }
+}
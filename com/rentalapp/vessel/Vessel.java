@@ -1,5 +1,6 @@
 package com.rentalapp.vessel;
 
+import com.rentalapp.payment.Money;
 import java.time.Duration;
 
 public class Vessel {
@@ -10,7 +11,7 @@ public class Vessel {
     private String purpose;
     private int capacity;
     private Duration duration;    
-    private double basePrice;
+    private long basePriceCents;
     private boolean available;
     private int rentalCount = 0;
 
@@ -22,7 +23,7 @@ public class Vessel {
         this.purpose = purpose;
         this.capacity = capacity;
         this.duration = duration; 
-        this.basePrice = basePrice;
+        this.basePriceCents = Money.toCents(basePrice);
         this.available = available;
     }
 
@@ -34,7 +35,8 @@ public class Vessel {
     public String getPurpose() { return purpose; }
     public int getCapacity() { return capacity; }
     public Duration getDuration() { return duration; }      
-    public double getBasePrice() { return basePrice; }
+    public double getBasePrice() { return Money.toAmount(basePriceCents); }
+    public long getBasePriceCents() { return basePriceCents; }
     public boolean isAvailable() { return available; }
     public int getRentalCount() { return rentalCount; }
 
@@ -46,7 +48,7 @@ public class Vessel {
     public void setPurpose(String purpose) { this.purpose = purpose; }
     public void setCapacity(int capacity) { this.capacity = capacity; }
     public void setDuration(Duration duration) { this.duration = duration; }           
-    public void setBasePrice(double basePrice) { this.basePrice = basePrice; }
+    public void setBasePrice(double basePrice) { this.basePriceCents = Money.toCents(basePrice); }
     public void setAvailable(boolean available) { this.available = available; }
 
     public void incrementRentalCount() { this.rentalCount++; }
@@ -59,7 +61,7 @@ public class Vessel {
 
         return String.format(
                 "ID: %s | %s (%s) | %s | %d pax | RM%.2f / %dh %dm | %s | %s",
-                id, vesselType, location, capacity, basePrice,hours, minutes, purpose, available ? "Available" : "Rented");
+                id, vesselType, location, capacity, getBasePrice(), hours, minutes, purpose, available ? "Available" : "Rented");
     }
 
 }
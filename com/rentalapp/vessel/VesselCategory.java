@@ -0,0 +1,46 @@
+package com.rentalapp.vessel;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The fixed set of vessel categories used in the data files. Lets lookups key an
+ * EnumMap or array by category instead of comparing category strings.
+ */
+public enum VesselCategory {
+    YACHT("Yacht"),
+    PONTOON("Pontoon"),
+    BOAT("Boat"),
+    JET_SKI("Jet Ski"),
+    FISHING_CHARTER("Fishing Charter");
+
+    private static final Map<String, VesselCategory> BY_LABEL = new HashMap<>();
+    private static final Map<String, VesselCategory> BY_EXACT_LABEL = new HashMap<>();
+
+    static {
+        for (VesselCategory category : values()) {
+            BY_LABEL.put(category.label.toLowerCase(), category);
+            BY_EXACT_LABEL.put(category.label, category);
+        }
+    }
+
+    private final String label;
+
+    VesselCategory(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    /**
+     * Resolve a category label such as "Jet Ski" (case-insensitive). Returns null if unknown.
+     */
+    public static VesselCategory fromLabel(String label) {
+        if (label == null) return null;
+        // Labels from the data files match exactly; only normalise (and allocate) when they don't
+        VesselCategory category = BY_EXACT_LABEL.get(label);
+        return category != null ? category : BY_LABEL.get(label.trim().toLowerCase());
+    }
+}
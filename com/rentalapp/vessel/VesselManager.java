@@ -59,7 +59,7 @@ public class VesselManager {
                       .orElse(null);
     }
     
-    public boolean rentVessel(String vesselId) {
+    public synchronized boolean rentVessel(String vesselId) {
         Vessel vessel = getVesselById(vesselId);
         if (vessel != null && vessel.isAvailable()) {
             vessel.setAvailable(false);
@@ -68,7 +68,7 @@ public class VesselManager {
         return false;
     }
     
-    public boolean returnVessel(String vesselId) {
+    public synchronized boolean returnVessel(String vesselId) {
         Vessel vessel = getVesselById(vesselId);
         if (vessel != null && !vessel.isAvailable()) {
             vessel.setAvailable(true);
@@ -0,0 +1,7 @@
+package com.rentalapp.vessel;
+
+/**
+ * Published on the EventBus when a vessel becomes available again (returned, rental
+ * cancelled, maintenance finished) so waiting demand can be matched to it.
+ */
+public record VesselReleased(String vesselId, String reason) {}